@@ -1,10 +1,14 @@
 package demo.grid.alerting;
 
 import demo.grid.alerting.config.AlertingProperties;
+import demo.grid.schema.threading.ThreadingConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -14,13 +18,18 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 @EnableConfigurationProperties(AlertingProperties.class)
 @EnableKafkaRetryTopic
 @EnableScheduling
+@Import(ThreadingConfig.class)
 public class AlertingApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(AlertingApplication.class, args);
     }
 
+    /**
+     * Platform-thread scheduler; in virtual-thread mode Spring Boot's SimpleAsyncTaskScheduler is used instead.
+     */
     @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
         scheduler.setPoolSize(5);
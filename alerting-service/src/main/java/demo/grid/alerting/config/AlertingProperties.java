@@ -1,7 +1,48 @@
 package demo.grid.alerting.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
+/**
+ * @param topic  the topic every producer writes to, and the base name of the per-type topics
+ * @param routed also subscribe to the per-type topics of ALERT and GENERIC ({@code demo.grid.schema.EventTopics}), for
+ *               producers that route by type
+ * @param dedup  front filter for redelivered events
+ * @param replay replay of retry and dead-letter topics
+ */
 @ConfigurationProperties(prefix = "app.kafka")
-public record AlertingProperties(String topic) {
+public record AlertingProperties(String topic,
+                                 @DefaultValue("false") boolean routed,
+                                 @DefaultValue Dedup dedup,
+                                 @DefaultValue Replay replay) {
+
+    /**
+     * In-memory front filter of recently persisted eventIds ({@link demo.grid.schema.RecentEventIds}): only events
+     * it recognises as probable redeliveries are looked up in the database before they are written.
+     *
+     * @param enabled            use the filter
+     * @param expectedInsertions ids per generation; two generations are kept, about 1.4 MB each per million ids
+     * @param falsePositiveRate  share of new events taken for redeliveries, each costing one extra lookup
+     */
+    public record Dedup(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("1000000") int expectedInsertions,
+            @DefaultValue("0.01") double falsePositiveRate) {
+    }
+
+    /**
+     * Replay of retry and dead-letter topics through the listener ({@link demo.grid.schema.kafka.DeadLetterReplayer}),
+     * started from the admin endpoints.
+     *
+     * @param enabled        expose the replay endpoints
+     * @param maxRate        records per second a job may replay, whatever it asks for
+     * @param maxConcurrency threads replaying, shared by all jobs
+     * @param maxJobs        jobs that may run at once
+     */
+    public record Replay(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("200") double maxRate,
+            @DefaultValue("2") int maxConcurrency,
+            @DefaultValue("1") int maxJobs) {
+    }
 }
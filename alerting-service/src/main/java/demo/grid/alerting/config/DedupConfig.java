@@ -0,0 +1,45 @@
+package demo.grid.alerting.config;
+
+import demo.grid.schema.RecentEventIds;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The front filter the listeners consult before writing an event, and its metrics.
+ */
+@Configuration
+public class DedupConfig {
+
+    @Bean
+    public RecentEventIds recentEventIds(AlertingProperties properties) {
+        AlertingProperties.Dedup dedup = properties.dedup();
+        return dedup.enabled()
+                ? new RecentEventIds(dedup.expectedInsertions(), dedup.falsePositiveRate())
+                : RecentEventIds.disabled();
+    }
+
+    @Bean
+    public MeterBinder recentEventIdsMetrics(RecentEventIds recentEventIds) {
+        return registry -> {
+            FunctionCounter.builder("grid.dedup.lookups", recentEventIds, RecentEventIds::lookups)
+                    .description("Consumed events checked against the recently persisted eventIds")
+                    .register(registry);
+            FunctionCounter.builder("grid.dedup.hits", recentEventIds, RecentEventIds::hits)
+                    .description("Checked events that were probable redeliveries and so were looked up")
+                    .register(registry);
+            Gauge.builder("grid.dedup.hit.ratio", recentEventIds, RecentEventIds::hitRatio)
+                    .description("Share of checked events that were probable redeliveries")
+                    .register(registry);
+            Gauge.builder("grid.dedup.false.positive.rate", recentEventIds, RecentEventIds::falsePositiveRate)
+                    .description("Share of new events the filter took for redeliveries")
+                    .register(registry);
+            Gauge.builder("grid.dedup.filter.size", recentEventIds, RecentEventIds::sizeInBytes)
+                    .description("Memory held by the filter")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
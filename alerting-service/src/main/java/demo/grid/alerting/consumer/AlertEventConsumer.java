@@ -6,7 +6,9 @@ import demo.grid.alerting.config.AlertingProperties;
 import demo.grid.alerting.domain.AlertEntity;
 import demo.grid.alerting.repository.AlertRepository;
 import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTopics;
 import demo.grid.schema.EventTypes;
+import demo.grid.schema.RecentEventIds;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -20,10 +22,13 @@ import org.springframework.stereotype.Component;
 import org.slf4j.MDC;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Consumes events from grid.events.v1 and persists ALERT and GENERIC events as alerts.
- * Idempotent by eventId (duplicate deliveries skipped).
+ * Idempotent by eventId (duplicate deliveries skipped); recently persisted eventIds are remembered, so a
+ * redelivery costs a primary-key lookup instead of a write.
  */
 @Component
 public class AlertEventConsumer {
@@ -32,17 +37,21 @@ public class AlertEventConsumer {
     private static final String SEVERITY_NORMAL = "NORMAL";
     private static final String SEVERITY_HIGH = "HIGH";
     private static final int SUMMARY_MAX_LEN = 2000;
+    private static final List<String> TYPES = List.of(EventTypes.ALERT, EventTypes.GENERIC);
 
     private final AlertRepository repository;
     private final AlertingProperties properties;
     private final ObjectMapper objectMapper;
+    private final RecentEventIds recentEventIds;
 
     public AlertEventConsumer(AlertRepository repository,
                               AlertingProperties properties,
-                              ObjectMapper objectMapper) {
+                              ObjectMapper objectMapper,
+                              RecentEventIds recentEventIds) {
         this.repository = repository;
         this.properties = properties;
         this.objectMapper = objectMapper;
+        this.recentEventIds = recentEventIds;
     }
 
     private static final String MDC_CORRELATION_ID = "correlationId";
@@ -52,7 +61,7 @@ public class AlertEventConsumer {
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
             exclude = {DataIntegrityViolationException.class}
     )
-    @KafkaListener(topics = "${app.kafka.topic}", groupId = "${spring.kafka.consumer.group-id}")
+    @KafkaListener(topics = "#{__listener.topics()}", groupId = "${spring.kafka.consumer.group-id}")
     public void onEvent(@Payload EventEnvelope envelope,
                         @Header(value = KafkaHeaders.RECEIVED_KEY, required = false) String key) {
         String correlationId = envelope.correlationId() != null ? envelope.correlationId() : envelope.eventId().toString();
@@ -63,6 +72,10 @@ public class AlertEventConsumer {
                 log.debug("Skipping non-alert event type: {}", eventType);
                 return;
             }
+            if (alreadyStored(envelope.eventId())) {
+                log.debug("Redelivered alert ignored eventId={}", envelope.eventId());
+                return;
+            }
 
             String severity = EventTypes.ALERT.equals(eventType) ? SEVERITY_HIGH : SEVERITY_NORMAL;
             String summary = buildSummary(envelope);
@@ -78,22 +91,41 @@ public class AlertEventConsumer {
                     createdAt
             );
 
-            try {
-                repository.save(entity);
+            if (repository.insertIfAbsent(entity) > 0) {
                 log.info("Persisted alert eventId={} type={} severity={} correlationId={}",
                         envelope.eventId(), eventType, severity, envelope.correlationId());
-            } catch (DataIntegrityViolationException e) {
+            } else {
                 log.debug("Duplicate alert ignored (idempotent) eventId={}", envelope.eventId());
             }
+            recentEventIds.add(envelope.eventId());
         } finally {
             MDC.remove(MDC_CORRELATION_ID);
         }
     }
 
+    /** A filter hit is only a probable redelivery; the database decides. */
+    private boolean alreadyStored(UUID eventId) {
+        if (!recentEventIds.mightContain(eventId)) {
+            return false;
+        }
+        if (repository.existsById(eventId)) {
+            return true;
+        }
+        recentEventIds.falsePositives(1);
+        return false;
+    }
+
     public String topic() {
         return properties.topic();
     }
 
+    /** The base topic, plus the ALERT and GENERIC topics when routed. */
+    public String[] topics() {
+        return properties.routed()
+                ? EventTopics.subscription(properties.topic(), TYPES)
+                : new String[]{properties.topic()};
+    }
+
     private String buildSummary(EventEnvelope envelope) {
         if (envelope.payload() == null || envelope.payload().isNull())
             return envelope.eventType() + " " + envelope.eventId();
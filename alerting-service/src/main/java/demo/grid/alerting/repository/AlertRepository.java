@@ -4,10 +4,34 @@ import demo.grid.alerting.domain.AlertEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
 public interface AlertRepository extends JpaRepository<AlertEntity, UUID> {
 
+    String INSERT_IF_ABSENT = "INSERT INTO alert ("
+            + "event_id, event_type, severity, summary, source, correlation_id, created_at"
+            + ") VALUES ("
+            + ":#{#alert.eventId}, :#{#alert.eventType}, :#{#alert.severity}, "
+            + ":#{#alert.summary}, :#{#alert.source}, :#{#alert.correlationId}, "
+            + ":#{#alert.createdAt}"
+            + ") ON CONFLICT (event_id) DO NOTHING";
+
     Page<AlertEntity> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    /**
+     * Inserts the row unless one with its event_id exists. Unlike {@link #save}, which merges entities with
+     * assigned ids and so selects before inserting, this is a single statement, and a duplicate is reported by the
+     * row count instead of a constraint violation.
+     *
+     * @return 1 if inserted, 0 if the event was already stored
+     */
+    @Modifying
+    @Transactional
+    @Query(value = INSERT_IF_ABSENT, nativeQuery = true)
+    int insertIfAbsent(@Param("alert") AlertEntity alert);
 }
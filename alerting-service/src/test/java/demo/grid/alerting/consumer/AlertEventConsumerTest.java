@@ -5,6 +5,7 @@ import demo.grid.alerting.config.AlertingProperties;
 import demo.grid.alerting.repository.AlertRepository;
 import demo.grid.schema.EventEnvelope;
 import demo.grid.schema.EventTypes;
+import demo.grid.schema.RecentEventIds;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -32,6 +33,9 @@ class AlertEventConsumerTest {
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    @Spy
+    private RecentEventIds recentEventIds = new RecentEventIds(1_000, 0.01);
+
     @InjectMocks
     private AlertEventConsumer consumer;
 
@@ -54,7 +58,7 @@ class AlertEventConsumerTest {
 
         ArgumentCaptor<demo.grid.alerting.domain.AlertEntity> captor =
                 ArgumentCaptor.forClass(demo.grid.alerting.domain.AlertEntity.class);
-        verify(repository).save(captor.capture());
+        verify(repository).insertIfAbsent(captor.capture());
         demo.grid.alerting.domain.AlertEntity saved = captor.getValue();
         assertThat(saved.getEventId()).isEqualTo(eventId);
         assertThat(saved.getEventType()).isEqualTo(EventTypes.ALERT);
@@ -77,6 +81,6 @@ class AlertEventConsumerTest {
 
         consumer.onEvent(envelope, null);
 
-        verify(repository, never()).save(any());
+        verify(repository, never()).insertIfAbsent(any());
     }
 }
@@ -1,7 +1,69 @@
 package demo.grid.audit.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+
+/**
+ * @param topic  the topic every producer writes to, and the base name of the per-type topics
+ * @param routed also subscribe to every per-type topic ({@code demo.grid.schema.EventTopics}), for producers that
+ *               route by type
+ * @param bulk   bulk mode
+ * @param dedup  front filter for redelivered events
+ * @param replay replay of retry and dead-letter topics
+ */
 @ConfigurationProperties(prefix = "app.kafka")
-public record AuditProperties(String topic) {
+public record AuditProperties(String topic,
+                              @DefaultValue("false") boolean routed,
+                              @DefaultValue Bulk bulk,
+                              @DefaultValue Dedup dedup,
+                              @DefaultValue Replay replay) {
+
+    /**
+     * Bulk mode: each poll is streamed into audit_event with binary COPY through a staging table, and its offsets
+     * are committed once that transaction has.
+     *
+     * @param enabled       use the bulk listener instead of the per-record one
+     * @param maxSize       most records per poll, and so per COPY (max.poll.records)
+     * @param minFetchSize  bytes the broker waits to gather before answering a fetch (fetch.min.bytes)
+     * @param flushInterval longest the broker waits for min-fetch-size (fetch.max.wait.ms)
+     */
+    public record Bulk(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("2000") int maxSize,
+            @DefaultValue("256KB") DataSize minFetchSize,
+            @DefaultValue("200ms") Duration flushInterval) {
+    }
+
+    /**
+     * In-memory front filter of recently persisted eventIds ({@link demo.grid.schema.RecentEventIds}): only events
+     * it recognises as probable redeliveries are looked up in the database before they are written.
+     *
+     * @param enabled            use the filter
+     * @param expectedInsertions ids per generation; two generations are kept, about 1.4 MB each per million ids
+     * @param falsePositiveRate  share of new events taken for redeliveries, each costing one extra lookup
+     */
+    public record Dedup(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("1000000") int expectedInsertions,
+            @DefaultValue("0.01") double falsePositiveRate) {
+    }
+
+    /**
+     * Replay of retry and dead-letter topics through the listener ({@link demo.grid.schema.kafka.DeadLetterReplayer}),
+     * started from the admin endpoints.
+     *
+     * @param enabled        expose the replay endpoints
+     * @param maxRate        records per second a job may replay, whatever it asks for
+     * @param maxConcurrency threads replaying, shared by all jobs
+     * @param maxJobs        jobs that may run at once
+     */
+    public record Replay(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("200") double maxRate,
+            @DefaultValue("2") int maxConcurrency,
+            @DefaultValue("1") int maxJobs) {
+    }
 }
@@ -0,0 +1,56 @@
+package demo.grid.audit.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+import java.util.Properties;
+
+/**
+ * Listener container for {@code AuditEventBulkConsumer}. Poll size and fetch wait come from app.kafka.bulk;
+ * offsets are committed once per poll, after the listener has returned. @RetryableTopic does not support batch
+ * listeners, so a failed batch is retried in place with the same backoff (3 attempts, 1s doubling) and then
+ * published to the same -dlt topic the per-record listener uses.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.kafka.bulk.enabled", havingValue = "true")
+public class BulkListenerConfig {
+
+    static final String DLT_SUFFIX = "-dlt";
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> auditBulkListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaOperations<?, ?> kafkaTemplate,
+            AuditProperties properties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+
+        AuditProperties.Bulk bulk = properties.bulk();
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(bulk.maxSize()));
+        overrides.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, Long.toString(bulk.minFetchSize().toBytes()));
+        overrides.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, Long.toString(bulk.flushInterval().toMillis()));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(2);
+        backOff.setInitialInterval(1_000);
+        backOff.setMultiplier(2.0);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1)), backOff));
+        return factory;
+    }
+}
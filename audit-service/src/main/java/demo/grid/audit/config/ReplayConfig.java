@@ -0,0 +1,68 @@
+package demo.grid.audit.config;
+
+import demo.grid.audit.consumer.AuditEventBulkConsumer;
+import demo.grid.audit.consumer.AuditEventConsumer;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.kafka.DeadLetterReplayController;
+import demo.grid.schema.kafka.DeadLetterReplayMetrics;
+import demo.grid.schema.kafka.DeadLetterReplayer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.Properties;
+
+/**
+ * Replays retry and dead-letter topics through whichever audit listener is active, as requested on the admin
+ * endpoints; in bulk mode each poll's records go to the bulk listener as one list. Replay consumers are built from
+ * the listener's consumer factory, so they decode records the same way, but they are assigned partitions and never
+ * commit, leaving the consumer group's offsets alone.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.kafka.replay.enabled", havingValue = "true")
+public class ReplayConfig {
+
+    private static final String CLIENT_ID_PREFIX = "dlt-replay";
+
+    @Bean
+    public DeadLetterReplayer<LazyEventEnvelope> deadLetterReplayer(
+            ConsumerFactory<Object, Object> consumerFactory,
+            AuditProperties properties,
+            ObjectProvider<AuditEventConsumer> recordListener,
+            ObjectProvider<AuditEventBulkConsumer> bulkListener) {
+        AuditProperties.Replay replay = properties.replay();
+        AuditEventConsumer listener = recordListener.getIfAvailable();
+        if (listener != null) {
+            return new DeadLetterReplayer<>(() -> replayConsumer(consumerFactory),
+                    (key, envelope) -> listener.onEvent(envelope, key),
+                    DeadLetterReplayer.retryTopicsOf(listener.topics()), replay.maxRate(), replay.maxConcurrency(),
+                    replay.maxJobs());
+        }
+        AuditEventBulkConsumer bulk = bulkListener.getObject();
+        return DeadLetterReplayer.batched(() -> replayConsumer(consumerFactory), bulk::onEvents,
+                DeadLetterReplayer.retryTopicsOf(bulk.topics()), replay.maxRate(), replay.maxConcurrency(),
+                replay.maxJobs());
+    }
+
+    @Bean
+    public DeadLetterReplayController deadLetterReplayController(DeadLetterReplayer<?> replayer) {
+        return new DeadLetterReplayController(replayer);
+    }
+
+    @Bean
+    public DeadLetterReplayMetrics deadLetterReplayMetrics(DeadLetterReplayer<?> replayer) {
+        return new DeadLetterReplayMetrics(replayer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Consumer<String, V> replayConsumer(ConsumerFactory<Object, Object> consumerFactory) {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return (Consumer<String, V>) (Consumer<?, ?>) consumerFactory.createConsumer(null, CLIENT_ID_PREFIX, null,
+                overrides);
+    }
+}
@@ -0,0 +1,159 @@
+package demo.grid.audit.consumer;
+
+import demo.grid.audit.config.AuditProperties;
+import demo.grid.audit.domain.AuditEventEntity;
+import demo.grid.audit.repository.AuditEventCopyRepository;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk counterpart of {@link AuditEventConsumer}: takes a poll's worth of envelopes and streams them into
+ * audit_event with one binary COPY. The container commits the poll's offsets only after this method returns, so a
+ * crash before the commit redelivers the batch and the staging table's ON CONFLICT drops what was already written.
+ * Polled ids that {@link RecentEventIds} has seen are checked with one select first, and the stored ones are
+ * dropped before the COPY.
+ * <p>
+ * If a row violates a constraint (a null source, an over-long field), COPY fails as a whole and the batch is
+ * retried row by row so that only the offending rows are dropped. Any other failure propagates to the container's
+ * error handler, which retries the whole batch and then sends it to the dead-letter topic.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.bulk.enabled", havingValue = "true")
+public class AuditEventBulkConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditEventBulkConsumer.class);
+
+    private final AuditEventCopyRepository repository;
+    private final AuditProperties properties;
+    private final RecentEventIds recentEventIds;
+    private final DistributionSummary batchSize;
+    private final Timer copyTimer;
+    private final Counter inserted;
+    private final Counter duplicates;
+    private final Counter rejected;
+
+    public AuditEventBulkConsumer(AuditEventCopyRepository repository,
+                                  AuditProperties properties,
+                                  RecentEventIds recentEventIds,
+                                  MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.recentEventIds = recentEventIds;
+        this.batchSize = DistributionSummary.builder("audit.bulk.size")
+                .description("Records per polled batch")
+                .register(meterRegistry);
+        this.copyTimer = Timer.builder("audit.bulk.copy")
+                .description("Time to COPY, move and commit one batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.inserted = eventCounter(meterRegistry, "inserted");
+        this.duplicates = eventCounter(meterRegistry, "duplicate");
+        this.rejected = eventCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("audit.bulk.events")
+                .description("Bulk-written records by outcome: inserted, duplicate (already stored) or rejected"
+                        + " (violated a constraint)")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "#{__listener.topics()}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "auditBulkListenerContainerFactory", batch = "true")
+    public void onEvents(List<LazyEventEnvelope> envelopes) {
+        batchSize.record(envelopes.size());
+        Instant auditedAt = Instant.now();
+        List<AuditEventEntity> entities = new ArrayList<>(envelopes.size());
+        for (LazyEventEnvelope envelope : envelopes) {
+            if (envelope != null) {
+                entities.add(AuditEvents.toEntity(envelope, auditedAt));
+            }
+        }
+        duplicates.increment(dropStored(entities));
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            int written = repository.copyAll(entities);
+            inserted.increment(written);
+            duplicates.increment(entities.size() - written);
+            remember(entities);
+            log.debug("Audited {} of {} polled events", written, entities.size());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of {} audit events violates a constraint, writing them one by one: {}",
+                    entities.size(), e.getMostSpecificCause().getMessage());
+            insertEach(entities);
+        } finally {
+            copyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public String[] topics() {
+        return AuditEvents.topics(properties);
+    }
+
+    /**
+     * Removes the entities the front filter and then the database show are already stored, so that a redelivered
+     * poll costs one select instead of a write.
+     *
+     * @return how many were removed
+     */
+    private int dropStored(List<AuditEventEntity> entities) {
+        List<UUID> probable = new ArrayList<>();
+        for (AuditEventEntity entity : entities) {
+            if (recentEventIds.mightContain(entity.getEventId())) {
+                probable.add(entity.getEventId());
+            }
+        }
+        if (probable.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> stored = repository.findStored(probable);
+        recentEventIds.falsePositives(probable.size() - stored.size());
+        if (stored.isEmpty()) {
+            return 0;
+        }
+        int polled = entities.size();
+        entities.removeIf(entity -> stored.contains(entity.getEventId()));
+        return polled - entities.size();
+    }
+
+    private void remember(List<AuditEventEntity> entities) {
+        for (AuditEventEntity entity : entities) {
+            recentEventIds.add(entity.getEventId());
+        }
+    }
+
+    private void insertEach(List<AuditEventEntity> entities) {
+        for (AuditEventEntity entity : entities) {
+            try {
+                (repository.insert(entity) ? inserted : duplicates).increment();
+                recentEventIds.add(entity.getEventId());
+            } catch (DataIntegrityViolationException e) {
+                rejected.increment();
+                log.warn("Dropping audit event that violates a constraint eventId={}: {}",
+                        entity.getEventId(), e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package demo.grid.audit.consumer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import demo.grid.audit.config.AuditProperties;
 import demo.grid.audit.domain.AuditEventEntity;
 import demo.grid.audit.repository.AuditEventRepository;
-import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
@@ -19,26 +19,30 @@ import org.springframework.stereotype.Component;
 import org.slf4j.MDC;
 
 import java.time.Instant;
+import java.util.UUID;
 
 /**
  * Consumes every event from grid.events.v1 and persists to the audit log (all event types).
- * Idempotent by eventId.
+ * Idempotent by eventId; recently persisted eventIds are remembered, so a redelivery costs a primary-key lookup
+ * instead of a write.
+ * Replaced by {@link AuditEventBulkConsumer} when app.kafka.bulk.enabled is set.
  */
 @Component
+@ConditionalOnProperty(name = "app.kafka.bulk.enabled", havingValue = "false", matchIfMissing = true)
 public class AuditEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(AuditEventConsumer.class);
 
     private final AuditEventRepository repository;
     private final AuditProperties properties;
-    private final ObjectMapper objectMapper;
+    private final RecentEventIds recentEventIds;
 
     public AuditEventConsumer(AuditEventRepository repository,
                               AuditProperties properties,
-                              ObjectMapper objectMapper) {
+                              RecentEventIds recentEventIds) {
         this.repository = repository;
         this.properties = properties;
-        this.objectMapper = objectMapper;
+        this.recentEventIds = recentEventIds;
     }
 
     private static final String MDC_CORRELATION_ID = "correlationId";
@@ -48,50 +52,48 @@ public class AuditEventConsumer {
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
             exclude = {DataIntegrityViolationException.class}
     )
-    @KafkaListener(topics = "${app.kafka.topic}", groupId = "${spring.kafka.consumer.group-id}")
-    public void onEvent(@Payload EventEnvelope envelope,
+    @KafkaListener(topics = "#{__listener.topics()}", groupId = "${spring.kafka.consumer.group-id}")
+    public void onEvent(@Payload LazyEventEnvelope envelope,
                         @Header(value = KafkaHeaders.RECEIVED_KEY, required = false) String key) {
         String correlationId = envelope.correlationId() != null ? envelope.correlationId() : envelope.eventId().toString();
         MDC.put(MDC_CORRELATION_ID, correlationId);
         try {
-            String payloadJson = serializePayload(envelope);
-            Instant auditedAt = Instant.now();
+            if (alreadyStored(envelope.eventId())) {
+                log.debug("Redelivered audit ignored eventId={}", envelope.eventId());
+                return;
+            }
 
-            AuditEventEntity entity = new AuditEventEntity(
-                    envelope.eventId(),
-                    envelope.eventType(),
-                    envelope.occurredAt(),
-                    envelope.producedAt(),
-                    envelope.source(),
-                    envelope.correlationId(),
-                    payloadJson,
-                    envelope.version(),
-                    auditedAt
-            );
+            AuditEventEntity entity = AuditEvents.toEntity(envelope, Instant.now());
 
-            try {
-                repository.save(entity);
+            if (repository.insertIfAbsent(entity) > 0) {
                 log.info("Audited event eventId={} type={} correlationId={}",
                         envelope.eventId(), envelope.eventType(), envelope.correlationId());
-            } catch (DataIntegrityViolationException e) {
+            } else {
                 log.debug("Duplicate audit ignored (idempotent) eventId={}", envelope.eventId());
             }
+            recentEventIds.add(envelope.eventId());
         } finally {
             MDC.remove(MDC_CORRELATION_ID);
         }
     }
 
+    /** A filter hit is only a probable redelivery; the database decides. */
+    private boolean alreadyStored(UUID eventId) {
+        if (!recentEventIds.mightContain(eventId)) {
+            return false;
+        }
+        if (repository.existsById(eventId)) {
+            return true;
+        }
+        recentEventIds.falsePositives(1);
+        return false;
+    }
+
     public String topic() {
         return properties.topic();
     }
 
-    private String serializePayload(EventEnvelope envelope) {
-        if (envelope.payload() == null) return null;
-        try {
-            return objectMapper.writeValueAsString(envelope.payload());
-        } catch (JsonProcessingException e) {
-            log.warn("Could not serialize payload for eventId={}", envelope.eventId(), e);
-            return envelope.payload().toString();
-        }
+    public String[] topics() {
+        return AuditEvents.topics(properties);
     }
 }
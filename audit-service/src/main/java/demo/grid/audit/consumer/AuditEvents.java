@@ -0,0 +1,37 @@
+package demo.grid.audit.consumer;
+
+import demo.grid.audit.config.AuditProperties;
+import demo.grid.audit.domain.AuditEventEntity;
+import demo.grid.schema.EventTopics;
+import demo.grid.schema.LazyEventEnvelope;
+
+import java.time.Instant;
+
+/**
+ * What both listener modes keep of an envelope. The payload is stored as the producer wrote it, straight from
+ * the consumed record's bytes.
+ */
+final class AuditEvents {
+
+    private AuditEvents() {
+    }
+
+    /** The base topic, plus every per-type topic when routed. */
+    static String[] topics(AuditProperties properties) {
+        return properties.routed() ? EventTopics.all(properties.topic()) : new String[]{properties.topic()};
+    }
+
+    static AuditEventEntity toEntity(LazyEventEnvelope envelope, Instant auditedAt) {
+        return new AuditEventEntity(
+                envelope.eventId(),
+                envelope.eventType(),
+                envelope.occurredAt(),
+                envelope.producedAt(),
+                envelope.source(),
+                envelope.correlationId(),
+                envelope.payloadJson(),
+                envelope.version(),
+                auditedAt
+        );
+    }
+}
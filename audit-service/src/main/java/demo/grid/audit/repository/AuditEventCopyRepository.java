@@ -0,0 +1,132 @@
+package demo.grid.audit.repository;
+
+import demo.grid.audit.domain.AuditEventEntity;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk writes to {@code audit_event} over the PostgreSQL COPY protocol. COPY cannot skip rows that break a
+ * constraint, so rows are streamed in binary format into a session-local staging table first and then moved with
+ * {@code INSERT ... SELECT ... ON CONFLICT (event_id) DO NOTHING}, which keeps redeliveries idempotent. The staging
+ * table is created once per pooled connection and emptied on every commit.
+ */
+@Repository
+public class AuditEventCopyRepository {
+
+    private static final String COLUMNS = "event_id, event_type, occurred_at, produced_at, source, correlation_id,"
+            + " payload, version, audited_at";
+    private static final int FIELDS = 9;
+    private static final String CREATE_STAGING = "CREATE TEMPORARY TABLE IF NOT EXISTS audit_event_staging"
+            + " (LIKE audit_event INCLUDING DEFAULTS) ON COMMIT DELETE ROWS";
+    private static final String COPY = "COPY audit_event_staging (" + COLUMNS + ") FROM STDIN (FORMAT BINARY)";
+    private static final String MOVE = "INSERT INTO audit_event (" + COLUMNS + ") SELECT " + COLUMNS
+            + " FROM audit_event_staging ON CONFLICT (event_id) DO NOTHING";
+    private static final String INSERT = "INSERT INTO audit_event (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+            + " ON CONFLICT (event_id) DO NOTHING";
+    private static final String FIND_STORED = "SELECT event_id FROM audit_event WHERE event_id = ANY (?)";
+    /** Encoded bytes handed to the driver at a time, so a batch is never materialized whole. */
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditEventCopyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Copies all rows in one transaction, so either the whole batch is durable or none of it is.
+     *
+     * @return rows inserted; the rest already existed
+     */
+    @Transactional
+    public int copyAll(List<AuditEventEntity> events) {
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING);
+                copy(connection.unwrap(PGConnection.class), events);
+                return statement.executeUpdate(MOVE);
+            }
+        });
+        return inserted != null ? inserted : 0;
+    }
+
+    /**
+     * Inserts one row in its own transaction.
+     *
+     * @return false if it already existed
+     */
+    public boolean insert(AuditEventEntity event) {
+        return jdbcTemplate.update(INSERT, event.getEventId(), event.getEventType(), utc(event.getOccurredAt()),
+                utc(event.getProducedAt()), event.getSource(), event.getCorrelationId(), event.getPayload(),
+                event.getVersion(), utc(event.getAuditedAt())) > 0;
+    }
+
+    /**
+     * Looks up which of the given event ids are already stored, in one statement.
+     *
+     * @return the stored ones
+     */
+    public Set<UUID> findStored(Collection<UUID> eventIds) {
+        Set<UUID> stored = new HashSet<>();
+        if (eventIds.isEmpty()) {
+            return stored;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_STORED);
+            statement.setArray(1, connection.createArrayOf("uuid", eventIds.toArray()));
+            return statement;
+        }, (RowCallbackHandler) row -> stored.add(row.getObject(1, UUID.class)));
+        return stored;
+    }
+
+    private static void copy(PGConnection connection, List<AuditEventEntity> events) throws SQLException {
+        CopyIn copy = connection.getCopyAPI().copyIn(COPY);
+        try {
+            PgCopyBinaryEncoder encoder = new PgCopyBinaryEncoder(CHUNK_BYTES + 8 * 1024).header();
+            for (AuditEventEntity event : events) {
+                encoder.startRow(FIELDS)
+                        .uuid(event.getEventId())
+                        .text(event.getEventType())
+                        .timestamp(event.getOccurredAt())
+                        .timestamp(event.getProducedAt())
+                        .text(event.getSource())
+                        .text(event.getCorrelationId())
+                        .text(event.getPayload())
+                        .text(event.getVersion())
+                        .timestamp(event.getAuditedAt());
+                if (encoder.size() >= CHUNK_BYTES) {
+                    copy.writeToCopy(encoder.array(), 0, encoder.size());
+                    encoder.clear();
+                }
+            }
+            encoder.trailer();
+            copy.writeToCopy(encoder.array(), 0, encoder.size());
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
@@ -4,10 +4,35 @@ import demo.grid.audit.domain.AuditEventEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
 public interface AuditEventRepository extends JpaRepository<AuditEventEntity, UUID> {
 
+    String INSERT_IF_ABSENT = "INSERT INTO audit_event ("
+            + "event_id, event_type, occurred_at, produced_at, source, correlation_id, "
+            + "payload, version, audited_at"
+            + ") VALUES ("
+            + ":#{#event.eventId}, :#{#event.eventType}, :#{#event.occurredAt}, "
+            + ":#{#event.producedAt}, :#{#event.source}, :#{#event.correlationId}, "
+            + ":#{#event.payload}, :#{#event.version}, :#{#event.auditedAt}"
+            + ") ON CONFLICT (event_id) DO NOTHING";
+
     Page<AuditEventEntity> findAllByOrderByAuditedAtDesc(Pageable pageable);
+
+    /**
+     * Inserts the row unless one with its event_id exists. Unlike {@link #save}, which merges entities with
+     * assigned ids and so selects before inserting, this is a single statement, and a duplicate is reported by the
+     * row count instead of a constraint violation.
+     *
+     * @return 1 if inserted, 0 if the event was already stored
+     */
+    @Modifying
+    @Transactional
+    @Query(value = INSERT_IF_ABSENT, nativeQuery = true)
+    int insertIfAbsent(@Param("event") AuditEventEntity event);
 }
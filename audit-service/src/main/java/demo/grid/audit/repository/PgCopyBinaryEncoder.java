@@ -0,0 +1,104 @@
+package demo.grid.audit.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Encodes rows in the PostgreSQL binary COPY format: a signature and two int32 header words, then per row an int16
+ * field count followed by each field as an int32 byte length (-1 for null) and its binary value, and an int16 -1
+ * trailer. Values are big-endian; timestamps are microseconds since 2000-01-01 UTC.
+ * <p>
+ * Rows accumulate in a reusable buffer that the caller drains with {@link #array()}/{@link #size()} and
+ * {@link #clear()}, so a large batch can be streamed in chunks. Not thread-safe.
+ */
+final class PgCopyBinaryEncoder {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final long PG_EPOCH_SECONDS = 946_684_800L;
+
+    private ByteBuffer buffer;
+
+    PgCopyBinaryEncoder(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    /** Writes the file header; once per COPY, before the first row. */
+    PgCopyBinaryEncoder header() {
+        ensure(SIGNATURE.length + 2 * Integer.BYTES);
+        buffer.put(SIGNATURE).putInt(0).putInt(0);
+        return this;
+    }
+
+    PgCopyBinaryEncoder startRow(int fields) {
+        ensure(Short.BYTES);
+        buffer.putShort((short) fields);
+        return this;
+    }
+
+    PgCopyBinaryEncoder uuid(UUID value) {
+        if (value == null) {
+            return nullValue();
+        }
+        ensure(Integer.BYTES + 16);
+        buffer.putInt(16).putLong(value.getMostSignificantBits()).putLong(value.getLeastSignificantBits());
+        return this;
+    }
+
+    /** text, varchar: the UTF-8 bytes. */
+    PgCopyBinaryEncoder text(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+        return this;
+    }
+
+    /** timestamptz (and timestamp, which shares the encoding). */
+    PgCopyBinaryEncoder timestamp(Instant value) {
+        if (value == null) {
+            return nullValue();
+        }
+        long micros = Math.addExact(Math.multiplyExact(value.getEpochSecond() - PG_EPOCH_SECONDS, 1_000_000L),
+                value.getNano() / 1_000);
+        ensure(Integer.BYTES + Long.BYTES);
+        buffer.putInt(Long.BYTES).putLong(micros);
+        return this;
+    }
+
+    /** Writes the end-of-data marker; once per COPY, after the last row. */
+    PgCopyBinaryEncoder trailer() {
+        ensure(Short.BYTES);
+        buffer.putShort((short) -1);
+        return this;
+    }
+
+    byte[] array() {
+        return buffer.array();
+    }
+
+    int size() {
+        return buffer.position();
+    }
+
+    void clear() {
+        buffer.clear();
+    }
+
+    private PgCopyBinaryEncoder nullValue() {
+        ensure(Integer.BYTES);
+        buffer.putInt(-1);
+        return this;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+            buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), capacity)).position(buffer.position());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package demo.grid.audit;
+
+import demo.grid.audit.domain.AuditEventEntity;
+import demo.grid.audit.repository.AuditEventCopyRepository;
+import demo.grid.schema.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of the per-record audit write (one insert and one commit per event, as the per-record listener's
+ * {@code save} does) against the bulk path (binary COPY of a whole poll into the staging table, then one
+ * {@code INSERT ... SELECT ... ON CONFLICT}). Every poll is redelivered once, so the bulk path also pays for
+ * discarding duplicates. Not a JMH harness; it measures the database round trips, which dominate both paths.
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew :audit-service:test --tests '*BenchmarkTest'}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class AuditCopyBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditCopyBenchmarkTest.class);
+
+    private static final int ROWS = 200_000;
+    private static final int POLL_SIZE = 2_000;
+    private static final String PAYLOAD = "{\"price\":99.5,\"currency\":\"USD\",\"instrument\":\"EURUSD\"}";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void copyVersusPerRecordInserts() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), true);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            AuditEventCopyRepository repository = new AuditEventCopyRepository(jdbc);
+
+            double perRecord = run(jdbc, "per-record", poll -> poll.forEach(e -> transaction.executeWithoutResult(
+                    status -> repository.insert(e))));
+            double copy = run(jdbc, "copy", poll -> {
+                transaction.executeWithoutResult(status -> repository.copyAll(poll));
+                transaction.executeWithoutResult(status -> assertThat(repository.copyAll(poll)).isZero());
+            });
+
+            log.info("per-record: {} rows/s", Math.round(perRecord));
+            log.info("copy:       {} rows/s ({}x)", Math.round(copy), Math.round(copy / perRecord));
+            assertThat(copy).isGreaterThan(perRecord);
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    private static double run(JdbcTemplate jdbc, String name, Consumer<List<AuditEventEntity>> writePoll) {
+        jdbc.execute("DROP TABLE IF EXISTS audit_event");
+        jdbc.execute("CREATE TABLE audit_event (event_id uuid PRIMARY KEY, event_type varchar(64) NOT NULL,"
+                + " occurred_at timestamptz NOT NULL, produced_at timestamptz NOT NULL, source varchar(256) NOT NULL,"
+                + " correlation_id varchar(256), payload text, version varchar(32), audited_at timestamptz NOT NULL)");
+        long start = System.nanoTime();
+        for (int written = 0; written < ROWS; written += POLL_SIZE) {
+            writePoll.accept(poll(POLL_SIZE));
+        }
+        double rowsPerSecond = ROWS / ((System.nanoTime() - start) / 1e9);
+        Long rows = jdbc.queryForObject("SELECT count(*) FROM audit_event", Long.class);
+        assertThat(rows).as(name).isEqualTo(ROWS);
+        return rowsPerSecond;
+    }
+
+    private static List<AuditEventEntity> poll(int size) {
+        List<AuditEventEntity> poll = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Instant now = Instant.now();
+            poll.add(new AuditEventEntity(UuidV7.next(), "PRICING", now, now, "benchmark", "corr-" + i, PAYLOAD, "1", now));
+        }
+        return poll;
+    }
+}
@@ -0,0 +1,81 @@
+package demo.grid.audit.consumer;
+
+import demo.grid.audit.config.AuditProperties;
+import demo.grid.audit.domain.AuditEventEntity;
+import demo.grid.audit.repository.AuditEventCopyRepository;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AuditEventBulkConsumerTest {
+
+    private final AuditEventCopyRepository repository = mock(AuditEventCopyRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuditEventBulkConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new AuditEventBulkConsumer(repository, mock(AuditProperties.class),
+                new RecentEventIds(1_000, 0.01), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void copiesEveryEventOfThePollInOneCall() {
+        LazyEventEnvelope pricing = envelope(EventTypes.PRICING);
+        LazyEventEnvelope alert = envelope(EventTypes.ALERT);
+        when(repository.copyAll(anyList())).thenReturn(1);
+
+        consumer.onEvents(List.of(pricing, alert));
+
+        ArgumentCaptor<List<AuditEventEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).copyAll(captor.capture());
+        assertThat(captor.getValue()).extracting(AuditEventEntity::getEventId)
+                .containsExactly(pricing.eventId(), alert.eventId());
+        assertThat(events("inserted")).isEqualTo(1);
+        assertThat(events("duplicate")).isEqualTo(1);
+    }
+
+    @Test
+    void constraintViolation_fallsBackToRowByRow() {
+        LazyEventEnvelope good = envelope(EventTypes.AUDIT);
+        LazyEventEnvelope bad = envelope(EventTypes.AUDIT);
+        when(repository.copyAll(anyList())).thenThrow(new DataIntegrityViolationException("source is null"));
+        when(repository.insert(any())).thenAnswer(call -> {
+            if (call.<AuditEventEntity>getArgument(0).getEventId().equals(bad.eventId())) {
+                throw new DataIntegrityViolationException("source is null");
+            }
+            return true;
+        });
+
+        consumer.onEvents(List.of(good, bad));
+
+        verify(repository, times(2)).insert(any());
+        assertThat(events("inserted")).isEqualTo(1);
+        assertThat(events("rejected")).isEqualTo(1);
+    }
+
+    private double events(String outcome) {
+        return meterRegistry.get("audit.bulk.events").tag("outcome", outcome).counter().count();
+    }
+
+    private static LazyEventEnvelope envelope(String eventType) {
+        Instant now = Instant.now();
+        return new LazyEventEnvelope(UUID.randomUUID(), eventType, now, now, "event-ingest-service", "corr-1", null,
+                "1");
+    }
+}
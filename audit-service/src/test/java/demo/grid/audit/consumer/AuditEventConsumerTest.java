@@ -1,10 +1,11 @@
 package demo.grid.audit.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import demo.grid.audit.config.AuditProperties;
 import demo.grid.audit.repository.AuditEventRepository;
-import demo.grid.schema.EventEnvelope;
 import demo.grid.schema.EventTypes;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RawJson;
+import demo.grid.schema.RecentEventIds;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,6 +14,7 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -29,7 +31,7 @@ class AuditEventConsumerTest {
     private AuditProperties properties;
 
     @Spy
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private RecentEventIds recentEventIds = new RecentEventIds(1_000, 0.01);
 
     @InjectMocks
     private AuditEventConsumer consumer;
@@ -38,14 +40,15 @@ class AuditEventConsumerTest {
     void persistsAnyEventType() {
         UUID eventId = UUID.randomUUID();
         Instant now = Instant.now();
-        EventEnvelope envelope = new EventEnvelope(
+        byte[] payload = "{\"user\":\"ops\", \"action\":\"login\"}".getBytes(StandardCharsets.UTF_8);
+        LazyEventEnvelope envelope = new LazyEventEnvelope(
                 eventId,
                 EventTypes.AUDIT,
                 now,
                 now,
                 "event-ingest-service",
                 "corr-1",
-                null,
+                RawJson.wrap(payload, 0, payload.length),
                 "1"
         );
 
@@ -53,11 +56,12 @@ class AuditEventConsumerTest {
 
         ArgumentCaptor<demo.grid.audit.domain.AuditEventEntity> captor =
                 ArgumentCaptor.forClass(demo.grid.audit.domain.AuditEventEntity.class);
-        verify(repository).save(captor.capture());
+        verify(repository).insertIfAbsent(captor.capture());
         demo.grid.audit.domain.AuditEventEntity saved = captor.getValue();
         assertThat(saved.getEventId()).isEqualTo(eventId);
         assertThat(saved.getEventType()).isEqualTo(EventTypes.AUDIT);
         assertThat(saved.getCorrelationId()).isEqualTo("corr-1");
         assertThat(saved.getVersion()).isEqualTo("1");
+        assertThat(saved.getPayload()).isEqualTo("{\"user\":\"ops\", \"action\":\"login\"}");
     }
 }
@@ -0,0 +1,67 @@
+package demo.grid.audit.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PgCopyBinaryEncoderTest {
+
+    @Test
+    void encodesHeaderRowAndTrailer() {
+        UUID id = new UUID(0x0123456789abcdefL, 0xfedcba9876543210L);
+        PgCopyBinaryEncoder encoder = new PgCopyBinaryEncoder(8)
+                .header()
+                .startRow(4)
+                .uuid(id)
+                .text("\u00e9")
+                .text(null)
+                .timestamp(Instant.parse("2000-01-01T00:00:01.000002Z"))
+                .trailer();
+
+        ByteBuffer out = ByteBuffer.wrap(Arrays.copyOf(encoder.array(), encoder.size()));
+        byte[] signature = new byte[11];
+        out.get(signature);
+        assertThat(signature).isEqualTo("PGCOPY\n\u00ff\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+        assertThat(out.getInt()).isZero();
+        assertThat(out.getInt()).isZero();
+
+        assertThat(out.getShort()).isEqualTo((short) 4);
+        assertThat(out.getInt()).isEqualTo(16);
+        assertThat(out.getLong()).isEqualTo(id.getMostSignificantBits());
+        assertThat(out.getLong()).isEqualTo(id.getLeastSignificantBits());
+        assertThat(out.getInt()).isEqualTo(2);
+        assertThat(new byte[]{out.get(), out.get()}).isEqualTo("\u00e9".getBytes(StandardCharsets.UTF_8));
+        assertThat(out.getInt()).isEqualTo(-1);
+        assertThat(out.getInt()).isEqualTo(8);
+        assertThat(out.getLong()).isEqualTo(1_000_002L);
+
+        assertThat(out.getShort()).isEqualTo((short) -1);
+        assertThat(out.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void timestampsBeforeThePostgresEpochAreNegative() {
+        PgCopyBinaryEncoder encoder = new PgCopyBinaryEncoder(16).timestamp(Instant.parse("1999-12-31T23:59:59Z"));
+
+        ByteBuffer out = ByteBuffer.wrap(encoder.array(), 0, encoder.size());
+        assertThat(out.getInt()).isEqualTo(8);
+        assertThat(out.getLong()).isEqualTo(-1_000_000L);
+    }
+
+    @Test
+    void clearKeepsTheGrownBuffer() {
+        PgCopyBinaryEncoder encoder = new PgCopyBinaryEncoder(4).text("x".repeat(100));
+        int capacity = encoder.array().length;
+
+        encoder.clear();
+
+        assertThat(encoder.size()).isZero();
+        assertThat(encoder.array()).hasSize(capacity);
+    }
+}
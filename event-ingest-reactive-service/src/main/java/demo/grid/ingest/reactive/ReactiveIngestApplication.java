@@ -0,0 +1,12 @@
+package demo.grid.ingest.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveIngestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveIngestApplication.class, args);
+    }
+}
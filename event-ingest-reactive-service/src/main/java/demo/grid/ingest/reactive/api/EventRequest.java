@@ -0,0 +1,9 @@
+package demo.grid.ingest.reactive.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Incoming event payload for POST /api/events and each line of POST /api/events/batch.
+ */
+public record EventRequest(String eventType, JsonNode payload) {
+}
@@ -0,0 +1,94 @@
+package demo.grid.ingest.reactive.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import demo.grid.ingest.reactive.config.IngestProperties;
+import demo.grid.ingest.reactive.service.ReactiveEventPublisher;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.PayloadValidationException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Tag(name = "Events", description = "Ingest domain events into the grid without blocking")
+@RestController
+@RequestMapping("/api/events")
+public class ReactiveEventIngestController {
+
+    private final ReactiveEventPublisher publisher;
+    private final IngestProperties properties;
+
+    public ReactiveEventIngestController(ReactiveEventPublisher publisher, IngestProperties properties) {
+        this.publisher = publisher;
+        this.properties = properties;
+    }
+
+    @Operation(summary = "Ingest an event", description = "Responds once Kafka has acknowledged the event. Requires X-API-Key header.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Event acknowledged by Kafka"),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+            @ApiResponse(responseCode = "400", description = "Invalid request body or payload"),
+            @ApiResponse(responseCode = "503", description = "Send queue full; honour Retry-After")
+    })
+    @PostMapping
+    public Mono<ResponseEntity<IngestResponse>> ingest(
+            @Parameter(description = "Optional correlation ID for request tracing")
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            @RequestBody Mono<EventRequest> request) {
+        return request
+                .map(r -> publisher.newEnvelope(r.eventType(), r.payload(), correlationId))
+                .flatMap(publisher::publish)
+                .map(envelope -> ResponseEntity
+                        .status(HttpStatus.ACCEPTED)
+                        .body(IngestResponse.accepted(envelope)));
+    }
+
+    @Operation(summary = "Ingest a stream of events",
+            description = "Reads newline-delimited JSON and streams back one NDJSON result per event, in request order. "
+                    + "The body is only read as fast as Kafka acknowledges earlier events. An event whose payload "
+                    + "does not match its schema is reported as invalid and not sent.")
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<IngestResponse> ingestBatch(
+            @Parameter(description = "Optional correlation ID applied to every event in the stream")
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            @RequestBody Flux<EventRequest> requests) {
+        return requests
+                .flatMapSequential(r -> {
+                            EventEnvelope envelope;
+                            try {
+                                envelope = publisher.newEnvelope(r.eventType(), r.payload(), correlationId);
+                            } catch (PayloadValidationException e) {
+                                return Mono.just(IngestResponse.invalid(r.eventType(), e));
+                            }
+                            return publisher.publish(envelope)
+                                    .map(IngestResponse::accepted)
+                                    .onErrorResume(e -> Mono.just(IngestResponse.failed(envelope)));
+                        },
+                        properties.getPublish().getBatchConcurrency());
+    }
+
+    /**
+     * @param message why an invalid event was refused; omitted otherwise
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record IngestResponse(String eventId, String eventType, String status, String message) {
+        static IngestResponse accepted(EventEnvelope envelope) {
+            return new IngestResponse(envelope.eventId().toString(), envelope.eventType(), "accepted", null);
+        }
+
+        static IngestResponse failed(EventEnvelope envelope) {
+            return new IngestResponse(envelope.eventId().toString(), envelope.eventType(), "failed", null);
+        }
+
+        static IngestResponse invalid(String eventType, PayloadValidationException e) {
+            return new IngestResponse(null, eventType, "invalid", e.getMessage());
+        }
+    }
+}
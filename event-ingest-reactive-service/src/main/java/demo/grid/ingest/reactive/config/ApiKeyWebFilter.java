@@ -0,0 +1,85 @@
+package demo.grid.ingest.reactive.config;
+
+import demo.grid.schema.auth.ApiClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+
+/**
+ * Rejects /api/** requests that do not carry a known X-API-Key header (401) and applies the key's
+ * token-bucket rate limit (429 with Retry-After), with the same keys, limits and counters as the
+ * servlet ingest service. A batch costs one token however many events it carries.
+ */
+public class ApiKeyWebFilter implements WebFilter, Ordered {
+
+    private static final String HEADER_API_KEY = "X-API-Key";
+    private static final String PROTECTED_PREFIX = "/api/";
+    /** Exchange attribute holding the configured name of the authenticated client. */
+    public static final String CLIENT_ATTRIBUTE = "demo.grid.ingest.reactive.config.ApiKeyWebFilter.client";
+    private static final byte[] UNAUTHORIZED_BODY =
+            "{\"error\":\"Missing or invalid X-API-Key\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ApiClients clients;
+
+    public ApiKeyWebFilter(IngestProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    ApiKeyWebFilter(IngestProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        IngestProperties.RateLimit rateLimit = properties.getRateLimit();
+        this.clients = new ApiClients(
+                properties.getApiKeys().stream()
+                        .map(k -> new ApiClients.Key(k.getName(), k.getKey(), k.getRate(), k.getBurst()))
+                        .toList(),
+                properties.getApiKey(),
+                new ApiClients.RateLimit(rateLimit.isEnabled(), rateLimit.getDefaultRate(), rateLimit.getDefaultBurst()),
+                meterRegistry,
+                nanoClock);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 20;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().pathWithinApplication().value().startsWith(PROTECTED_PREFIX)) {
+            return chain.filter(exchange);
+        }
+        ApiClients.Client client = clients.resolve(exchange.getRequest().getHeaders().getFirst(HEADER_API_KEY));
+        if (client == null) {
+            return reject(exchange.getResponse(), HttpStatus.UNAUTHORIZED, UNAUTHORIZED_BODY);
+        }
+        long waitNanos = client.tryAdmit();
+        if (waitNanos > 0) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(ApiClients.retryAfterSeconds(waitNanos)));
+            return reject(response, HttpStatus.TOO_MANY_REQUESTS,
+                    ("{\"error\":\"Rate limit exceeded for client '" + client.name() + "'\"}")
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+        exchange.getAttributes().put(CLIENT_ATTRIBUTE, client.name());
+        return chain.filter(exchange);
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, HttpStatus status, byte[] json) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = response.bufferFactory().wrap(json);
+        return response.writeWith(Mono.just(body));
+    }
+}
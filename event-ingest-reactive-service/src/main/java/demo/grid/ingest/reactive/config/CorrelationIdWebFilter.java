@@ -0,0 +1,37 @@
+package demo.grid.ingest.reactive.config;
+
+import org.springframework.core.Ordered;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the servlet CorrelationIdFilter: resolves X-Correlation-Id (or the request id as
+ * fallback) and exposes it as an exchange attribute and in the Reactor context under "correlationId",
+ * since there is no request thread to hold an MDC entry.
+ */
+public class CorrelationIdWebFilter implements WebFilter, Ordered {
+
+    public static final String HEADER_CORRELATION_ID = "X-Correlation-Id";
+    public static final String CONTEXT_CORRELATION_ID = "correlationId";
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        String correlationId = exchange.getRequest().getHeaders().getFirst(HEADER_CORRELATION_ID);
+        if (correlationId == null || correlationId.isBlank()) {
+            correlationId = "ingest-" + exchange.getRequest().getId();
+        }
+        String resolved = correlationId;
+        exchange.getAttributes().put(CONTEXT_CORRELATION_ID, resolved);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(CONTEXT_CORRELATION_ID, resolved));
+    }
+}
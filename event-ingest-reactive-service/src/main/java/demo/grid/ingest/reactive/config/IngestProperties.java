@@ -0,0 +1,241 @@
+package demo.grid.ingest.reactive.config;
+
+import demo.grid.schema.kafka.WireFormat;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "app")
+public class IngestProperties {
+
+    private String apiKey = "dev-key";
+    private List<ApiKey> apiKeys = new ArrayList<>();
+    private RateLimit rateLimit = new RateLimit();
+    private Kafka kafka = new Kafka();
+    private Publish publish = new Publish();
+    private Validation validation = new Validation();
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    public List<ApiKey> getApiKeys() {
+        return apiKeys;
+    }
+
+    public void setApiKeys(List<ApiKey> apiKeys) {
+        this.apiKeys = apiKeys;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    public Kafka getKafka() {
+        return kafka;
+    }
+
+    public void setKafka(Kafka kafka) {
+        this.kafka = kafka;
+    }
+
+    public Publish getPublish() {
+        return publish;
+    }
+
+    public void setPublish(Publish publish) {
+        this.publish = publish;
+    }
+
+    public Validation getValidation() {
+        return validation;
+    }
+
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * A named client credential. The name tags metrics and 429 responses; rate and burst override
+     * the rate-limit defaults.
+     */
+    public static class ApiKey {
+        private String name;
+        private String key;
+        /** Requests per second. */
+        private Double rate;
+        /** Requests admitted back to back after an idle period. */
+        private Integer burst;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public Double getRate() {
+            return rate;
+        }
+
+        public void setRate(Double rate) {
+            this.rate = rate;
+        }
+
+        public Integer getBurst() {
+            return burst;
+        }
+
+        public void setBurst(Integer burst) {
+            this.burst = burst;
+        }
+    }
+
+    public static class RateLimit {
+        private boolean enabled = true;
+        /** Requests per second for keys without their own rate; unset leaves those keys unlimited. */
+        private Double defaultRate;
+        /** Bucket size for keys without their own burst. */
+        private int defaultBurst = 2_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Double getDefaultRate() {
+            return defaultRate;
+        }
+
+        public void setDefaultRate(Double defaultRate) {
+            this.defaultRate = defaultRate;
+        }
+
+        public int getDefaultBurst() {
+            return defaultBurst;
+        }
+
+        public void setDefaultBurst(int defaultBurst) {
+            this.defaultBurst = defaultBurst;
+        }
+    }
+
+    public static class Kafka {
+        private String topic = "grid.events.v1";
+        /** Encoding of envelopes on the topic; consumers read both, so switch consumers first. */
+        private WireFormat wireFormat = WireFormat.JSON;
+        /** Publish each event to its per-type topic (EventTopics) instead of the base topic. */
+        private boolean routeByType = false;
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        public WireFormat getWireFormat() {
+            return wireFormat;
+        }
+
+        public void setWireFormat(WireFormat wireFormat) {
+            this.wireFormat = wireFormat;
+        }
+
+        public boolean isRouteByType() {
+            return routeByType;
+        }
+
+        public void setRouteByType(boolean routeByType) {
+            this.routeByType = routeByType;
+        }
+    }
+
+    /**
+     * The send pipeline only requests new records from the queue as acknowledgements free up
+     * max-in-flight slots; once max-queued records are waiting, new requests get 503.
+     */
+    public static class Publish {
+        /** Records sent to the broker and not yet acknowledged. */
+        private int maxInFlight = 1_024;
+        /** Records accepted from clients and waiting for a send slot. */
+        private int maxQueued = 8_192;
+        /** Events from one batch request that may await acknowledgement at once. */
+        private int batchConcurrency = 256;
+        /** Value of the Retry-After header when the queue is full. */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public int getBatchConcurrency() {
+            return batchConcurrency;
+        }
+
+        public void setBatchConcurrency(int batchConcurrency) {
+            this.batchConcurrency = batchConcurrency;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * Payload schemas from events-schema ({@code PayloadSchemas.standard()}), checked before an event is
+     * queued for sending; a mismatch is answered with 400. Off unless enabled.
+     */
+    public static class Validation {
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+}
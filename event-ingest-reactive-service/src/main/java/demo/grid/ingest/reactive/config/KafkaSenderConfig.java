@@ -0,0 +1,34 @@
+package demo.grid.ingest.reactive.config;
+
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.kafka.EventEnvelopeSerializer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaSenderConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Bean(destroyMethod = "close")
+    public KafkaSender<String, EventEnvelope> kafkaSender(IngestProperties properties) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        SenderOptions<String, EventEnvelope> options = SenderOptions.<String, EventEnvelope>create(props)
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(new EventEnvelopeSerializer(properties.getKafka().getWireFormat()))
+                .maxInFlight(properties.getPublish().getMaxInFlight())
+                .stopOnError(false);
+        return KafkaSender.create(options);
+    }
+}
@@ -0,0 +1,19 @@
+package demo.grid.ingest.reactive.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WebConfig {
+
+    @Bean
+    public CorrelationIdWebFilter correlationIdWebFilter() {
+        return new CorrelationIdWebFilter();
+    }
+
+    @Bean
+    public ApiKeyWebFilter apiKeyWebFilter(IngestProperties properties, MeterRegistry meterRegistry) {
+        return new ApiKeyWebFilter(properties, meterRegistry);
+    }
+}
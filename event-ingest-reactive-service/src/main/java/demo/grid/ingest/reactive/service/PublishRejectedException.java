@@ -0,0 +1,20 @@
+package demo.grid.ingest.reactive.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the send queue is full; the client should retry after {@link #getRetryAfter()}.
+ */
+public class PublishRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PublishRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,134 @@
+package demo.grid.ingest.reactive.service;
+
+import demo.grid.ingest.reactive.config.IngestProperties;
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTopics;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.PayloadSchemas;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.util.concurrent.Queues;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+
+/**
+ * Funnels every request into a single reactor-kafka send stream. The stream only pulls from the queue
+ * when broker acknowledgements free an in-flight slot, so acks are the demand signal; when the queue is
+ * full, callers fail fast instead of waiting.
+ */
+@Service
+public class ReactiveEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveEventPublisher.class);
+    private static final String SOURCE = "event-ingest-reactive-service";
+    /** How long a caller spins while another thread is emitting before it is rejected. */
+    private static final Duration EMIT_CONTENTION_LIMIT = Duration.ofMillis(10);
+
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory(SOURCE);
+    private final KafkaSender<String, EventEnvelope> sender;
+    private final IngestProperties properties;
+    private final PayloadSchemas schemas;
+    private final Sinks.Many<PendingSend> queue;
+    private Disposable pipeline;
+
+    public ReactiveEventPublisher(KafkaSender<String, EventEnvelope> sender,
+                                  IngestProperties properties,
+                                  MeterRegistry meterRegistry,
+                                  PayloadSchemas schemas) {
+        this.sender = sender;
+        this.properties = properties;
+        this.schemas = schemas;
+        Queue<PendingSend> buffer = Queues.<PendingSend>get(properties.getPublish().getMaxQueued()).get();
+        this.queue = Sinks.many().unicast().onBackpressureBuffer(buffer);
+        Gauge.builder("ingest.reactive.publish.queued", buffer, Queue::size)
+                .description("Events accepted from clients and waiting for a send slot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        pipeline = sender.send(queue.asFlux().map(this::toRecord))
+                .subscribe(result -> {
+                    MonoSink<EventEnvelope> caller = result.correlationMetadata().caller();
+                    if (result.exception() != null) {
+                        caller.error(result.exception());
+                    } else {
+                        caller.success(result.correlationMetadata().envelope());
+                    }
+                }, error -> log.error("Kafka send pipeline terminated", error));
+    }
+
+    @PreDestroy
+    void stop() {
+        queue.tryEmitComplete();
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+
+    /**
+     * @throws demo.grid.schema.PayloadValidationException if the payload does not match its event type's schema
+     */
+    public EventEnvelope newEnvelope(String eventType, JsonNode payload, String correlationId) {
+        schemas.validate(eventType, payload);
+        return envelopeFactory.create(eventType, payload, correlationId);
+    }
+
+    /**
+     * Queues the envelope for sending; the returned Mono completes when the broker acknowledges it.
+     * Fails with {@link PublishRejectedException} if the queue is full or other callers keep it busy for
+     * longer than 10 ms.
+     */
+    public Mono<EventEnvelope> publish(EventEnvelope envelope) {
+        return Mono.create(caller -> {
+            // Not emitNext: on overflow it errors the sink, which would end the pipeline for every caller.
+            PendingSend pending = new PendingSend(envelope, caller);
+            Sinks.EmitFailureHandler contention = Sinks.EmitFailureHandler.busyLooping(EMIT_CONTENTION_LIMIT);
+            Sinks.EmitResult result;
+            do {
+                result = queue.tryEmitNext(pending);
+            } while (result.isFailure() && contention.onEmitFailure(SignalType.ON_NEXT, result));
+            if (result.isFailure()) {
+                caller.error(new PublishRejectedException("Too many events awaiting Kafka acknowledgement",
+                        properties.getPublish().getRetryAfter()));
+            }
+        });
+    }
+
+    private SenderRecord<String, EventEnvelope, PendingSend> toRecord(PendingSend pending) {
+        EventEnvelope envelope = pending.envelope();
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("correlationId", envelope.correlationId().getBytes(StandardCharsets.UTF_8));
+        headers.add("eventId", envelope.eventId().toString().getBytes(StandardCharsets.UTF_8));
+        headers.add(EventTypes.HEADER, envelope.eventType().getBytes(StandardCharsets.UTF_8));
+        ProducerRecord<String, EventEnvelope> record = new ProducerRecord<>(
+                topic(envelope), null, envelope.correlationId(), envelope, headers);
+        return SenderRecord.create(record, pending);
+    }
+
+    private String topic(EventEnvelope envelope) {
+        IngestProperties.Kafka kafka = properties.getKafka();
+        return kafka.isRouteByType() ? EventTopics.forType(kafka.getTopic(), envelope.eventType()) : kafka.getTopic();
+    }
+
+    record PendingSend(EventEnvelope envelope, MonoSink<EventEnvelope> caller) {}
+}
@@ -0,0 +1,132 @@
+package demo.grid.ingest.reactive.api;
+
+import demo.grid.ingest.reactive.config.IngestProperties;
+import demo.grid.ingest.reactive.service.PublishRejectedException;
+import demo.grid.ingest.reactive.service.ReactiveEventPublisher;
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.PayloadValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveEventIngestController.class)
+@Import(IngestProperties.class)
+class ReactiveEventIngestControllerTest {
+
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory("test");
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockBean
+    private ReactiveEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        when(publisher.newEnvelope(anyString(), any(), any()))
+                .thenAnswer(inv -> envelopeFactory.create(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+    }
+
+    @Test
+    void ingest_returns202OnceAcknowledged() {
+        when(publisher.publish(any())).thenAnswer(inv -> Mono.just(inv.<EventEnvelope>getArgument(0)));
+
+        client.post().uri("/api/events")
+                .header("X-Correlation-Id", "corr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"eventType\":\"PRICING\",\"payload\":{\"price\":100}}")
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody()
+                .jsonPath("$.eventType").isEqualTo("PRICING")
+                .jsonPath("$.status").isEqualTo("accepted");
+    }
+
+    @Test
+    void ingest_queueFull_returns503WithRetryAfter() {
+        when(publisher.publish(any()))
+                .thenReturn(Mono.error(new PublishRejectedException("full", Duration.ofSeconds(2))));
+
+        client.post().uri("/api/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"eventType\":\"PRICING\"}")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals("Retry-After", "2");
+    }
+
+    @Test
+    void ingestBatch_streamsResultPerEventInOrder() {
+        when(publisher.publish(any())).thenAnswer(inv -> {
+            EventEnvelope envelope = inv.getArgument(0);
+            return "ALERT".equals(envelope.eventType())
+                    ? Mono.error(new IllegalStateException("broker down"))
+                    : Mono.just(envelope);
+        });
+
+        client.post().uri("/api/events/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"eventType\":\"PRICING\"}\n{\"eventType\":\"ALERT\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ReactiveEventIngestController.IngestResponse.class)
+                .value(results -> assertThat(results)
+                        .extracting(ReactiveEventIngestController.IngestResponse::status)
+                        .containsExactly("accepted", "failed"));
+    }
+
+    @Test
+    void ingest_payloadFailingValidation_returns400() {
+        when(publisher.newEnvelope(eq("PRICING"), any(), any()))
+                .thenThrow(new PayloadValidationException("price", "must be a number"));
+
+        client.post().uri("/api/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"eventType\":\"PRICING\",\"payload\":{\"price\":\"high\"}}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("payload.price must be a number")
+                .jsonPath("$.path").isEqualTo("price");
+        verify(publisher, never()).publish(any());
+    }
+
+    @Test
+    void ingestBatch_payloadFailingValidation_isReportedInvalidAndOthersStillSent() {
+        when(publisher.newEnvelope(eq("PRICING"), any(), any()))
+                .thenThrow(new PayloadValidationException("price", "must be a number"));
+        when(publisher.publish(any())).thenAnswer(inv -> Mono.just(inv.<EventEnvelope>getArgument(0)));
+
+        client.post().uri("/api/events/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"eventType\":\"PRICING\"}\n{\"eventType\":\"ALERT\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ReactiveEventIngestController.IngestResponse.class)
+                .value(results -> {
+                    assertThat(results)
+                            .extracting(ReactiveEventIngestController.IngestResponse::status)
+                            .containsExactly("invalid", "accepted");
+                    assertThat(results.get(0).message()).isEqualTo("payload.price must be a number");
+                });
+    }
+}
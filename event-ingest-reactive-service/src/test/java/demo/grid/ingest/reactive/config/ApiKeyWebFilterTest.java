@@ -0,0 +1,114 @@
+package demo.grid.ingest.reactive.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiKeyWebFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final ApiKeyWebFilter filter = new ApiKeyWebFilter(properties(), meterRegistry, clock::get);
+
+    @Test
+    void missingKey_returns401() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/events"));
+        AtomicBoolean called = new AtomicBoolean();
+
+        filter.filter(exchange, chain(called)).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(called).isFalse();
+    }
+
+    @Test
+    void validKey_passesThrough() {
+        MockServerWebExchange exchange = exchange("test-key");
+        AtomicBoolean called = new AtomicBoolean();
+
+        filter.filter(exchange, chain(called)).block();
+
+        assertThat(called).isTrue();
+        assertThat((String) exchange.getAttribute(ApiKeyWebFilter.CLIENT_ATTRIBUTE)).isEqualTo("default");
+    }
+
+    @Test
+    void namedKey_passesThroughAsItsClient() {
+        MockServerWebExchange exchange = exchange("feed-key");
+        AtomicBoolean called = new AtomicBoolean();
+
+        filter.filter(exchange, chain(called)).block();
+
+        assertThat(called).isTrue();
+        assertThat((String) exchange.getAttribute(ApiKeyWebFilter.CLIENT_ATTRIBUTE)).isEqualTo("feed");
+        assertThat(count("feed", "admitted")).isEqualTo(1);
+    }
+
+    @Test
+    void namedKey_overItsRate_returns429WithRetryAfter() {
+        filter.filter(exchange("feed-key"), chain(new AtomicBoolean())).block();
+        filter.filter(exchange("feed-key"), chain(new AtomicBoolean())).block();
+        MockServerWebExchange rejected = exchange("feed-key");
+        AtomicBoolean called = new AtomicBoolean();
+
+        filter.filter(rejected, chain(called)).block();
+
+        assertThat(called).isFalse();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getResponse().getBodyAsString().block()).contains("feed");
+        assertThat(count("feed", "rejected")).isEqualTo(1);
+
+        clock.addAndGet(1_000_000_000L);
+        AtomicBoolean later = new AtomicBoolean();
+        filter.filter(exchange("feed-key"), chain(later)).block();
+        assertThat(later).isTrue();
+    }
+
+    @Test
+    void nonApiPath_isNotChecked() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/health"));
+        AtomicBoolean called = new AtomicBoolean();
+
+        filter.filter(exchange, chain(called)).block();
+
+        assertThat(called).isTrue();
+    }
+
+    private static IngestProperties properties() {
+        IngestProperties properties = new IngestProperties();
+        properties.setApiKey("test-key");
+        IngestProperties.ApiKey feed = new IngestProperties.ApiKey();
+        feed.setName("feed");
+        feed.setKey("feed-key");
+        feed.setRate(1.0);
+        feed.setBurst(2);
+        properties.setApiKeys(List.of(feed));
+        return properties;
+    }
+
+    private static MockServerWebExchange exchange(String key) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/api/events").header("X-API-Key", key));
+    }
+
+    private double count(String client, String outcome) {
+        return meterRegistry.get("ingest.api.requests").tag("client", client).tag("outcome", outcome).counter().count();
+    }
+
+    private static WebFilterChain chain(AtomicBoolean called) {
+        return exchange -> {
+            called.set(true);
+            return Mono.empty();
+        };
+    }
+}
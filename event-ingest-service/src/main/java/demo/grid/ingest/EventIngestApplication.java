@@ -1,9 +1,14 @@
 package demo.grid.ingest;
 
+import demo.grid.schema.threading.ThreadingConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@Import(ThreadingConfig.class)
 public class EventIngestApplication {
 
     public static void main(String[] args) {
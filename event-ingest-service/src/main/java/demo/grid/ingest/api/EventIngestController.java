@@ -1,43 +1,255 @@
 package demo.grid.ingest.api;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.ingest.config.ApiKeyFilter;
+import demo.grid.ingest.config.EventBodyLimits;
+import demo.grid.ingest.config.IngestProperties;
 import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.PayloadValidationException;
 import demo.grid.ingest.service.EventIngestService;
+import demo.grid.ingest.service.EventIngestService.EventDraft;
+import demo.grid.ingest.service.EventIngestService.PendingPublish;
+import demo.grid.ingest.service.IdempotencyCache;
+import demo.grid.ingest.service.PublishRejectedException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.KafkaException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Tag(name = "Events", description = "Ingest domain events into the grid")
 @RestController
 @RequestMapping("/api/events")
 public class EventIngestController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final EventIngestService ingestService;
+    private final ObjectMapper objectMapper;
+    private final IngestProperties properties;
+    private final IdempotencyCache idempotencyCache;
+    private final EventBodyLimits recordLimits;
+    private final JsonFactory batchJsonFactory;
 
-    public EventIngestController(EventIngestService ingestService) {
+    public EventIngestController(EventIngestService ingestService,
+                                 ObjectMapper objectMapper,
+                                 IngestProperties properties,
+                                 IdempotencyCache idempotencyCache) {
         this.ingestService = ingestService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.idempotencyCache = idempotencyCache;
+        this.recordLimits = EventBodyLimits.of(properties.getRequestLimits());
+        this.batchJsonFactory = EventRequestReader.jsonFactory(objectMapper, recordLimits);
     }
 
     @Operation(summary = "Ingest an event", description = "Publishes the event to Kafka. Requires X-API-Key header.")
     @ApiResponses({
-            @ApiResponse(responseCode = "202", description = "Event accepted"),
+            @ApiResponse(responseCode = "202", description = "Event accepted, or already accepted under the same Idempotency-Key"),
             @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
-            @ApiResponse(responseCode = "400", description = "Invalid request body")
+            @ApiResponse(responseCode = "400", description = "Invalid request body, payload not matching its event type's schema, or Idempotency-Key too long"),
+            @ApiResponse(responseCode = "503", description = "Too many events awaiting Kafka acknowledgement; honour Retry-After")
     })
     @PostMapping
     public ResponseEntity<IngestResponse> ingest(
             @Parameter(description = "Optional correlation ID for request tracing")
             @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            @Parameter(description = "Client-chosen key; repeats return the original eventId without publishing again")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestAttribute(name = ApiKeyFilter.CLIENT_ATTRIBUTE, required = false) String client,
             @RequestBody EventRequest request) {
-        EventEnvelope envelope = ingestService.publish(request.eventType(), request.payload(), correlationId);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            EventEnvelope envelope = ingestService.publish(request.eventType(), request.payload(), correlationId);
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(new IngestResponse(envelope.eventId().toString(), envelope.eventType(), "accepted"));
+        }
+        if (idempotencyKey.length() > properties.getIdempotency().getMaxKeyLength()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key longer than " + properties.getIdempotency().getMaxKeyLength() + " characters");
+        }
+        IdempotencyCache.Outcome outcome = idempotencyCache.publishOnce(
+                client != null ? client : ApiKeyFilter.DEFAULT_CLIENT, idempotencyKey,
+                () -> ingestService.publishAsync(request.eventType(), request.payload(), correlationId));
         return ResponseEntity
                 .status(HttpStatus.ACCEPTED)
-                .body(new IngestResponse(envelope.eventId().toString(), envelope.eventType(), "accepted"));
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(outcome.replayed()))
+                .body(new IngestResponse(outcome.eventId().toString(), outcome.eventType(), "accepted"));
+    }
+
+    @Operation(summary = "Ingest a batch of events",
+            description = "Streams newline-delimited JSON or a JSON array of events, publishing each as it is read. "
+                    + "Returns one result per event once the broker has acknowledged the burst. "
+                    + "With atomic=true the batch is read fully and published in one Kafka transaction: all events or none.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Batch read completely; see per-event status"),
+            @ApiResponse(responseCode = "400", description = "Malformed record, record over its app.request-limits depth or field count, or invalid payload; events before it were published (none when atomic)"),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+            @ApiResponse(responseCode = "413", description = "Batch exceeds app.batch.max-events (when atomic, also app.publish.max-in-flight), or a record exceeds its app.request-limits max-size; the remainder was not read"),
+            @ApiResponse(responseCode = "503", description = "In-flight window full or the Kafka send failed; events from the reported count onward were not published. "
+                    + "When atomic, the transaction was aborted and no event was published")
+    })
+    @PostMapping(path = "/batch", consumes = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BatchIngestResponse> ingestBatch(
+            @Parameter(description = "Optional correlation ID applied to every event in the batch")
+            @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            @Parameter(description = "Publish the whole batch in one Kafka transaction (requires app.kafka.transaction-id-prefix)")
+            @RequestParam(defaultValue = "false") boolean atomic,
+            InputStream body) throws IOException {
+        IngestProperties.Batch limits = properties.getBatch();
+        if (atomic) {
+            return ingestAtomicBatch(correlationId, body, limits);
+        }
+        List<BatchItem> items = new ArrayList<>();
+        HttpStatus status = HttpStatus.ACCEPTED;
+        String error = null;
+        String retryAfter = null;
+
+        try (EventRequestReader reader = newReader(body)) {
+            EventRequest request;
+            while ((request = reader.next()) != null) {
+                if (items.size() >= limits.getMaxEvents()) {
+                    status = HttpStatus.PAYLOAD_TOO_LARGE;
+                    error = "Batch exceeds " + limits.getMaxEvents() + " events; remaining events were not read";
+                    break;
+                }
+                PendingPublish pending = ingestService.publishAsync(request.eventType(), request.payload(), correlationId);
+                items.add(new BatchItem(pending.envelope().eventId().toString(), pending.envelope().eventType(), pending.ack()));
+            }
+        } catch (JsonProcessingException e) {
+            status = HttpStatus.BAD_REQUEST;
+            error = "Malformed event at index " + items.size() + ": " + e.getOriginalMessage();
+        } catch (EventBodyLimits.LimitExceeded e) {
+            status = e.reason().status();
+            error = "Event at index " + items.size() + " refused: " + e.getMessage();
+        } catch (PayloadValidationException e) {
+            status = HttpStatus.BAD_REQUEST;
+            error = "Invalid event at index " + items.size() + ": " + e.getMessage();
+        } catch (PublishRejectedException e) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            error = e.getMessage() + "; events from index " + items.size() + " were not published";
+            retryAfter = GlobalExceptionHandler.retryAfterSeconds(e);
+        } catch (KafkaException | org.apache.kafka.common.KafkaException e) {
+            // send() itself failed (e.g. metadata or max.block.ms timeout); earlier events are already in flight.
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            error = "Kafka send failed: " + e.getMessage() + "; events from index " + items.size() + " were not published";
+        }
+
+        List<BatchItemResult> results = awaitAcks(items, limits);
+        int accepted = (int) results.stream().filter(r -> "accepted".equals(r.status())).count();
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (retryAfter != null) {
+            response.header(HttpHeaders.RETRY_AFTER, retryAfter);
+        }
+        return response
+                .body(new BatchIngestResponse(accepted, results.size() - accepted, results, error));
+    }
+
+    private ResponseEntity<BatchIngestResponse> ingestAtomicBatch(String correlationId, InputStream body,
+                                                                  IngestProperties.Batch limits) throws IOException {
+        if (!ingestService.supportsTransactions()) {
+            return ResponseEntity.badRequest()
+                    .body(new BatchIngestResponse(0, 0, List.of(), "Atomic batches are not enabled on this service"));
+        }
+        // The transaction needs the whole batch up front, so it is held in memory (at most max-events drafts),
+        // and must fit in the publish window.
+        int maxEvents = Math.min(limits.getMaxEvents(), ingestService.maxAtomicBatchSize());
+        List<EventDraft> drafts = new ArrayList<>();
+        try (EventRequestReader reader = newReader(body)) {
+            EventRequest request;
+            while ((request = reader.next()) != null) {
+                if (drafts.size() >= maxEvents) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(new BatchIngestResponse(0, 0, List.of(),
+                            "Batch exceeds " + maxEvents + " events; nothing was published"));
+                }
+                drafts.add(new EventDraft(request.eventType(), request.payload()));
+            }
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(new BatchIngestResponse(0, 0, List.of(),
+                    "Malformed event at index " + drafts.size() + ": " + e.getOriginalMessage() + "; nothing was published"));
+        } catch (EventBodyLimits.LimitExceeded e) {
+            return ResponseEntity.status(e.reason().status()).body(new BatchIngestResponse(0, 0, List.of(),
+                    "Event at index " + drafts.size() + " refused: " + e.getMessage() + "; nothing was published"));
+        }
+
+        try {
+            List<EventEnvelope> envelopes = ingestService.publishAtomically(drafts, correlationId);
+            List<BatchItemResult> results = new ArrayList<>(envelopes.size());
+            for (int i = 0; i < envelopes.size(); i++) {
+                EventEnvelope envelope = envelopes.get(i);
+                results.add(new BatchItemResult(i, envelope.eventId().toString(), envelope.eventType(), "accepted"));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new BatchIngestResponse(results.size(), 0, results, null));
+        } catch (PayloadValidationException e) {
+            return ResponseEntity.badRequest().body(new BatchIngestResponse(0, 0, List.of(),
+                    "Invalid event: " + e.getMessage() + "; nothing was published"));
+        } catch (PublishRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, GlobalExceptionHandler.retryAfterSeconds(e))
+                    .body(abortedBatch(drafts, e.getMessage()));
+        } catch (KafkaException | org.apache.kafka.common.KafkaException e) {
+            // Send failures surface from commitTransaction as client exceptions, template failures as Spring ones.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(abortedBatch(drafts, e.getMessage()));
+        }
+    }
+
+    private EventRequestReader newReader(InputStream body) throws IOException {
+        return new EventRequestReader(batchJsonFactory, objectMapper, recordLimits, body);
+    }
+
+    private static BatchIngestResponse abortedBatch(List<EventDraft> drafts, String reason) {
+        List<BatchItemResult> results = new ArrayList<>(drafts.size());
+        for (int i = 0; i < drafts.size(); i++) {
+            results.add(new BatchItemResult(i, null, drafts.get(i).eventType(), "failed"));
+        }
+        return new BatchIngestResponse(0, results.size(), results, "Transaction aborted, nothing was published: " + reason);
     }
 
+    private List<BatchItemResult> awaitAcks(List<BatchItem> items, IngestProperties.Batch limits) {
+        long deadline = System.nanoTime() + limits.getAckTimeout().toNanos();
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            String itemStatus = "accepted";
+            try {
+                item.ack().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                itemStatus = "failed";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                itemStatus = "failed";
+            }
+            results.add(new BatchItemResult(i, item.eventId(), item.eventType(), itemStatus));
+        }
+        return results;
+    }
+
+    private record BatchItem(String eventId, String eventType, CompletableFuture<Void> ack) {}
+
     public record IngestResponse(String eventId, String eventType, String status) {}
+
+    public record BatchItemResult(int index, String eventId, String eventType, String status) {}
+
+    public record BatchIngestResponse(int accepted, int failed, List<BatchItemResult> results, String error) {}
 }
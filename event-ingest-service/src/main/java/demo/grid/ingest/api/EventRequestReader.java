@@ -0,0 +1,103 @@
+package demo.grid.ingest.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import demo.grid.ingest.config.EventBodyLimits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Pulls {@link EventRequest}s one at a time from a batch body, either newline-delimited JSON
+ * or a single JSON array. Only the current record is materialized.
+ * <p>
+ * Each record is held to {@link EventBodyLimits} while its tokens are read, before it is bound: a record
+ * over its byte budget, nesting depth or field count throws {@link EventBodyLimits.LimitExceeded}
+ * without a tree having been built for it.
+ */
+class EventRequestReader implements Closeable {
+
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private final EventBodyLimits limits;
+    private boolean started;
+    private boolean array;
+
+    /**
+     * @param jsonFactory from {@link #jsonFactory}
+     */
+    EventRequestReader(JsonFactory jsonFactory, ObjectMapper objectMapper, EventBodyLimits limits,
+                       InputStream body) throws IOException {
+        this.parser = jsonFactory.createParser(body);
+        this.reader = objectMapper.readerFor(EventRequest.class);
+        this.limits = limits;
+    }
+
+    /**
+     * A copy of the mapper's factory whose parsers stop a string at the largest record size and nesting
+     * just past the deepest record, so no token can outgrow the limits before it is seen. The depth allows
+     * for the level a JSON array batch adds and for the token that crosses a record's own limit.
+     */
+    static JsonFactory jsonFactory(ObjectMapper objectMapper, EventBodyLimits limits) {
+        EventBodyLimits.Limits ceiling = limits.ceiling();
+        JsonFactory factory = objectMapper.getFactory().copy();
+        return factory.setStreamReadConstraints(factory.streamReadConstraints().rebuild()
+                .maxStringLength((int) Math.min(ceiling.maxBytes(), Integer.MAX_VALUE))
+                .maxNestingDepth((int) Math.min(ceiling.maxDepth() + 2L, Integer.MAX_VALUE))
+                .build());
+    }
+
+    /**
+     * @return the next request, or null when the body is exhausted
+     */
+    EventRequest next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || (array && token == JsonToken.END_ARRAY)) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an event object but found " + token);
+        }
+        long start = parser.currentTokenLocation().getByteOffset();
+        EventBodyLimits.Tracker tracker = limits.track();
+        TokenBuffer record = new TokenBuffer(parser);
+        try {
+            do {
+                tracker.token(parser, token, parser.currentLocation().getByteOffset() - start);
+                record.copyCurrentEvent(parser);
+            } while (tracker.depth() > 0 && (token = parser.nextToken()) != null);
+        } catch (StreamConstraintsException e) {
+            // A string longer than any record may be; anything else is reported as malformed.
+            if (parser.currentLocation().getByteOffset() - start > tracker.maxBytes()) {
+                throw EventBodyLimits.sizeExceeded(tracker.maxBytes());
+            }
+            throw e;
+        }
+        if (tracker.depth() > 0) {
+            throw new JsonParseException(parser, "Unexpected end of the event object");
+        }
+        tracker.end(parser.currentLocation().getByteOffset() - start);
+        try (JsonParser replay = record.asParser()) {
+            return reader.readValue(replay);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,37 @@
+package demo.grid.ingest.api;
+
+import demo.grid.ingest.service.PublishRejectedException;
+import demo.grid.schema.PayloadValidationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Maps ingest-specific failures to HTTP responses; everything else keeps Spring's default handling.
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(PublishRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handlePublishRejected(PublishRejectedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex))
+                .body(Map.of("error", "Service Unavailable", "message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PayloadValidationException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidPayload(PayloadValidationException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", "Bad Request", "message", ex.getMessage(), "path", ex.getPath()));
+    }
+
+    static String retryAfterSeconds(PublishRejectedException ex) {
+        return Long.toString(Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000));
+    }
+}
@@ -0,0 +1,168 @@
+package demo.grid.ingest.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import demo.grid.schema.RawJson;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads an {@link EventRequest} without building a tree for its payload. The body is read into one
+ * byte array and tokenized once: {@code eventType} is read as a string and the {@code payload} value is
+ * validated token by token, then handed on as a {@link RawJson} slice of that array, which the Kafka
+ * serializer copies verbatim into the envelope.
+ * <p>
+ * Bodies larger than {@code maxBodyBytes} get 413; the array grows as bytes arrive rather than being sized
+ * from {@code Content-Length}. The slice is copied into UTF-8 output as it is, so bodies must be UTF-8
+ * (as RFC 8259 requires between systems); UTF-16 and UTF-32, which Jackson would otherwise detect, get 400.
+ * <p>
+ * Registered ahead of the Jackson converter when {@code app.payload.passthrough} is enabled.
+ */
+public class RawPayloadEventRequestConverter extends AbstractHttpMessageConverter<EventRequest> {
+
+    private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+
+    private final JsonFactory jsonFactory;
+    private final long maxBodyBytes;
+
+    public RawPayloadEventRequestConverter(JsonFactory jsonFactory, long maxBodyBytes) {
+        super(MediaType.APPLICATION_JSON);
+        if (maxBodyBytes <= 0 || maxBodyBytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Body limit must be between 1 byte and 2GB");
+        }
+        this.jsonFactory = jsonFactory;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EventRequest.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected EventRequest readInternal(Class<? extends EventRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        Charset declared = inputMessage.getHeaders().getContentType() != null
+                ? inputMessage.getHeaders().getContentType().getCharset()
+                : null;
+        if (declared != null && !StandardCharsets.UTF_8.equals(declared)) {
+            throw new HttpMessageNotReadableException("Event bodies must be UTF-8, not " + declared, inputMessage);
+        }
+        byte[] body = readBody(inputMessage);
+        if (!isUtf8(body)) {
+            throw new HttpMessageNotReadableException("Event bodies must be UTF-8", inputMessage);
+        }
+        try {
+            return parse(body);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Malformed event: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    EventRequest parse(byte[] body) throws IOException {
+        String eventType = null;
+        JsonNode payload = null;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected an event object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("eventType".equals(field)) {
+                    if (!value.isScalarValue()) {
+                        throw new JsonParseException(parser, "eventType must be a string");
+                    }
+                    eventType = parser.getValueAsString();
+                } else if ("payload".equals(field)) {
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    int end = RawJson.valueEnd(parser);
+                    payload = value == JsonToken.VALUE_NULL ? null : RawJson.wrap(body, start, end - start).node();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the event object");
+            }
+        }
+        return new EventRequest(eventType, payload);
+    }
+
+    private byte[] readBody(HttpInputMessage inputMessage) throws IOException {
+        long contentLength = inputMessage.getHeaders().getContentLength();
+        if (contentLength > maxBodyBytes) {
+            throw tooLarge();
+        }
+        InputStream in = inputMessage.getBody();
+        // A small body that declares its length is read in one allocation, and the payload slice lives in it.
+        byte[] body = new byte[(int) Math.min(contentLength >= 0 ? contentLength : INITIAL_BUFFER_BYTES,
+                Math.min(maxBodyBytes, INITIAL_BUFFER_BYTES))];
+        int size = 0;
+        while (size != contentLength) {
+            if (size == body.length) {
+                if (size >= maxBodyBytes) {
+                    if (in.read() < 0) {
+                        break;
+                    }
+                    throw tooLarge();
+                }
+                long limit = contentLength >= 0 ? contentLength : maxBodyBytes;
+                body = Arrays.copyOf(body, (int) Math.min(limit, Math.max(2L * size, INITIAL_BUFFER_BYTES)));
+            }
+            int read = in.read(body, size, body.length - size);
+            if (read < 0) {
+                break;
+            }
+            size += read;
+        }
+        return size == body.length ? body : Arrays.copyOf(body, size);
+    }
+
+    private ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Body exceeds " + maxBodyBytes + " bytes");
+    }
+
+    /**
+     * False for bodies Jackson would decode as UTF-16 or UTF-32: a byte-order mark, or a zero byte among the
+     * first four (JSON text starts with an ASCII character, so only those encodings put zeros there).
+     */
+    static boolean isUtf8(byte[] body) {
+        if (body.length >= 2 && ((body[0] == (byte) 0xFE && body[1] == (byte) 0xFF)
+                || (body[0] == (byte) 0xFF && body[1] == (byte) 0xFE))) {
+            return false;
+        }
+        for (int i = 0; i < Math.min(4, body.length); i++) {
+            if (body[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void writeInternal(EventRequest eventRequest, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("EventRequest is request-only");
+    }
+}
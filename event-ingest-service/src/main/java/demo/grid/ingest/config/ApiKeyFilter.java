@@ -1,25 +1,48 @@
 package demo.grid.ingest.config;
 
+import demo.grid.schema.auth.ApiClients;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.function.LongSupplier;
 
 /**
- * Rejects requests that do not carry a valid X-API-Key header.
+ * Rejects requests that do not carry a known X-API-Key header (401) and applies the key's token-bucket
+ * rate limit (429 with Retry-After). Limits count requests, so a batch costs one token however many events
+ * it carries. Keys, buckets and the per-client counters are {@link ApiClients}.
  */
 public class ApiKeyFilter extends OncePerRequestFilter {
 
     private static final String HEADER_API_KEY = "X-API-Key";
+    /** Request attribute holding the configured name of the authenticated client. */
+    public static final String CLIENT_ATTRIBUTE = "demo.grid.ingest.config.ApiKeyFilter.client";
+    /** Client name of the single {@code app.api-key}. */
+    public static final String DEFAULT_CLIENT = ApiClients.DEFAULT_CLIENT;
 
-    private final String expectedApiKey;
+    private final ApiClients clients;
 
-    public ApiKeyFilter(String expectedApiKey) {
-        this.expectedApiKey = expectedApiKey != null ? expectedApiKey : "";
+    public ApiKeyFilter(IngestProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    ApiKeyFilter(IngestProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        IngestProperties.RateLimit rateLimit = properties.getRateLimit();
+        this.clients = new ApiClients(
+                properties.getApiKeys().stream()
+                        .map(k -> new ApiClients.Key(k.getName(), k.getKey(), k.getRate(), k.getBurst()))
+                        .toList(),
+                properties.getApiKey(),
+                new ApiClients.RateLimit(rateLimit.isEnabled(), rateLimit.getDefaultRate(), rateLimit.getDefaultBurst()),
+                meterRegistry,
+                nanoClock);
     }
 
     @Override
@@ -27,13 +50,22 @@ public class ApiKeyFilter extends OncePerRequestFilter {
             @NonNull HttpServletRequest request,
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
-        String provided = request.getHeader(HEADER_API_KEY);
-        if (provided == null || !provided.equals(expectedApiKey)) {
+        ApiClients.Client client = clients.resolve(request.getHeader(HEADER_API_KEY));
+        if (client == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
             response.getWriter().write("{\"error\":\"Missing or invalid X-API-Key\"}");
             return;
         }
+        long waitNanos = client.tryAdmit();
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(ApiClients.retryAfterSeconds(waitNanos)));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Rate limit exceeded for client '" + client.name() + "'\"}");
+            return;
+        }
+        request.setAttribute(CLIENT_ATTRIBUTE, client.name());
         filterChain.doFilter(request, response);
     }
 }
@@ -0,0 +1,66 @@
+package demo.grid.ingest.config;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch over pre-hashed keys: {@value #DEPTH} rows of {@code width} counters, each row indexed
+ * by a different combination of the same 32-bit hash. An estimate never undercounts and overcounts by at
+ * most about {@code e / width} of the total with high probability, in a fixed {@code 16 * width} bytes.
+ * <p>
+ * Increments are atomic; {@link #halve()} is not, so an increment racing with it may be lost, which only
+ * matters to the estimate by one.
+ */
+final class CountMinSketch {
+
+    static final int DEPTH = 4;
+
+    private final int width;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+
+    CountMinSketch(int width) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two: " + width);
+        }
+        this.width = width;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+    }
+
+    /**
+     * Counts one occurrence of {@code hash} and returns its new estimate.
+     */
+    int add(int hash) {
+        int step = step(hash);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.incrementAndGet(index(row, hash, step)));
+        }
+        return min;
+    }
+
+    int estimate(int hash) {
+        int step = step(hash);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(row, hash, step)));
+        }
+        return min;
+    }
+
+    /** Ages every count by half. */
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(int row, int hash, int step) {
+        return row * width + ((hash + row * step) & mask);
+    }
+
+    /** Second hash for double hashing; odd, so every row visits a different counter for distinct hashes. */
+    private static int step(int hash) {
+        return Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+    }
+}
@@ -0,0 +1,182 @@
+package demo.grid.ingest.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code app.request-limits} resolved per event type, applied to one event object while its tokens are
+ * read. Used by {@link RequestLimitFilter} for {@code POST /api/events} and per record for batches.
+ * <p>
+ * Until {@code eventType} has been read, the loosest limits of any event type apply; from then on, that
+ * type's. An event without an eventType is held to the defaults.
+ */
+public final class EventBodyLimits {
+
+    private static final EventBodyLimits UNLIMITED =
+            new EventBodyLimits(new Limits(Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE), Map.of());
+
+    private final Limits defaults;
+    private final Limits ceiling;
+    private final Map<String, Limits> byEventType;
+
+    private EventBodyLimits(Limits defaults, Map<String, Limits> byEventType) {
+        this.defaults = defaults;
+        this.byEventType = byEventType;
+        Limits loosest = defaults;
+        for (Limits limits : byEventType.values()) {
+            loosest = new Limits(Math.max(loosest.maxBytes(), limits.maxBytes()),
+                    Math.max(loosest.maxDepth(), limits.maxDepth()),
+                    Math.max(loosest.maxFields(), limits.maxFields()));
+        }
+        this.ceiling = loosest;
+    }
+
+    /**
+     * @return the configured limits, or no limits at all when {@code app.request-limits.enabled} is false
+     */
+    public static EventBodyLimits of(IngestProperties.RequestLimits config) {
+        if (!config.isEnabled()) {
+            return UNLIMITED;
+        }
+        Limits defaults = new Limits(config.getMaxSize().toBytes(), config.getMaxDepth(), config.getMaxFields());
+        Map<String, Limits> byEventType = new HashMap<>();
+        for (Map.Entry<String, IngestProperties.RequestLimits.EventTypeLimits> entry : config.getEventTypes().entrySet()) {
+            IngestProperties.RequestLimits.EventTypeLimits override = entry.getValue();
+            byEventType.put(entry.getKey(), new Limits(
+                    override.getMaxSize() != null ? override.getMaxSize().toBytes() : defaults.maxBytes(),
+                    override.getMaxDepth() != null ? override.getMaxDepth() : defaults.maxDepth(),
+                    override.getMaxFields() != null ? override.getMaxFields() : defaults.maxFields()));
+        }
+        return new EventBodyLimits(defaults, Map.copyOf(byEventType));
+    }
+
+    /** The loosest limits of any event type, which apply until the eventType is known. */
+    public Limits ceiling() {
+        return ceiling;
+    }
+
+    /** Starts checking a new event object. */
+    public Tracker track() {
+        return new Tracker();
+    }
+
+    public record Limits(long maxBytes, int maxDepth, int maxFields) {}
+
+    /**
+     * Follows one event object token by token and throws {@link LimitExceeded} at the first limit crossed.
+     */
+    public final class Tracker {
+        private Limits limits = ceiling;
+        private boolean typed;
+        private int depth;
+        private int deepest;
+        private int fields;
+
+        private Tracker() {
+        }
+
+        /**
+         * @param token     the parser's current token
+         * @param bytesRead bytes of this event read so far
+         */
+        public void token(JsonParser parser, JsonToken token, long bytesRead) throws IOException {
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                if (++depth > limits.maxDepth()) {
+                    throw new LimitExceeded(Reason.DEPTH, "Event nests deeper than " + limits.maxDepth() + " levels");
+                }
+                deepest = Math.max(deepest, depth);
+            } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                depth--;
+            } else if (token == JsonToken.FIELD_NAME) {
+                if (++fields > limits.maxFields()) {
+                    throw new LimitExceeded(Reason.FIELDS, "Event has more than " + limits.maxFields() + " fields");
+                }
+            } else if (token == JsonToken.VALUE_STRING && depth == 1 && !typed
+                    && "eventType".equals(parser.currentName())) {
+                typed = true;
+                limits = byEventType.getOrDefault(parser.getText(), defaults);
+                check(limits, bytesRead, deepest, fields);
+            }
+            if (bytesRead > limits.maxBytes()) {
+                throw sizeExceeded(limits.maxBytes());
+            }
+        }
+
+        /** Nesting depth after the last token; 0 once the event object is closed. */
+        public int depth() {
+            return depth;
+        }
+
+        /** Bytes the event may still grow to under the limits known so far. */
+        public long maxBytes() {
+            return limits.maxBytes();
+        }
+
+        /**
+         * Called once the event object is closed; applies the defaults if no eventType was read.
+         */
+        public void end(long bytesRead) {
+            if (!typed) {
+                check(defaults, bytesRead, deepest, fields);
+            }
+        }
+    }
+
+    public static LimitExceeded sizeExceeded(long maxBytes) {
+        return new LimitExceeded(Reason.SIZE, "Event exceeds " + maxBytes + " bytes");
+    }
+
+    private static void check(Limits limits, long bytes, int depth, int fields) {
+        if (bytes > limits.maxBytes()) {
+            throw sizeExceeded(limits.maxBytes());
+        }
+        if (depth > limits.maxDepth()) {
+            throw new LimitExceeded(Reason.DEPTH, "Event nests deeper than " + limits.maxDepth() + " levels");
+        }
+        if (fields > limits.maxFields()) {
+            throw new LimitExceeded(Reason.FIELDS, "Event has more than " + limits.maxFields() + " fields");
+        }
+    }
+
+    public enum Reason {
+        SIZE("size", HttpStatus.PAYLOAD_TOO_LARGE),
+        DEPTH("depth", HttpStatus.BAD_REQUEST),
+        FIELDS("fields", HttpStatus.BAD_REQUEST),
+        MALFORMED("malformed", HttpStatus.BAD_REQUEST);
+
+        private final String tag;
+        private final HttpStatus status;
+
+        Reason(String tag, HttpStatus status) {
+            this.tag = tag;
+            this.status = status;
+        }
+
+        /** Value of the {@code reason} tag on {@code ingest.api.bodies.rejected}. */
+        public String tag() {
+            return tag;
+        }
+
+        public HttpStatus status() {
+            return status;
+        }
+    }
+
+    public static final class LimitExceeded extends RuntimeException {
+        private final Reason reason;
+
+        public LimitExceeded(Reason reason, String message) {
+            super(message, null, false, false);
+            this.reason = reason;
+        }
+
+        public Reason reason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package demo.grid.ingest.config;
+
+import demo.grid.schema.EventEnvelope;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Kafka {@link Partitioner} that places keyed records like the default partitioner (murmur2 of the key
+ * bytes) except for hot keys of event types that opted out of per-key ordering, which
+ * {@link HotKeyTracker} spreads over a few neighbouring partitions. The tracker is passed in the
+ * producer config under {@link #TRACKER_CONFIG}.
+ */
+public class HotKeyPartitioner implements Partitioner {
+
+    public static final String TRACKER_CONFIG = "grid.partitioner.hot-key-tracker";
+
+    private HotKeyTracker tracker;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        if (!(configs.get(TRACKER_CONFIG) instanceof HotKeyTracker configured)) {
+            throw new ConfigException(TRACKER_CONFIG, configs.get(TRACKER_CONFIG), "must be a HotKeyTracker");
+        }
+        this.tracker = configured;
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int numPartitions = cluster.partitionsForTopic(topic).size();
+        if (keyBytes == null) {
+            return tracker.unkeyedPartition(topic, numPartitions);
+        }
+        String eventType = value instanceof EventEnvelope envelope ? envelope.eventType() : null;
+        return tracker.partition(topic, Utils.murmur2(keyBytes), eventType, numPartitions);
+    }
+
+    /** Called by the producer when the sticky partition's batch is full; unkeyed records move on. */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void onNewBatch(String topic, Cluster cluster, int prevPartition) {
+        tracker.nextStickyPartition(topic, prevPartition, cluster.partitionsForTopic(topic).size());
+    }
+
+    @Override
+    public void close() {
+    }
+}
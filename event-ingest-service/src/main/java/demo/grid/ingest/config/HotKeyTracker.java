@@ -0,0 +1,163 @@
+package demo.grid.ingest.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Partitioning decisions for {@link HotKeyPartitioner}. Key frequencies are kept in a count-min sketch
+ * and records per partition in plain counters; both are halved every {@code app.partitioner.window}
+ * records, so "hot" and the skew metric describe recent traffic. A key is hot when its estimated count
+ * exceeds {@code hot-share} of the records in the same decayed window.
+ * <p>
+ * This is a Spring bean handed to the partitioner through the producer config, rather than state of the
+ * partitioner itself, so it outlives a producer the factory replaces after a fatal error and is shared by
+ * the plain and transactional producers.
+ */
+@Component
+public class HotKeyTracker {
+
+    static final int SKETCH_WIDTH = 4_096;
+    /** Below this estimate a key is never hot, so a quiet topic does not spread its first few keys. */
+    static final int MIN_HOT_COUNT = 100;
+
+    private final IngestProperties.Partitioner config;
+    private final MeterRegistry meterRegistry;
+    private final CountMinSketch sketch = new CountMinSketch(SKETCH_WIDTH);
+    private final AtomicLong windowRecords = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final Map<String, AtomicLongArray> partitionCounts = new ConcurrentHashMap<>();
+    private final Map<String, Counter> spreadRecords = new ConcurrentHashMap<>();
+    private final Map<String, Integer> stickyPartitions = new ConcurrentHashMap<>();
+
+    public HotKeyTracker(IngestProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getPartitioner();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param keyHash murmur2 hash of the serialized key, as Kafka's default partitioner uses
+     * @return the key's hashed partition, or for a hot key of a spread event type a random one of the
+     *         {@code sub-partitions} partitions starting there
+     */
+    int partition(String topic, int keyHash, String eventType, int numPartitions) {
+        int partition = (keyHash & 0x7fffffff) % numPartitions;
+        boolean hot = recordKey(keyHash);
+        if (hot && eventType != null && config.getSpreadEventTypes().contains(eventType)) {
+            int fanout = Math.min(config.getSubPartitions(), numPartitions);
+            if (fanout > 1) {
+                partition = (partition + ThreadLocalRandom.current().nextInt(fanout)) % numPartitions;
+                spreadCounter(eventType).increment();
+            }
+        }
+        recordPartition(topic, partition, numPartitions);
+        return partition;
+    }
+
+    /**
+     * Placement for records without a key, counted for skew. Like the default partitioner, all of them go to one
+     * sticky partition until its batch is full ({@link #nextStickyPartition}), so they fill batches instead of
+     * opening one per partition.
+     */
+    int unkeyedPartition(String topic, int numPartitions) {
+        Integer sticky = stickyPartitions.get(topic);
+        int partition = sticky != null && sticky < numPartitions
+                ? sticky
+                : nextStickyPartition(topic, -1, numPartitions);
+        recordPartition(topic, partition, numPartitions);
+        return partition;
+    }
+
+    /**
+     * Moves the topic's sticky partition away from {@code previousPartition}, once however many threads find its
+     * batch full at the same time.
+     */
+    int nextStickyPartition(String topic, int previousPartition, int numPartitions) {
+        return stickyPartitions.compute(topic, (t, current) -> {
+            if (current != null && current != previousPartition && current < numPartitions) {
+                return current;
+            }
+            if (numPartitions == 1) {
+                return 0;
+            }
+            int next = ThreadLocalRandom.current().nextInt(numPartitions - 1);
+            return current != null && next >= current ? next + 1 : next;
+        });
+    }
+
+    boolean isHot(int keyHash) {
+        int estimate = sketch.estimate(keyHash);
+        return estimate >= MIN_HOT_COUNT && estimate > config.getHotShare() * windowRecords.get();
+    }
+
+    /**
+     * Busiest partition's recent record count relative to an even split: 1 is balanced, {@code n} means
+     * all records went to one of {@code n} partitions. NaN before the topic has seen a record.
+     */
+    double skew(String topic) {
+        AtomicLongArray counts = partitionCounts.get(topic);
+        if (counts == null) {
+            return Double.NaN;
+        }
+        long max = 0;
+        long sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            max = Math.max(max, count);
+            sum += count;
+        }
+        return sum == 0 ? Double.NaN : (double) max * counts.length() / sum;
+    }
+
+    private boolean recordKey(int keyHash) {
+        int estimate = sketch.add(keyHash);
+        long inWindow = windowRecords.incrementAndGet();
+        // windowRecords is halved on decay, so the window boundary is counted separately.
+        if (records.incrementAndGet() % config.getWindow() == 0) {
+            decay();
+        }
+        return estimate >= MIN_HOT_COUNT && estimate > config.getHotShare() * inWindow;
+    }
+
+    private void recordPartition(String topic, int partition, int numPartitions) {
+        AtomicLongArray counts = partitionCounts.get(topic);
+        if (counts == null || counts.length() != numPartitions) {
+            // First record for the topic, or partitions were added: start counting afresh.
+            counts = partitionCounts.compute(topic, (t, existing) -> {
+                if (existing == null) {
+                    Gauge.builder("ingest.producer.partition.skew", this, tracker -> tracker.skew(t))
+                            .description("Busiest partition's recent records relative to an even split (1 = balanced)")
+                            .tag("topic", t)
+                            .register(meterRegistry);
+                }
+                return existing != null && existing.length() == numPartitions ? existing : new AtomicLongArray(numPartitions);
+            });
+        }
+        counts.incrementAndGet(partition);
+    }
+
+    private void decay() {
+        sketch.halve();
+        windowRecords.updateAndGet(n -> n / 2);
+        for (AtomicLongArray counts : partitionCounts.values()) {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, counts.get(i) / 2);
+            }
+        }
+    }
+
+    private Counter spreadCounter(String eventType) {
+        // Tag values are limited to the configured spread-event-types.
+        return spreadRecords.computeIfAbsent(eventType, type -> Counter.builder("ingest.producer.hot.key.spread")
+                .description("Records of hot keys placed on a sub-partition instead of their hashed partition")
+                .tag("type", type)
+                .register(meterRegistry));
+    }
+}
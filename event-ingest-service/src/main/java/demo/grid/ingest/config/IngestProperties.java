@@ -1,14 +1,38 @@
 package demo.grid.ingest.config;
 
+import demo.grid.schema.kafka.WireFormat;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Component
 @ConfigurationProperties(prefix = "app")
 public class IngestProperties {
 
+    /** Single-key setup; registered as client "default" with the default rate limit. */
     private String apiKey = "dev-key";
+    private List<ApiKey> apiKeys = new ArrayList<>();
+    private RateLimit rateLimit = new RateLimit();
     private Kafka kafka = new Kafka();
+    private Batch batch = new Batch();
+    private Publish publish = new Publish();
+    private Payload payload = new Payload();
+    private Producer producer = new Producer();
+    private Idempotency idempotency = new Idempotency();
+    private Partitioner partitioner = new Partitioner();
+    private Spool spool = new Spool();
+    private Tcp tcp = new Tcp();
+    private RequestLimits requestLimits = new RequestLimits();
+    private Validation validation = new Validation();
 
     public String getApiKey() {
         return apiKey;
@@ -18,6 +42,22 @@ public class IngestProperties {
         this.apiKey = apiKey;
     }
 
+    public List<ApiKey> getApiKeys() {
+        return apiKeys;
+    }
+
+    public void setApiKeys(List<ApiKey> apiKeys) {
+        this.apiKeys = apiKeys;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
     public Kafka getKafka() {
         return kafka;
     }
@@ -26,8 +66,174 @@ public class IngestProperties {
         this.kafka = kafka;
     }
 
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Publish getPublish() {
+        return publish;
+    }
+
+    public void setPublish(Publish publish) {
+        this.publish = publish;
+    }
+
+    public Payload getPayload() {
+        return payload;
+    }
+
+    public void setPayload(Payload payload) {
+        this.payload = payload;
+    }
+
+    public Producer getProducer() {
+        return producer;
+    }
+
+    public void setProducer(Producer producer) {
+        this.producer = producer;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
+
+    public Partitioner getPartitioner() {
+        return partitioner;
+    }
+
+    public void setPartitioner(Partitioner partitioner) {
+        this.partitioner = partitioner;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public void setSpool(Spool spool) {
+        this.spool = spool;
+    }
+
+    public Tcp getTcp() {
+        return tcp;
+    }
+
+    public void setTcp(Tcp tcp) {
+        this.tcp = tcp;
+    }
+
+    public RequestLimits getRequestLimits() {
+        return requestLimits;
+    }
+
+    public void setRequestLimits(RequestLimits requestLimits) {
+        this.requestLimits = requestLimits;
+    }
+
+    public Validation getValidation() {
+        return validation;
+    }
+
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * A named client credential. The name tags metrics and 429 responses; rate and burst override
+     * the rate-limit defaults.
+     */
+    public static class ApiKey {
+        private String name;
+        private String key;
+        /** Requests per second. */
+        private Double rate;
+        /** Requests admitted back to back after an idle period. */
+        private Integer burst;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public Double getRate() {
+            return rate;
+        }
+
+        public void setRate(Double rate) {
+            this.rate = rate;
+        }
+
+        public Integer getBurst() {
+            return burst;
+        }
+
+        public void setBurst(Integer burst) {
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Per-key token buckets applied by ApiKeyFilter.
+     */
+    public static class RateLimit {
+        private boolean enabled = true;
+        /** Requests per second for keys without their own rate; unset leaves those keys unlimited. */
+        private Double defaultRate;
+        /** Bucket size for keys without their own burst. */
+        private int defaultBurst = 2_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Double getDefaultRate() {
+            return defaultRate;
+        }
+
+        public void setDefaultRate(Double defaultRate) {
+            this.defaultRate = defaultRate;
+        }
+
+        public int getDefaultBurst() {
+            return defaultBurst;
+        }
+
+        public void setDefaultBurst(int defaultBurst) {
+            this.defaultBurst = defaultBurst;
+        }
+    }
+
     public static class Kafka {
         private String topic = "grid.events.v1";
+        /** Encoding of envelopes on the topic; consumers read both, so switch consumers first. */
+        private WireFormat wireFormat = WireFormat.JSON;
+        /** Publish each event to its per-type topic (EventTopics) instead of the base topic. */
+        private boolean routeByType = false;
+        /** Enables atomic batches (POST /api/events/batch?atomic=true) through a transactional producer. */
+        private String transactionIdPrefix;
 
         public String getTopic() {
             return topic;
@@ -36,5 +242,598 @@ public class IngestProperties {
         public void setTopic(String topic) {
             this.topic = topic;
         }
+
+        public WireFormat getWireFormat() {
+            return wireFormat;
+        }
+
+        public void setWireFormat(WireFormat wireFormat) {
+            this.wireFormat = wireFormat;
+        }
+
+        public boolean isRouteByType() {
+            return routeByType;
+        }
+
+        public void setRouteByType(boolean routeByType) {
+            this.routeByType = routeByType;
+        }
+
+        public String getTransactionIdPrefix() {
+            return transactionIdPrefix;
+        }
+
+        public void setTransactionIdPrefix(String transactionIdPrefix) {
+            this.transactionIdPrefix = transactionIdPrefix;
+        }
+    }
+
+    /**
+     * Limits for POST /api/events/batch.
+     */
+    public static class Batch {
+        /** Events accepted per request; the rest of the body is not read. */
+        private int maxEvents = 10_000;
+        /** How long to wait for broker acknowledgements before reporting an event as failed. */
+        private Duration ackTimeout = Duration.ofSeconds(30);
+
+        public int getMaxEvents() {
+            return maxEvents;
+        }
+
+        public void setMaxEvents(int maxEvents) {
+            this.maxEvents = maxEvents;
+        }
+
+        public Duration getAckTimeout() {
+            return ackTimeout;
+        }
+
+        public void setAckTimeout(Duration ackTimeout) {
+            this.ackTimeout = ackTimeout;
+        }
+    }
+
+    /**
+     * Backpressure for Kafka sends. Keep max-in-flight times the typical record size well under the
+     * producer's buffer.memory so a slow broker fills the window before it fills the buffer.
+     */
+    public static class Publish {
+        /** Sends awaiting broker acknowledgement before new publishes are refused with 503; the adaptive limit's ceiling. */
+        private int maxInFlight = 5_000;
+        /** Value of the Retry-After header when the window is full. */
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private Adaptive adaptive = new Adaptive();
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        public Adaptive getAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(Adaptive adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        /**
+         * Moves the window size between min-limit and max-in-flight with the broker acknowledgement latency:
+         * it grows while latency stays near its long-run average and shrinks when sends queue up.
+         */
+        public static class Adaptive {
+            private boolean enabled = true;
+            private int initialLimit = 500;
+            private int minLimit = 20;
+            /** How far the recent latency may exceed the long-run average before the limit shrinks. */
+            private double rttTolerance = 1.5;
+            /** Weight of each new estimate; lower values change the limit more slowly. */
+            private double smoothing = 0.2;
+            /** Acknowledgements are averaged over windows of this length (and at least 10 samples). */
+            private Duration sampleWindow = Duration.ofMillis(100);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getInitialLimit() {
+                return initialLimit;
+            }
+
+            public void setInitialLimit(int initialLimit) {
+                this.initialLimit = initialLimit;
+            }
+
+            public int getMinLimit() {
+                return minLimit;
+            }
+
+            public void setMinLimit(int minLimit) {
+                this.minLimit = minLimit;
+            }
+
+            public double getRttTolerance() {
+                return rttTolerance;
+            }
+
+            public void setRttTolerance(double rttTolerance) {
+                this.rttTolerance = rttTolerance;
+            }
+
+            public double getSmoothing() {
+                return smoothing;
+            }
+
+            public void setSmoothing(double smoothing) {
+                this.smoothing = smoothing;
+            }
+
+            public Duration getSampleWindow() {
+                return sampleWindow;
+            }
+
+            public void setSampleWindow(Duration sampleWindow) {
+                this.sampleWindow = sampleWindow;
+            }
+        }
+    }
+
+    /**
+     * How POST /api/events handles the event payload.
+     */
+    public static class Payload {
+        /**
+         * Validate the payload with a streaming parser and copy its bytes verbatim into the Kafka record
+         * instead of parsing it into a tree and re-serializing it.
+         */
+        private boolean passthrough = false;
+
+        public boolean isPassthrough() {
+            return passthrough;
+        }
+
+        public void setPassthrough(boolean passthrough) {
+            this.passthrough = passthrough;
+        }
+    }
+
+    /**
+     * Kafka producer batching. {@code default} leaves the client defaults (no compression, 16 KiB batches,
+     * linger 0); {@code throughput} compresses and batches with a fixed linger.
+     */
+    public static class Producer {
+        private Profile profile = Profile.DEFAULT;
+        private String compression = "lz4";
+        /** Upper bound of one per-partition batch, in bytes. */
+        private int batchSize = 256 * 1024;
+        /** How long the throughput profile waits for a batch to fill before sending it. */
+        private Duration linger = Duration.ofMillis(5);
+
+        public Profile getProfile() {
+            return profile;
+        }
+
+        public void setProfile(Profile profile) {
+            this.profile = profile;
+        }
+
+        public String getCompression() {
+            return compression;
+        }
+
+        public void setCompression(String compression) {
+            this.compression = compression;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getLinger() {
+            return linger;
+        }
+
+        public void setLinger(Duration linger) {
+            this.linger = linger;
+        }
+
+        public enum Profile {
+            DEFAULT, THROUGHPUT
+        }
+    }
+
+    /**
+     * Idempotency-Key handling for POST /api/events.
+     */
+    public static class Idempotency {
+        /** How long a key is remembered after its event was published. */
+        private Duration ttl = Duration.ofHours(1);
+        /** Heap budget for remembered keys; least valuable keys are evicted beyond it. */
+        private DataSize maxMemory = DataSize.ofMegabytes(64);
+        /** Longer keys are rejected with 400. */
+        private int maxKeyLength = 255;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public DataSize getMaxMemory() {
+            return maxMemory;
+        }
+
+        public void setMaxMemory(DataSize maxMemory) {
+            this.maxMemory = maxMemory;
+        }
+
+        public int getMaxKeyLength() {
+            return maxKeyLength;
+        }
+
+        public void setMaxKeyLength(int maxKeyLength) {
+            this.maxKeyLength = maxKeyLength;
+        }
+    }
+
+    /**
+     * Producer partitioning. Records are placed by key hash as with Kafka's default partitioner; keys
+     * that take more than hot-share of recent traffic are spread over sub-partitions consecutive
+     * partitions, but only for the event types listed in spread-event-types, since that gives up per-key
+     * ordering.
+     */
+    public static class Partitioner {
+        private boolean enabled = true;
+        /** Event types whose consumers do not rely on per-key ordering. */
+        private Set<String> spreadEventTypes = new HashSet<>();
+        /** Fraction of recent records above which a key counts as hot. */
+        private double hotShare = 0.02;
+        /** Partitions a hot key is spread over, starting at its hashed partition. */
+        private int subPartitions = 4;
+        /** Records after which key and partition counts are halved, so the view follows recent traffic. */
+        private int window = 100_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Set<String> getSpreadEventTypes() {
+            return spreadEventTypes;
+        }
+
+        public void setSpreadEventTypes(Set<String> spreadEventTypes) {
+            this.spreadEventTypes = spreadEventTypes;
+        }
+
+        public double getHotShare() {
+            return hotShare;
+        }
+
+        public void setHotShare(double hotShare) {
+            this.hotShare = hotShare;
+        }
+
+        public int getSubPartitions() {
+            return subPartitions;
+        }
+
+        public void setSubPartitions(int subPartitions) {
+            this.subPartitions = subPartitions;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public void setWindow(int window) {
+            this.window = window;
+        }
+    }
+
+    /**
+     * Local journal that takes envelopes while Kafka cannot: the in-flight window is full, a send fails, or
+     * earlier envelopes are still spooled. A drainer replays them in order once the broker accepts sends.
+     */
+    public static class Spool {
+        private boolean enabled = false;
+        private String directory = "data/spool";
+        /** Size of each memory-mapped segment file; also the largest envelope that can be spooled. */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        /** Beyond this many pending bytes envelopes are refused (503) instead of spooled. */
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+        private Fsync fsync = Fsync.INTERVAL;
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+        /** Check each record's CRC32C when replaying and skip records that fail. */
+        private boolean verifyCrc = true;
+        /** Cap on replayed envelopes per second; 0 replays as fast as the publish window admits. */
+        private double drainRate = 0;
+        private Duration drainInterval = Duration.ofMillis(200);
+        /** Pause after a replay batch is not fully acknowledged. */
+        private Duration retryBackoff = Duration.ofSeconds(5);
+        /** How long the drainer waits for a replay batch to be acknowledged. */
+        private Duration sendTimeout = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Fsync getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(Fsync fsync) {
+            this.fsync = fsync;
+        }
+
+        public Duration getFsyncInterval() {
+            return fsyncInterval;
+        }
+
+        public void setFsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+        }
+
+        public boolean isVerifyCrc() {
+            return verifyCrc;
+        }
+
+        public void setVerifyCrc(boolean verifyCrc) {
+            this.verifyCrc = verifyCrc;
+        }
+
+        public double getDrainRate() {
+            return drainRate;
+        }
+
+        public void setDrainRate(double drainRate) {
+            this.drainRate = drainRate;
+        }
+
+        public Duration getDrainInterval() {
+            return drainInterval;
+        }
+
+        public void setDrainInterval(Duration drainInterval) {
+            this.drainInterval = drainInterval;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Duration getSendTimeout() {
+            return sendTimeout;
+        }
+
+        public void setSendTimeout(Duration sendTimeout) {
+            this.sendTimeout = sendTimeout;
+        }
+
+        /**
+         * When spooled records are forced to disk. Until then they survive a crash of the process (the
+         * pages belong to the OS) but not of the machine.
+         */
+        public enum Fsync {
+            /** Before the append returns, i.e. before the 202. */
+            ALWAYS,
+            /** Every fsync-interval. */
+            INTERVAL,
+            /** Left to the OS. */
+            NEVER
+        }
+    }
+
+    /**
+     * Optional TCP listener for internal producers: persistent connections that authenticate once and then
+     * stream events as JSON lines or length-prefixed JSON frames.
+     */
+    public static class Tcp {
+        private boolean enabled = false;
+        private String bindAddress = "0.0.0.0";
+        private int port = 7070;
+        /** Largest single event frame; a connection sending a larger one is closed. */
+        private DataSize maxFrameSize = DataSize.ofKilobytes(256);
+        /** How often reading is retried on connections suspended because the publish window was full. */
+        private Duration resumeInterval = Duration.ofMillis(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getBindAddress() {
+            return bindAddress;
+        }
+
+        public void setBindAddress(String bindAddress) {
+            this.bindAddress = bindAddress;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public DataSize getMaxFrameSize() {
+            return maxFrameSize;
+        }
+
+        public void setMaxFrameSize(DataSize maxFrameSize) {
+            this.maxFrameSize = maxFrameSize;
+        }
+
+        public Duration getResumeInterval() {
+            return resumeInterval;
+        }
+
+        public void setResumeInterval(Duration resumeInterval) {
+            this.resumeInterval = resumeInterval;
+        }
+    }
+
+    /**
+     * Limits checked while the body of {@code POST /api/events} streams in, before it is bound to an
+     * EventRequest. Size is answered with 413, depth and field count with 400.
+     */
+    public static class RequestLimits {
+        private boolean enabled = true;
+        /** Largest request body. */
+        private DataSize maxSize = DataSize.ofMegabytes(1);
+        /** Deepest nesting of objects and arrays, counting the event object itself as 1. */
+        private int maxDepth = 32;
+        /** Field names in the whole body, the event object's own included. */
+        private int maxFields = 1_000;
+        /** Per-eventType overrides; unset values fall back to the limits above. */
+        private Map<String, EventTypeLimits> eventTypes = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxFields() {
+            return maxFields;
+        }
+
+        public void setMaxFields(int maxFields) {
+            this.maxFields = maxFields;
+        }
+
+        public Map<String, EventTypeLimits> getEventTypes() {
+            return eventTypes;
+        }
+
+        public void setEventTypes(Map<String, EventTypeLimits> eventTypes) {
+            this.eventTypes = eventTypes;
+        }
+
+        public static class EventTypeLimits {
+            private DataSize maxSize;
+            private Integer maxDepth;
+            private Integer maxFields;
+
+            public DataSize getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(DataSize maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Integer getMaxDepth() {
+                return maxDepth;
+            }
+
+            public void setMaxDepth(Integer maxDepth) {
+                this.maxDepth = maxDepth;
+            }
+
+            public Integer getMaxFields() {
+                return maxFields;
+            }
+
+            public void setMaxFields(Integer maxFields) {
+                this.maxFields = maxFields;
+            }
+        }
+    }
+
+    /**
+     * Payload schemas from events-schema ({@code PayloadSchemas.standard()}), checked before an event is
+     * published; a mismatch is answered with 400. Off unless enabled.
+     */
+    public static class Validation {
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
     }
 }
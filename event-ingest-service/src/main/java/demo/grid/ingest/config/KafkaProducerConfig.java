@@ -1,15 +1,18 @@
 package demo.grid.ingest.config;
 
 import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.kafka.EventEnvelopeSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -17,21 +20,70 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    /** Bean name of the template used for atomic batches; only present when a transaction-id prefix is set. */
+    public static final String TRANSACTIONAL_TEMPLATE = "transactionalKafkaTemplate";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
     @Bean
-    public ProducerFactory<String, EventEnvelope> producerFactory() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
-        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new JsonSerializer<>());
+    @Primary
+    public ProducerFactory<String, EventEnvelope> producerFactory(IngestProperties properties,
+                                                                  HotKeyTracker hotKeyTracker) {
+        return newProducerFactory(properties, producerProps(properties, hotKeyTracker));
     }
 
     @Bean
+    @Primary
     public KafkaTemplate<String, EventEnvelope> kafkaTemplate(ProducerFactory<String, EventEnvelope> producerFactory) {
         return new KafkaTemplate<>(producerFactory);
     }
+
+    /**
+     * Separate idempotent, transactional producer so single-event publishes keep their non-transactional
+     * fast path. Each transaction takes a producer from the factory's cache, so concurrent atomic batches
+     * do not serialize on one transactional.id.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka", name = "transaction-id-prefix")
+    public ProducerFactory<String, EventEnvelope> transactionalProducerFactory(IngestProperties properties,
+                                                                               HotKeyTracker hotKeyTracker) {
+        Map<String, Object> props = producerProps(properties, hotKeyTracker);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, EventEnvelope> factory = newProducerFactory(properties, props);
+        factory.setTransactionIdPrefix(properties.getKafka().getTransactionIdPrefix());
+        return factory;
+    }
+
+    @Bean(TRANSACTIONAL_TEMPLATE)
+    @ConditionalOnProperty(prefix = "app.kafka", name = "transaction-id-prefix")
+    public KafkaTemplate<String, EventEnvelope> transactionalKafkaTemplate(
+            @Qualifier("transactionalProducerFactory") ProducerFactory<String, EventEnvelope> transactionalProducerFactory) {
+        return new KafkaTemplate<>(transactionalProducerFactory);
+    }
+
+    private Map<String, Object> producerProps(IngestProperties properties, HotKeyTracker hotKeyTracker) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventEnvelopeSerializer.class);
+        IngestProperties.Producer producer = properties.getProducer();
+        if (producer.getProfile() == IngestProperties.Producer.Profile.THROUGHPUT) {
+            props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producer.getCompression());
+            props.put(ProducerConfig.BATCH_SIZE_CONFIG, producer.getBatchSize());
+            props.put(ProducerConfig.LINGER_MS_CONFIG, (int) producer.getLinger().toMillis());
+        }
+        if (properties.getPartitioner().isEnabled()) {
+            props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, HotKeyPartitioner.class);
+            props.put(HotKeyPartitioner.TRACKER_CONFIG, hotKeyTracker);
+        }
+        return props;
+    }
+
+    private static DefaultKafkaProducerFactory<String, EventEnvelope> newProducerFactory(
+            IngestProperties properties, Map<String, Object> props) {
+        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(),
+                new EventEnvelopeSerializer(properties.getKafka().getWireFormat()));
+    }
 }
@@ -0,0 +1,79 @@
+package demo.grid.ingest.config;
+
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the producer's batching settings, as chosen by the producer profile, and how full its batches
+ * actually get. The settings are fixed for the life of the producer; the fill ratio is read from the
+ * client's own metrics on each scrape.
+ */
+@Component
+public class ProducerBatchMetrics {
+
+    private static final String PRODUCER_METRICS = "producer-metrics";
+    private static final int CLIENT_DEFAULT_BATCH_SIZE = 16_384;
+
+    private final ProducerFactory<String, EventEnvelope> producerFactory;
+    private final KafkaTemplate<String, EventEnvelope> kafkaTemplate;
+
+    public ProducerBatchMetrics(ProducerFactory<String, EventEnvelope> producerFactory,
+                                KafkaTemplate<String, EventEnvelope> kafkaTemplate,
+                                MeterRegistry meterRegistry) {
+        this.producerFactory = producerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        TimeGauge.builder("ingest.producer.linger", this, TimeUnit.MILLISECONDS, ProducerBatchMetrics::lingerMs)
+                .description("Producer linger.ms")
+                .register(meterRegistry);
+        Gauge.builder("ingest.producer.batch.size", this, ProducerBatchMetrics::batchSize)
+                .description("Producer batch.size limit")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ingest.producer.batch.fill.ratio", this, ProducerBatchMetrics::batchFillRatio)
+                .description("Producer batch-size-avg as a fraction of batch.size")
+                .register(meterRegistry);
+        Gauge.builder("ingest.producer.compression", () -> 1)
+                .description("Producer compression codec (tag)")
+                .tag("codec", config(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none"))
+                .register(meterRegistry);
+    }
+
+    double batchFillRatio() {
+        return metric(kafkaTemplate.metrics(), "batch-size-avg") / batchSize();
+    }
+
+    int lingerMs() {
+        return Integer.parseInt(config(ProducerConfig.LINGER_MS_CONFIG, "0"));
+    }
+
+    int batchSize() {
+        return Integer.parseInt(config(ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(CLIENT_DEFAULT_BATCH_SIZE)));
+    }
+
+    private String config(String key, String defaultValue) {
+        Object value = producerFactory.getConfigurationProperties().get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (PRODUCER_METRICS.equals(metricName.group()) && name.equals(metricName.name())
+                    && entry.getValue().metricValue() instanceof Number value) {
+                return value.doubleValue();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,258 @@
+package demo.grid.ingest.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import demo.grid.ingest.config.EventBodyLimits.LimitExceeded;
+import demo.grid.ingest.config.EventBodyLimits.Reason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Checks the body of {@code POST /api/events} against {@code app.request-limits} while it is read, before
+ * the controller binds it: the body is tokenized as it streams in and the read stops at the first limit
+ * crossed, answering 413 for size and 400 for nesting depth, field count or malformed JSON. No tree is
+ * built; an accepted body is kept as one byte array and replayed to the controller. Which limits apply
+ * is decided by {@link EventBodyLimits}.
+ */
+public class RequestLimitFilter extends OncePerRequestFilter {
+
+    private final EventBodyLimits limits;
+    private final long ceilingBytes;
+    private final JsonFactory jsonFactory;
+    private final Map<Reason, Counter> rejected = new EnumMap<>(Reason.class);
+
+    public RequestLimitFilter(IngestProperties properties, JsonFactory jsonFactory, MeterRegistry meterRegistry) {
+        this.limits = EventBodyLimits.of(properties.getRequestLimits());
+        this.ceilingBytes = limits.ceiling().maxBytes();
+        if (ceilingBytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("app.request-limits max-size must be below 2GB");
+        }
+        this.jsonFactory = jsonFactory;
+        for (Reason reason : Reason.values()) {
+            rejected.put(reason, Counter.builder("ingest.api.bodies.rejected")
+                    .description("Event bodies refused before binding, by the limit they crossed")
+                    .tag("reason", reason.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long declared = request.getContentLengthLong();
+        if (declared > ceilingBytes) {
+            reject(response, Reason.SIZE, "Request body exceeds " + ceilingBytes + " bytes");
+            return;
+        }
+        byte[] body;
+        try {
+            body = inspect(request.getInputStream(), declared);
+        } catch (LimitExceeded e) {
+            reject(response, e.reason(), e.getMessage());
+            return;
+        } catch (JsonProcessingException e) {
+            reject(response, Reason.MALFORMED, "Malformed event: " + e.getOriginalMessage());
+            return;
+        }
+        filterChain.doFilter(new BufferedBodyRequest(request, body), response);
+    }
+
+    /**
+     * Reads and tokenizes the body, stopping at the first limit crossed.
+     *
+     * @return the body bytes, for the controller to read again
+     */
+    byte[] inspect(InputStream in, long declaredLength) throws IOException {
+        CapturingInputStream body = new CapturingInputStream(in, declaredLength, ceilingBytes);
+        EventBodyLimits.Tracker tracker = limits.track();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                throw new LimitExceeded(Reason.MALFORMED, "Expected an event object");
+            }
+            do {
+                tracker.token(parser, token, Math.max(declaredLength, body.count()));
+                body.limit(tracker.maxBytes());
+            } while (tracker.depth() > 0 && (token = parser.nextToken()) != null);
+            if (tracker.depth() > 0) {
+                throw new LimitExceeded(Reason.MALFORMED, "Unexpected end of the event object");
+            }
+            // Whatever follows the object is left to the controller; it still counts towards the size.
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        tracker.end(body.count());
+        return body.bytes();
+    }
+
+    private void reject(HttpServletResponse response, Reason reason, String message) throws IOException {
+        rejected.get(reason).increment();
+        response.setStatus(reason.status().value());
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + reason.status().getReasonPhrase() + "\",\"message\":\""
+                + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}");
+    }
+
+    /**
+     * Copies what the parser reads into one array, sized from Content-Length when there is one, and fails
+     * as soon as more than the limit has arrived.
+     */
+    private static final class CapturingInputStream extends FilterInputStream {
+        private byte[] buffer;
+        private int count;
+        private long limit;
+
+        CapturingInputStream(InputStream in, long declaredLength, long limit) {
+            super(in);
+            this.limit = limit;
+            this.buffer = new byte[declaredLength >= 0 ? (int) declaredLength : 8_192];
+        }
+
+        void limit(long limit) {
+            this.limit = limit;
+        }
+
+        int count() {
+            return count;
+        }
+
+        byte[] bytes() {
+            return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                ensureRoom(1);
+                buffer[count++] = (byte) b;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                ensureRoom(n);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+            }
+            return n;
+        }
+
+        private void ensureRoom(int n) {
+            if (count + n > limit) {
+                throw EventBodyLimits.sizeExceeded(limit);
+            }
+            if (count + n > buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(Math.max(buffer.length * 2L, count + n), limit));
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return read(new byte[(int) Math.min(n, 8_192)]);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /** Replays the inspected body to the rest of the chain. */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // Everything is already in memory, so the listener can be told at once.
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), charset));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package demo.grid.ingest.config;
+
+import demo.grid.schema.PayloadSchemas;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Payload validation is opt-in: app.validation.enabled=true (PAYLOAD_VALIDATION_ENABLED).
+ */
+@Configuration
+public class ValidationConfig {
+
+    /**
+     * Compiled once at startup; {@code EventIngestService} checks every payload against it before publishing.
+     */
+    @Bean
+    public PayloadSchemas payloadSchemas(IngestProperties properties) {
+        return properties.getValidation().isEnabled() ? PayloadSchemas.standard() : PayloadSchemas.none();
+    }
+}
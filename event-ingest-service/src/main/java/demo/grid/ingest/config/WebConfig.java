@@ -1,5 +1,9 @@
 package demo.grid.ingest.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.ingest.api.RawPayloadEventRequestConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,11 +21,41 @@ public class WebConfig {
     }
 
     @Bean
-    public FilterRegistrationBean<ApiKeyFilter> apiKeyFilter(IngestProperties properties) {
+    public FilterRegistrationBean<ApiKeyFilter> apiKeyFilter(IngestProperties properties, MeterRegistry meterRegistry) {
         FilterRegistrationBean<ApiKeyFilter> registration = new FilterRegistrationBean<>();
-        registration.setFilter(new ApiKeyFilter(properties.getApiKey()));
+        registration.setFilter(new ApiKeyFilter(properties, meterRegistry));
         registration.addUrlPatterns("/api/*");
         registration.setOrder(1);
         return registration;
     }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.request-limits", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<RequestLimitFilter> requestLimitFilter(IngestProperties properties,
+                                                                         ObjectMapper objectMapper,
+                                                                         MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RequestLimitFilter> registration = new FilterRegistrationBean<>();
+        registration.setFilter(new RequestLimitFilter(properties, objectMapper.getFactory(), meterRegistry));
+        registration.addUrlPatterns("/api/events");
+        registration.setOrder(2);
+        return registration;
+    }
+
+    /**
+     * Picked up by Boot's HttpMessageConverters and placed ahead of the default Jackson converter.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.payload", name = "passthrough", havingValue = "true")
+    public RawPayloadEventRequestConverter rawPayloadEventRequestConverter(IngestProperties properties,
+                                                                           ObjectMapper objectMapper) {
+        // The largest body any event type may send, whether or not the request-limit filter runs.
+        IngestProperties.RequestLimits limits = properties.getRequestLimits();
+        long maxBodyBytes = limits.getMaxSize().toBytes();
+        for (IngestProperties.RequestLimits.EventTypeLimits override : limits.getEventTypes().values()) {
+            if (override.getMaxSize() != null) {
+                maxBodyBytes = Math.max(maxBodyBytes, override.getMaxSize().toBytes());
+            }
+        }
+        return new RawPayloadEventRequestConverter(objectMapper.getFactory(), maxBodyBytes);
+    }
 }
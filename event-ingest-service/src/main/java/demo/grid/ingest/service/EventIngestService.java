@@ -1,59 +1,223 @@
 package demo.grid.ingest.service;
 
+import demo.grid.schema.EnvelopeFactory;
 import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTopics;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.PayloadSchemas;
 import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.config.KafkaProducerConfig;
+import demo.grid.ingest.spool.Spool;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
-import java.time.Instant;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class EventIngestService {
 
     private static final String SOURCE = "event-ingest-service";
-    private static final String VERSION = "1";
 
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory(SOURCE);
     private final KafkaTemplate<String, EventEnvelope> kafkaTemplate;
+    private final KafkaTemplate<String, EventEnvelope> transactionalTemplate;
     private final IngestProperties properties;
+    private final PublishWindow window;
+    private final Spool spool;
+    private final PayloadSchemas schemas;
 
     public EventIngestService(
             KafkaTemplate<String, EventEnvelope> kafkaTemplate,
-            IngestProperties properties) {
+            @Qualifier(KafkaProducerConfig.TRANSACTIONAL_TEMPLATE)
+            Optional<KafkaTemplate<String, EventEnvelope>> transactionalTemplate,
+            IngestProperties properties,
+            PublishWindow window,
+            Optional<Spool> spool,
+            PayloadSchemas schemas) {
         this.kafkaTemplate = kafkaTemplate;
+        this.transactionalTemplate = transactionalTemplate.orElse(null);
         this.properties = properties;
+        this.window = window;
+        this.spool = spool.orElse(null);
+        this.schemas = schemas;
     }
 
     public EventEnvelope publish(String eventType, JsonNode payload, String correlationId) {
-        Instant now = Instant.now();
-        UUID eventId = UUID.randomUUID();
-        String correlation = correlationId != null && !correlationId.isBlank() ? correlationId : eventId.toString();
-
-        EventEnvelope envelope = new EventEnvelope(
-                eventId,
-                eventType != null && !eventType.isBlank() ? eventType : "GENERIC",
-                now,
-                now,
-                SOURCE,
-                correlation,
-                payload,
-                VERSION
-        );
+        return publishAsync(eventType, payload, correlationId).envelope();
+    }
+
+    /**
+     * Builds the envelope and hands it to the producer without waiting for the broker.
+     * Callers that need the outcome (e.g. batch ingest) wait on {@link PendingPublish#ack()}.
+     * <p>
+     * With the spool enabled, an envelope that Kafka cannot take (window full, send failed) is spooled
+     * instead, and its ack completes once it is on disk. While the spool holds anything, new envelopes go
+     * straight to it so the drainer replays them in order.
+     *
+     * @throws demo.grid.schema.PayloadValidationException if the payload does not match its event type's schema
+     * @throws PublishRejectedException if the in-flight window is full and the envelope could not be spooled
+     */
+    public PendingPublish publishAsync(String eventType, JsonNode payload, String correlationId) {
+        schemas.validate(eventType, payload);
+        EventEnvelope envelope = envelopeFactory.create(eventType, payload, correlationId);
+        if (spool == null) {
+            return new PendingPublish(envelope, send(kafkaTemplate, envelope));
+        }
+        if (!spool.isEmpty()) {
+            return spooled(envelope, null);
+        }
+        CompletableFuture<Void> ack;
+        try {
+            ack = send(kafkaTemplate, envelope);
+        } catch (PublishRejectedException | KafkaException | org.apache.kafka.common.KafkaException e) {
+            return spooled(envelope, e);
+        }
+        // A send that fails after the client was answered ends up in the spool instead of being lost.
+        return new PendingPublish(envelope, ack.exceptionallyCompose(ex -> spool.offer(envelope)
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.failedFuture(ex)));
+    }
+
+    /**
+     * Sends a spooled envelope as it is, bypassing the spool.
+     *
+     * @throws PublishRejectedException if the in-flight window is full
+     */
+    public CompletableFuture<Void> republish(EventEnvelope envelope) {
+        return send(kafkaTemplate, envelope);
+    }
+
+    public boolean supportsTransactions() {
+        return transactionalTemplate != null;
+    }
+
+    /** Largest batch {@link #publishAtomically} accepts: the whole transaction must fit in the publish window. */
+    public int maxAtomicBatchSize() {
+        return window.capacity();
+    }
+
+    /**
+     * Publishes all drafts in one Kafka transaction: either every envelope becomes visible to
+     * {@code read_committed} consumers or none does. Returns once the transaction has committed.
+     *
+     * Window slots for every envelope are taken before the transaction starts, so a transaction is never
+     * aborted half-way because the window filled up.
+     *
+     * @throws IllegalStateException    if no transactional producer is configured
+     * @throws IllegalArgumentException if there are more drafts than {@link #maxAtomicBatchSize()}
+     * @throws demo.grid.schema.PayloadValidationException if any payload does not match its schema; nothing is sent
+     * @throws PublishRejectedException if the in-flight window has no room for the batch; nothing is sent
+     * @throws RuntimeException         a Spring or client {@code KafkaException} if a send or the commit fails;
+     *                                  the transaction is aborted
+     */
+    public List<EventEnvelope> publishAtomically(List<EventDraft> drafts, String correlationId) {
+        if (transactionalTemplate == null) {
+            throw new IllegalStateException("Transactional publishing is not configured (app.kafka.transaction-id-prefix)");
+        }
+        if (drafts.size() > window.capacity()) {
+            throw new IllegalArgumentException("Atomic batch of " + drafts.size() + " events exceeds "
+                    + window.capacity() + " (app.publish.max-in-flight)");
+        }
+        for (EventDraft draft : drafts) {
+            schemas.validate(draft.eventType(), draft.payload());
+        }
+        List<EventEnvelope> envelopes = new ArrayList<>(drafts.size());
+        for (EventDraft draft : drafts) {
+            envelopes.add(envelopeFactory.create(draft.eventType(), draft.payload(), correlationId));
+        }
+        if (!window.tryAcquire(envelopes.size())) {
+            throw new PublishRejectedException("Too many events awaiting Kafka acknowledgement",
+                    properties.getPublish().getRetryAfter());
+        }
+        int[] sent = {0};
+        try {
+            // commitTransaction flushes and fails if any send failed, so the acks need no separate wait.
+            transactionalTemplate.executeInTransaction(operations -> {
+                for (EventEnvelope envelope : envelopes) {
+                    sent[0]++;
+                    sendHoldingSlot(operations, envelope);
+                }
+                return null;
+            });
+        } finally {
+            window.releaseUnused(envelopes.size() - sent[0]);
+        }
+        return envelopes;
+    }
+
+    private String topic(EventEnvelope envelope) {
+        IngestProperties.Kafka kafka = properties.getKafka();
+        return kafka.isRouteByType() ? EventTopics.forType(kafka.getTopic(), envelope.eventType()) : kafka.getTopic();
+    }
+
+    private PendingPublish spooled(EventEnvelope envelope, RuntimeException cause) {
+        if (spool.offer(envelope)) {
+            return new PendingPublish(envelope, CompletableFuture.completedFuture(null));
+        }
+        if (cause != null) {
+            throw cause;
+        }
+        throw new PublishRejectedException("Kafka is not keeping up and the spool is full",
+                properties.getPublish().getRetryAfter());
+    }
+
+    private CompletableFuture<Void> send(KafkaOperations<String, EventEnvelope> operations, EventEnvelope envelope) {
+        if (!window.tryAcquire()) {
+            throw new PublishRejectedException("Too many events awaiting Kafka acknowledgement",
+                    properties.getPublish().getRetryAfter());
+        }
+        return sendHoldingSlot(operations, envelope);
+    }
+
+    /** Sends with a window slot the caller already took; the slot is released however the send ends. */
+    private CompletableFuture<Void> sendHoldingSlot(KafkaOperations<String, EventEnvelope> operations,
+                                                   EventEnvelope envelope) {
+        String correlation = envelope.correlationId();
 
         Message<EventEnvelope> message = MessageBuilder
                 .withPayload(envelope)
-                .setHeader(KafkaHeaders.TOPIC, properties.getKafka().getTopic())
+                .setHeader(KafkaHeaders.TOPIC, topic(envelope))
                 .setHeader(KafkaHeaders.KEY, correlation)
                 .setHeader("correlationId", correlation)
-                .setHeader("eventId", eventId.toString())
+                .setHeader("eventId", envelope.eventId().toString())
+                // Raw bytes: the header mapper would JSON-encode other values, and consumers filter on it undecoded.
+                .setHeader(EventTypes.HEADER, envelope.eventType().getBytes(StandardCharsets.UTF_8))
                 .build();
 
-        kafkaTemplate.send(message);
-        return envelope;
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, EventEnvelope>> send;
+        try {
+            send = operations.send(message);
+        } catch (RuntimeException e) {
+            window.release(start, false);
+            throw e;
+        }
+        // Drop the SendResult so a waiting caller does not pin the record (and its payload) in memory.
+        return send
+                .whenComplete((result, ex) -> window.release(start, ex == null))
+                .thenAccept(result -> { });
     }
+
+    /**
+     * An envelope handed to Kafka together with the future completed by the broker acknowledgement.
+     */
+    public record PendingPublish(EventEnvelope envelope, CompletableFuture<Void> ack) {}
+
+    /**
+     * Type and payload of an event that has no envelope yet.
+     */
+    public record EventDraft(String eventType, JsonNode payload) {}
 }
@@ -0,0 +1,91 @@
+package demo.grid.ingest.service;
+
+import demo.grid.ingest.config.IngestProperties;
+
+/**
+ * Estimates how many sends may be in flight from their acknowledgement latency, in the manner of the
+ * gradient limiters in Netflix's concurrency-limits. Latency is averaged over short windows and compared
+ * with a slow moving average of past windows:
+ * <pre>
+ * gradient = clamp(rtt-tolerance * longRtt / shortRtt, 0.5, 1)
+ * estimate = limit * gradient + sqrt(limit)
+ * limit    = limit * (1 - smoothing) + estimate * smoothing
+ * </pre>
+ * While latency stays within tolerance the gradient is 1 and the limit grows by the square-root headroom;
+ * when sends start queueing at the broker, shortRtt rises and the limit is cut by up to half per window.
+ * Windows in which less than half the limit was used say nothing about capacity and leave it alone.
+ * <p>
+ * Samples arrive from producer callback threads, so updates are synchronized; {@link #limit()} is not.
+ */
+final class GradientLimit {
+
+    static final int MIN_SAMPLES = 10;
+    /** Windows in the long-run average, e.g. a minute of 100ms windows. */
+    static final int LONG_WINDOWS = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+
+    private double limit;
+    private double longRtt = Double.NaN;
+    private long windowStart;
+    private long rttSum;
+    private int samples;
+    private int peakInFlight;
+    private volatile int current;
+
+    GradientLimit(IngestProperties.Publish.Adaptive config, int maxLimit, long nowNanos) {
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.min(config.getMinLimit(), maxLimit);
+        this.tolerance = config.getRttTolerance();
+        this.smoothing = config.getSmoothing();
+        this.windowNanos = config.getSampleWindow().toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+        this.current = (int) limit;
+        this.windowStart = nowNanos;
+    }
+
+    int limit() {
+        return current;
+    }
+
+    /**
+     * @param inFlight sends in flight when this one completed, itself included
+     */
+    synchronized void onSample(long nowNanos, long rttNanos, int inFlight) {
+        rttSum += rttNanos;
+        samples++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        if (samples < MIN_SAMPLES || nowNanos - windowStart < windowNanos) {
+            return;
+        }
+        update((double) rttSum / samples, peakInFlight);
+        windowStart = nowNanos;
+        rttSum = 0;
+        samples = 0;
+        peakInFlight = 0;
+    }
+
+    private void update(double shortRtt, int inFlight) {
+        if (Double.isNaN(longRtt)) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / LONG_WINDOWS;
+        }
+        // After a long slowdown the average has crept up; once latency recovers, pull it back down faster
+        // so it does not excuse the next slowdown.
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + estimate * smoothing));
+        current = (int) limit;
+    }
+}
@@ -0,0 +1,108 @@
+package demo.grid.ingest.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.service.EventIngestService.PendingPublish;
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which event was published for each client's {@code Idempotency-Key}, so a retried request gets
+ * the original eventId back instead of a new event. Keys are scoped by client, so two clients choosing the
+ * same key do not suppress each other's events. Entries expire after {@code app.idempotency.ttl}; total size
+ * is bounded by {@code app.idempotency.max-memory}, using an estimate of each entry's heap footprint.
+ * <p>
+ * Keys are only remembered by this instance: behind a load balancer, a retry that reaches another
+ * instance is published again.
+ */
+@Component
+public class IdempotencyCache {
+
+    static final String CACHE_NAME = "ingest.idempotency";
+
+    /**
+     * Approximate heap cost of one entry apart from the key's characters: cache node, scope record, key String
+     * header, future, UUID and the entry record. The client name and event type are shared constants.
+     */
+    static final int ENTRY_OVERHEAD_BYTES = 200;
+
+    private final AsyncCache<Scope, Entry> cache;
+
+    @Autowired
+    public IdempotencyCache(IngestProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    IdempotencyCache(IngestProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        IngestProperties.Idempotency config = properties.getIdempotency();
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(config.getTtl())
+                .maximumWeight(config.getMaxMemory().toBytes())
+                .weigher((Scope scope, Entry entry) -> ENTRY_OVERHEAD_BYTES + 2 * scope.key().length())
+                .ticker(ticker)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("ingest.idempotency.memory", cache.synchronous(),
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .description("Estimated heap used by remembered Idempotency-Keys")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code publish} unless an event was already published under {@code client}'s {@code key}. The
+     * first call returns once the event is handed to the producer, like a request without a key. The key
+     * counts as published only once the broker acknowledges the event: a repeat arriving before that waits
+     * for the acknowledgement, and if the send fails (or {@code publish} throws) the key is forgotten, so
+     * the client's retry publishes normally.
+     */
+    public Outcome publishOnce(String client, String key, Supplier<PendingPublish> publish) {
+        Scope scope = new Scope(client, key);
+        while (true) {
+            AtomicReference<EventEnvelope> published = new AtomicReference<>();
+            CompletableFuture<Entry> entry = cache.get(scope, (s, executor) -> {
+                PendingPublish pending = publish.get();
+                EventEnvelope envelope = pending.envelope();
+                published.set(envelope);
+                return pending.ack().thenApply(ack -> new Entry(envelope.eventId(), envelope.eventType()));
+            });
+            EventEnvelope envelope = published.get();
+            if (envelope != null) {
+                return new Outcome(envelope.eventId(), envelope.eventType(), false);
+            }
+            try {
+                Entry remembered = entry.join();
+                return new Outcome(remembered.eventId(), remembered.eventType(), true);
+            } catch (CompletionException e) {
+                // The earlier send failed: Caffeine drops the entry, but maybe not before this retry looks again.
+                cache.asMap().remove(scope, entry);
+            }
+        }
+    }
+
+    void cleanUp() {
+        cache.synchronous().cleanUp();
+    }
+
+    private record Scope(String client, String key) {}
+
+    private record Entry(UUID eventId, String eventType) {}
+
+    /**
+     * @param replayed true if the event had already been published under this key
+     */
+    public record Outcome(UUID eventId, String eventType, boolean replayed) {}
+}
@@ -0,0 +1,21 @@
+package demo.grid.ingest.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an event cannot be handed to Kafka right now (e.g. the in-flight window is full).
+ * The client should retry after {@link #getRetryAfter()}.
+ */
+public class PublishRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PublishRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
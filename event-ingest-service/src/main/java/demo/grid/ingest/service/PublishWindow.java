@@ -0,0 +1,128 @@
+package demo.grid.ingest.service;
+
+import demo.grid.ingest.config.IngestProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounds the number of Kafka sends that have not been acknowledged yet.
+ * Slots are taken before {@code send} and returned from the completion callback, so a slow broker
+ * fills the window instead of the producer buffer and request threads are never parked in {@code send}.
+ * A publish that finds the window full is refused at once (503 over HTTP).
+ * <p>
+ * With {@code app.publish.adaptive.enabled}, the window size is a {@link GradientLimit} fed by every
+ * acknowledgement's latency, so the service admits as many concurrent publishes as the broker currently
+ * absorbs without queueing, up to {@code max-in-flight}.
+ */
+@Component
+public class PublishWindow {
+
+    private final int capacity;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final GradientLimit adaptiveLimit;
+    private final LongSupplier nanoClock;
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
+    private final Counter rejected;
+
+    @Autowired
+    public PublishWindow(IngestProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    PublishWindow(IngestProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        IngestProperties.Publish config = properties.getPublish();
+        this.capacity = config.getMaxInFlight();
+        this.nanoClock = nanoClock;
+        this.adaptiveLimit = config.getAdaptive().isEnabled()
+                ? new GradientLimit(config.getAdaptive(), capacity, nanoClock.getAsLong())
+                : null;
+        Gauge.builder("ingest.publish.inflight", this, PublishWindow::inFlight)
+                .description("Kafka sends awaiting broker acknowledgement")
+                .register(meterRegistry);
+        Gauge.builder("ingest.publish.window.capacity", this, w -> w.capacity)
+                .description("Maximum unacknowledged Kafka sends")
+                .register(meterRegistry);
+        Gauge.builder("ingest.publish.window.limit", this, PublishWindow::limit)
+                .description("Current in-flight limit; below capacity while the adaptive limit holds it back")
+                .register(meterRegistry);
+        this.sendSuccess = sendTimer(meterRegistry, "success");
+        this.sendFailure = sendTimer(meterRegistry, "failure");
+        this.rejected = Counter.builder("ingest.publish.rejected")
+                .description("Publishes refused because the in-flight window was full")
+                .register(meterRegistry);
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("ingest.publish.send")
+                .description("Time from send to broker acknowledgement")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if a slot was taken; the caller must then call {@link #release} exactly once
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Takes {@code permits} slots at once, for sends that must all go out (a transaction). A run larger than
+     * the current limit is admitted when nothing else is in flight, so a low adaptive limit delays it instead
+     * of refusing it for good; runs larger than {@link #capacity()} are never admitted.
+     *
+     * @return true if the slots were taken; the caller must then call {@link #release} once per send and
+     *         {@link #releaseUnused} for slots it did not send with
+     */
+    public boolean tryAcquire(int permits) {
+        int limit = limit();
+        for (int current = inFlight.get();
+             current + permits <= limit || (current == 0 && permits <= capacity);
+             current = inFlight.get()) {
+            if (inFlight.compareAndSet(current, current + permits)) {
+                return true;
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /** Returns slots taken by {@link #tryAcquire(int)} that no send used. */
+    public void releaseUnused(int permits) {
+        inFlight.addAndGet(-permits);
+    }
+
+    public void release(long startNanos, boolean success) {
+        long now = nanoClock.getAsLong();
+        int released = inFlight.getAndDecrement();
+        long latency = now - startNanos;
+        (success ? sendSuccess : sendFailure).record(latency, TimeUnit.NANOSECONDS);
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onSample(now, latency, released);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Largest number of sends ever allowed in flight ({@code app.publish.max-in-flight}). */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Sends currently allowed in flight. */
+    public int limit() {
+        return adaptiveLimit != null ? adaptiveLimit.limit() : capacity;
+    }
+}
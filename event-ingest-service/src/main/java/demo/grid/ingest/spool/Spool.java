@@ -0,0 +1,117 @@
+package demo.grid.ingest.spool;
+
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.schema.EnvelopeBinaryCodec;
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Durable stand-in for Kafka while it cannot take envelopes. Envelopes are stored with
+ * {@link EnvelopeBinaryCodec} in a {@link SpoolJournal} under {@code app.spool.directory} and replayed
+ * by {@link SpoolDrainer}. Once anything is spooled, new envelopes are spooled behind it until the drainer
+ * has caught up, so the replay keeps them in ingest order.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.spool", name = "enabled", havingValue = "true")
+public class Spool implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(Spool.class);
+
+    private final SpoolJournal journal;
+    private final EnvelopeBinaryCodec codec = new EnvelopeBinaryCodec();
+    private final long maxBytes;
+    private final Counter appended;
+    private final Counter refused;
+
+    public Spool(IngestProperties properties, MeterRegistry meterRegistry) throws IOException {
+        IngestProperties.Spool config = properties.getSpool();
+        this.journal = new SpoolJournal(Path.of(config.getDirectory()), Math.toIntExact(config.getSegmentSize().toBytes()),
+                config.getFsync(), config.isVerifyCrc());
+        this.maxBytes = config.getMaxSize().toBytes();
+        if (!journal.isEmpty()) {
+            log.info("Spool at {} holds {} envelopes from a previous run", config.getDirectory(), journal.pendingRecords());
+        }
+        Gauge.builder("ingest.spool.depth", journal, SpoolJournal::pendingRecords)
+                .description("Envelopes spooled and not yet replayed to Kafka")
+                .register(meterRegistry);
+        Gauge.builder("ingest.spool.size", journal, SpoolJournal::pendingBytes)
+                .description("Bytes of spooled envelopes not yet replayed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ingest.spool.segments", journal, SpoolJournal::segmentCount)
+                .description("Spool segment files on disk")
+                .register(meterRegistry);
+        FunctionCounter.builder("ingest.spool.corrupt", journal, SpoolJournal::corruptRecords)
+                .description("Spooled records skipped because their CRC did not match")
+                .register(meterRegistry);
+        this.appended = Counter.builder("ingest.spool.appended")
+                .description("Envelopes written to the spool")
+                .register(meterRegistry);
+        this.refused = Counter.builder("ingest.spool.refused")
+                .description("Envelopes that could not be spooled (spool full or write failed)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if the envelope is in the spool; false if it is full or the write failed
+     */
+    public boolean offer(EventEnvelope envelope) {
+        if (journal.pendingBytes() >= maxBytes) {
+            refused.increment();
+            return false;
+        }
+        try {
+            journal.append(codec.encode(envelope));
+            appended.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not spool event {}: {}", envelope.eventId(), e.getMessage());
+            refused.increment();
+            return false;
+        }
+    }
+
+    /** Checked on every publish, so it does not take the journal lock. */
+    public boolean isEmpty() {
+        return journal.isEmpty();
+    }
+
+    List<SpoolJournal.Entry> read(int max) throws IOException {
+        return journal.read(max);
+    }
+
+    void commit(List<SpoolJournal.Entry> entries) throws IOException {
+        journal.commit(entries);
+    }
+
+    /**
+     * @throws IOException if the record is not a readable envelope
+     */
+    EventEnvelope decode(SpoolJournal.Entry entry) throws IOException {
+        if (entry.data() == null) {
+            throw new IOException("Spooled record failed its CRC check");
+        }
+        return codec.decode(entry.data());
+    }
+
+    void force() throws IOException {
+        journal.force();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        journal.close();
+    }
+}
@@ -0,0 +1,130 @@
+package demo.grid.ingest.spool;
+
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.service.EventIngestService;
+import demo.grid.ingest.service.PublishRejectedException;
+import demo.grid.ingest.service.PublishWindow;
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.KafkaException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays spooled envelopes to Kafka in spool order. Each tick sends batches sized to the publish window's
+ * free slots, waiting for each batch's acknowledgements, until the spool is empty. Replay therefore runs as
+ * fast as the broker acknowledges, so it catches up with ingest once Kafka recovers; {@code app.spool.drain-rate}
+ * optionally caps it. The spool is committed up to the last envelope of the acknowledged prefix. Anything
+ * after the first failure is sent again on a later tick, after {@code retry-backoff}, so a replay can
+ * duplicate events, which consumers drop by eventId.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.spool", name = "enabled", havingValue = "true")
+public class SpoolDrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolDrainer.class);
+
+    private final Spool spool;
+    private final EventIngestService ingestService;
+    private final PublishWindow window;
+    private final IngestProperties.Spool config;
+    private final Counter replayed;
+    private long retryAtNanos;
+
+    public SpoolDrainer(Spool spool, EventIngestService ingestService, PublishWindow window,
+                        IngestProperties properties, MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.ingestService = ingestService;
+        this.window = window;
+        this.config = properties.getSpool();
+        this.retryAtNanos = System.nanoTime();
+        this.replayed = Counter.builder("ingest.spool.replayed")
+                .description("Spooled records acknowledged by Kafka, or skipped as unreadable")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.spool.drain-interval:200ms}")
+    public void drain() throws IOException {
+        if (System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+        long budget = config.getDrainRate() > 0
+                ? (long) Math.max(1, config.getDrainRate() * config.getDrainInterval().toNanos() / 1e9)
+                : Long.MAX_VALUE;
+        while (budget > 0 && !spool.isEmpty()) {
+            int batch = (int) Math.min(budget, Math.max(1, window.limit() - window.inFlight()));
+            int acknowledged = replay(batch);
+            if (acknowledged < batch) {
+                return;
+            }
+            budget -= acknowledged;
+        }
+    }
+
+    /**
+     * Sends up to {@code max} spooled envelopes and commits the acknowledged prefix.
+     *
+     * @return envelopes committed; fewer than {@code max} if the spool ran out or a send failed
+     */
+    private int replay(int max) throws IOException {
+        List<SpoolJournal.Entry> entries = spool.read(max);
+        List<CompletableFuture<Void>> acks = new ArrayList<>(entries.size());
+        for (SpoolJournal.Entry entry : entries) {
+            EventEnvelope envelope;
+            try {
+                envelope = spool.decode(entry);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable spooled record: {}", e.getMessage());
+                acks.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            try {
+                acks.add(ingestService.republish(envelope));
+            } catch (PublishRejectedException | KafkaException | org.apache.kafka.common.KafkaException e) {
+                break;
+            }
+        }
+
+        int acknowledged = acknowledgedPrefix(acks);
+        spool.commit(entries.subList(0, acknowledged));
+        replayed.increment(acknowledged);
+        if (acknowledged < entries.size()) {
+            log.info("Spool replay stopped after {} of {} envelopes; retrying in {}", acknowledged, entries.size(),
+                    config.getRetryBackoff());
+            retryAtNanos = System.nanoTime() + config.getRetryBackoff().toNanos();
+        }
+        return acknowledged;
+    }
+
+    @Scheduled(fixedDelayString = "${app.spool.fsync-interval:1s}")
+    public void sync() throws IOException {
+        if (config.getFsync() == IngestProperties.Spool.Fsync.INTERVAL) {
+            spool.force();
+        }
+    }
+
+    private int acknowledgedPrefix(List<CompletableFuture<Void>> acks) {
+        long deadline = System.nanoTime() + config.getSendTimeout().toNanos();
+        for (int i = 0; i < acks.size(); i++) {
+            try {
+                acks.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return i;
+            } catch (Exception e) {
+                return i;
+            }
+        }
+        return acks.size();
+    }
+}
@@ -0,0 +1,317 @@
+package demo.grid.ingest.spool;
+
+import demo.grid.ingest.config.IngestProperties.Spool.Fsync;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of opaque records in fixed-size, memory-mapped segment files, read back in append
+ * order by a single consumer that commits how far it got.
+ * <pre>
+ * segment file   {@code <20-digit sequence>.seg}, segment-size bytes, zero-filled when created
+ * record         int32 length (&gt; 0), int32 CRC32C of the data, data
+ * end of data    a length of 0, or fewer than 8 bytes left in the segment
+ * checkpoint     {@code checkpoint}: int64 segment sequence, int32 offset of the next unread record
+ * </pre>
+ * The length is written last, so a reader never sees a record that is only partly written. After a crash
+ * the tail of the newest segment is checked record by record and cut at the first frame whose CRC does not
+ * match. Fully read segments are deleted on commit.
+ * <p>
+ * Methods that touch the segments are synchronized: appends are a copy into the mapped page cache and the
+ * reader takes the lock once per batch. The pending counts are read without the lock.
+ */
+final class SpoolJournal implements Closeable {
+
+    static final int HEADER_BYTES = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int CHECKPOINT_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Fsync fsync;
+    private final boolean verifyCrc;
+    private final FileChannel checkpoint;
+    private final NavigableSet<Long> segments = new TreeSet<>();
+    private final Map<Long, MappedByteBuffer> mapped = new HashMap<>();
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private long readSegment;
+    private int readOffset;
+    // Written under the lock, read without it: every publish checks isEmpty() while the spool is enabled.
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private long corruptRecords;
+
+    SpoolJournal(Path directory, int segmentBytes, Fsync fsync, boolean verifyCrc) throws IOException {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size must exceed " + HEADER_BYTES + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.verifyCrc = verifyCrc;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        this.checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /**
+     * @throws IOException if the record can never fit in a segment, or the next segment cannot be created
+     */
+    synchronized void append(byte[] data) throws IOException {
+        int frame = HEADER_BYTES + data.length;
+        if (frame > segmentBytes) {
+            throw new IOException("Record of " + data.length + " bytes does not fit in a " + segmentBytes + "-byte segment");
+        }
+        if (writeBuffer.position() + frame > segmentBytes) {
+            roll();
+        }
+        int offset = writeBuffer.position();
+        writeBuffer.putInt(offset + Integer.BYTES, crc(data, 0, data.length));
+        writeBuffer.put(offset + HEADER_BYTES, data);
+        writeBuffer.putInt(offset, data.length);
+        writeBuffer.position(offset + frame);
+        pendingRecords.incrementAndGet();
+        pendingBytes.addAndGet(frame);
+        if (fsync == Fsync.ALWAYS) {
+            writeBuffer.force(offset, frame);
+        }
+    }
+
+    /**
+     * Reads up to {@code max} records after the committed position without consuming them. A record that
+     * fails its CRC check is returned with {@code data == null} so the reader can count it and commit past it.
+     */
+    synchronized List<Entry> read(int max) throws IOException {
+        List<Entry> entries = new ArrayList<>(Math.min(max, 1_024));
+        long segment = readSegment;
+        int offset = readOffset;
+        ByteBuffer buffer = segment(segment);
+        while (entries.size() < max) {
+            int length = frameLength(buffer, offset);
+            if (length < 0) {
+                if (segment == writeSegment) {
+                    break;
+                }
+                segment = segments.higher(segment);
+                buffer = segment(segment);
+                offset = 0;
+                continue;
+            }
+            byte[] data = new byte[length];
+            buffer.get(offset + HEADER_BYTES, data);
+            boolean intact = !verifyCrc || buffer.getInt(offset + Integer.BYTES) == crc(data, 0, length);
+            offset += HEADER_BYTES + length;
+            entries.add(new Entry(intact ? data : null, HEADER_BYTES + length, segment, offset));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks {@code entries}, a prefix of what {@link #read} returned, as consumed.
+     */
+    synchronized void commit(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (Entry entry : entries) {
+            pendingRecords.decrementAndGet();
+            pendingBytes.addAndGet(-entry.frameBytes());
+            if (entry.data() == null) {
+                corruptRecords++;
+            }
+        }
+        Entry last = entries.get(entries.size() - 1);
+        readSegment = last.segment();
+        readOffset = last.nextOffset();
+        writeCheckpoint();
+        while (segments.first() < readSegment) {
+            long drained = segments.pollFirst();
+            mapped.remove(drained);
+            Files.deleteIfExists(path(drained));
+        }
+    }
+
+    /** Forces appended records and the checkpoint to disk. */
+    synchronized void force() throws IOException {
+        writeBuffer.force();
+        checkpoint.force(false);
+    }
+
+    boolean isEmpty() {
+        return pendingRecords.get() == 0;
+    }
+
+    long pendingRecords() {
+        return pendingRecords.get();
+    }
+
+    /** Pending bytes including record headers. */
+    long pendingBytes() {
+        return pendingBytes.get();
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    synchronized long corruptRecords() {
+        return corruptRecords;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fsync != Fsync.NEVER) {
+            force();
+        }
+        checkpoint.close();
+        mapped.clear();
+    }
+
+    private void recover() throws IOException {
+        if (checkpoint.size() >= CHECKPOINT_BYTES) {
+            ByteBuffer saved = ByteBuffer.allocate(CHECKPOINT_BYTES);
+            checkpoint.read(saved, 0);
+            readSegment = saved.getLong(0);
+            readOffset = saved.getInt(Long.BYTES);
+        } else {
+            readSegment = segments.isEmpty() ? 0 : segments.first();
+            readOffset = 0;
+        }
+        // Segments before the checkpoint were drained; a crash can leave them behind before deletion.
+        while (!segments.isEmpty() && segments.first() < readSegment) {
+            Files.deleteIfExists(path(segments.pollFirst()));
+        }
+        if (segments.isEmpty() || segments.first() > readSegment) {
+            readSegment = segments.isEmpty() ? readSegment : segments.first();
+            readOffset = 0;
+        }
+        if (segments.isEmpty()) {
+            segments.add(readSegment);
+        }
+
+        writeSegment = segments.last();
+        for (long segment : segments) {
+            ByteBuffer buffer = segment(segment);
+            int offset = segment == readSegment ? readOffset : 0;
+            boolean newest = segment == writeSegment;
+            int length;
+            while ((length = frameLength(buffer, offset)) >= 0) {
+                if (newest && !intact(buffer, offset, length)) {
+                    break;
+                }
+                pendingRecords.incrementAndGet();
+                pendingBytes.addAndGet(HEADER_BYTES + length);
+                offset += HEADER_BYTES + length;
+            }
+            if (newest) {
+                writeBuffer = mapped.get(segment);
+                // Zero a torn tail so shorter records appended over it are not followed by stale bytes.
+                zeroFrom(writeBuffer, offset);
+                writeBuffer.position(offset);
+            }
+        }
+    }
+
+    /** Zeroes {@code buffer} from {@code from} to the end, writing only chunks that are not zero already. */
+    private static void zeroFrom(ByteBuffer buffer, int from) {
+        byte[] chunk = new byte[8_192];
+        byte[] zeros = new byte[chunk.length];
+        for (int i = from; i < buffer.capacity(); i += chunk.length) {
+            int n = Math.min(chunk.length, buffer.capacity() - i);
+            buffer.get(i, chunk, 0, n);
+            if (!Arrays.equals(chunk, 0, n, zeros, 0, n)) {
+                buffer.put(i, zeros, 0, n);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (fsync != Fsync.NEVER) {
+            // Interval syncs only cover the current segment, so finish the old one now.
+            writeBuffer.force();
+        }
+        writeSegment++;
+        segments.add(writeSegment);
+        writeBuffer = segment(writeSegment);
+        writeBuffer.position(0);
+    }
+
+    private MappedByteBuffer segment(long segment) throws IOException {
+        MappedByteBuffer buffer = mapped.get(segment);
+        if (buffer == null) {
+            try (FileChannel channel = FileChannel.open(path(segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            }
+            mapped.put(segment, buffer);
+        }
+        return buffer;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer saved = ByteBuffer.allocate(CHECKPOINT_BYTES).putLong(readSegment).putInt(readOffset).flip();
+        checkpoint.write(saved, 0);
+        if (fsync == Fsync.ALWAYS) {
+            checkpoint.force(false);
+        }
+    }
+
+    /** @return the record length at {@code offset}, or -1 at the end of the segment's data */
+    private int frameLength(ByteBuffer buffer, int offset) {
+        if (segmentBytes - offset < HEADER_BYTES) {
+            return -1;
+        }
+        int length = buffer.getInt(offset);
+        return length > 0 && length <= segmentBytes - offset - HEADER_BYTES ? length : -1;
+    }
+
+    private boolean intact(ByteBuffer buffer, int offset, int length) {
+        byte[] data = new byte[length];
+        buffer.get(offset + HEADER_BYTES, data);
+        return buffer.getInt(offset + Integer.BYTES) == crc(data, 0, length);
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private Path path(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A record returned by {@link #read}; {@code data} is null if it failed its CRC check.
+     * {@code segment} and {@code nextOffset} locate the record after it.
+     */
+    record Entry(byte[] data, int frameBytes, long segment, int nextOffset) {}
+}
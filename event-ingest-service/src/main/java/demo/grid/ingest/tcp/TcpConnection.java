@@ -0,0 +1,284 @@
+package demo.grid.ingest.tcp;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * One TCP ingest connection. The protocol:
+ * <pre>
+ * client: AUTH &lt;api key&gt; [lines|length]\n      first line, always newline-terminated; framing defaults to lines
+ * server: OK &lt;client name&gt;\n  or  ERR unauthorized\n and close
+ * client: events, each {"eventType": ..., "payload": ...}
+ *         lines:  one JSON object per line (blank lines ignored)
+ *         length: int32 big-endian byte length, then the JSON object
+ * server: ERR &lt;n&gt; &lt;reason&gt;\n for the n-th event (1-based) when it is malformed or invalid; nothing when accepted
+ * </pre>
+ * Events are published like {@code POST /api/events}: accepted once handed to the producer. A frame longer
+ * than {@code app.tcp.max-frame-size} gets {@code ERR frame too large} and the connection is closed.
+ * <p>
+ * Only used from the selector thread. Complete frames are handed to
+ * {@link TcpIngestServer#publish(TcpConnection, List)} as one run, and the connection is not read again until
+ * that run is published, so a connection has one run in flight and its events keep their order.
+ */
+final class TcpConnection {
+
+    static final String AUTH_COMMAND = "AUTH";
+    private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+    /** Responses a client may leave unread before it is disconnected. */
+    private static final int MAX_PENDING_OUTPUT_BYTES = 64 * 1024;
+
+    private enum Framing { LINES, LENGTH }
+
+    /** An event frame and its 1-based number on the connection. */
+    record Frame(long number, byte[] bytes) {
+    }
+
+    /**
+     * Outcome of publishing a run of frames.
+     *
+     * @param responses lines to send back, in frame order
+     * @param refused   the frames from the first one refused because the publish window was full
+     * @param failed    whether publishing broke off with an error, after which the connection is closed
+     */
+    record Published(List<String> responses, List<Frame> refused, boolean failed) {
+    }
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final TcpIngestServer server;
+    private final int maxFrameBytes;
+    private final Deque<ByteBuffer> output = new ArrayDeque<>();
+    private final Deque<Frame> pending = new ArrayDeque<>();
+    private ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private int pendingOutputBytes;
+    private Framing framing = Framing.LINES;
+    private String client;
+    private long events;
+    private boolean publishing;
+    private boolean closing;
+    private boolean closed;
+
+    TcpConnection(SocketChannel channel, SelectionKey key, TcpIngestServer server, int maxFrameBytes) {
+        this.channel = channel;
+        this.key = key;
+        this.server = server;
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    void onReadable() throws IOException {
+        if (!input.hasRemaining()) {
+            // A frame bigger than the buffer but within the limit; larger ones were refused in process().
+            if (input.capacity() >= maxFrameBytes + Integer.BYTES) {
+                tooLarge();
+                return;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(input.capacity() * 2, maxFrameBytes + Integer.BYTES));
+            input.flip();
+            input = larger.put(input);
+        }
+        if (channel.read(input) < 0) {
+            close();
+            return;
+        }
+        process();
+    }
+
+    void onWritable() throws IOException {
+        while (!output.isEmpty()) {
+            ByteBuffer next = output.peek();
+            pendingOutputBytes -= channel.write(next);
+            if (next.hasRemaining()) {
+                return;
+            }
+            output.poll();
+        }
+        if (closing) {
+            close();
+        } else {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    /** Retries the frames a suspended connection had refused; reading resumes once they are published. */
+    void resume() {
+        dispatch();
+    }
+
+    /** Takes the outcome of the run handed to {@link TcpIngestServer#publish}. */
+    void published(Published result) throws IOException {
+        publishing = false;
+        if (closed) {
+            return;
+        }
+        for (String response : result.responses()) {
+            respond(response);
+        }
+        if (result.failed()) {
+            closeAfterFlush();
+        } else if (!result.refused().isEmpty()) {
+            // Keep not reading; TCP flow control holds the client back until the window has room.
+            pending.addAll(result.refused());
+            server.suspended(this);
+        } else if (!closing) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            process();
+        }
+    }
+
+    /** Takes every complete frame out of the buffer and publishes them. */
+    private void process() throws IOException {
+        input.flip();
+        try {
+            while (!closing) {
+                byte[] frame = client == null || framing == Framing.LINES ? nextLine() : nextLengthPrefixed();
+                if (frame == null) {
+                    break;
+                }
+                if (client == null) {
+                    authenticate(frame);
+                    continue;
+                }
+                if (frame.length != 0) {
+                    pending.add(new Frame(++events, frame));
+                }
+            }
+        } finally {
+            input.compact();
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (publishing || pending.isEmpty()) {
+            return;
+        }
+        publishing = true;
+        if (!closed) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        List<Frame> frames = List.copyOf(pending);
+        pending.clear();
+        server.publish(this, frames);
+    }
+
+    private byte[] nextLine() throws IOException {
+        for (int i = input.position(); i < input.limit(); i++) {
+            if (input.get(i) == '\n') {
+                int end = i > input.position() && input.get(i - 1) == '\r' ? i - 1 : i;
+                if (end - input.position() > maxFrameBytes) {
+                    tooLarge();
+                    return null;
+                }
+                byte[] line = new byte[end - input.position()];
+                input.get(line);
+                input.position(i + 1);
+                return line;
+            }
+        }
+        if (input.remaining() > maxFrameBytes) {
+            tooLarge();
+        }
+        return null;
+    }
+
+    private byte[] nextLengthPrefixed() throws IOException {
+        if (input.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int length = input.getInt(input.position());
+        if (length < 0 || length > maxFrameBytes) {
+            tooLarge();
+            return null;
+        }
+        if (input.remaining() < Integer.BYTES + length) {
+            return null;
+        }
+        input.position(input.position() + Integer.BYTES);
+        byte[] frame = new byte[length];
+        input.get(frame);
+        return frame;
+    }
+
+    private void authenticate(byte[] line) throws IOException {
+        String[] words = new String(line, StandardCharsets.UTF_8).trim().split(" +");
+        boolean wellFormed = words.length >= 2 && words.length <= 3 && AUTH_COMMAND.equals(words[0]);
+        String name = server.clientFor(wellFormed ? words[1] : null);
+        Framing requested = words.length == 3 ? framing(words[2]) : Framing.LINES;
+        if (name == null || requested == null) {
+            respond("ERR unauthorized");
+            closeAfterFlush();
+            return;
+        }
+        client = name;
+        framing = requested;
+        respond("OK " + name);
+    }
+
+    private static Framing framing(String word) {
+        return switch (word) {
+            case "lines" -> Framing.LINES;
+            case "length" -> Framing.LENGTH;
+            default -> null;
+        };
+    }
+
+    private void tooLarge() throws IOException {
+        respond("ERR frame too large (max " + maxFrameBytes + " bytes)");
+        closeAfterFlush();
+    }
+
+    private void respond(String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line.replace('\n', ' ').replace('\r', ' ') + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        if (output.isEmpty()) {
+            channel.write(bytes);
+            if (!bytes.hasRemaining()) {
+                return;
+            }
+        }
+        output.add(bytes);
+        pendingOutputBytes += bytes.remaining();
+        if (pendingOutputBytes > MAX_PENDING_OUTPUT_BYTES) {
+            throw new IOException("Client is not reading responses");
+        }
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    private void closeAfterFlush() {
+        closing = true;
+        if (output.isEmpty()) {
+            close();
+        } else {
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already gone.
+        }
+        server.closed(this);
+    }
+
+    SocketAddress remoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package demo.grid.ingest.tcp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import demo.grid.ingest.api.EventRequest;
+import demo.grid.ingest.config.ApiKeyFilter;
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.service.EventIngestService;
+import demo.grid.ingest.service.PublishRejectedException;
+import demo.grid.schema.PayloadValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking TCP listener for internal producers that do not need HTTP. One selector thread accepts
+ * connections and reads frames; virtual threads hand each event to {@link EventIngestService#publishAsync},
+ * the same path as {@code POST /api/events}, so a producer blocking on metadata or the spool blocking on disk
+ * does not stall other connections. See {@link TcpConnection} for the protocol.
+ * <p>
+ * Backpressure is TCP flow control: when the publish window is full, the connection stops being read, so
+ * its socket buffers fill and the producer's writes block. Suspended connections are retried every
+ * {@code app.tcp.resume-interval}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.tcp", name = "enabled", havingValue = "true")
+public class TcpIngestServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TcpIngestServer.class);
+
+    private final EventIngestService ingestService;
+    private final ObjectReader eventReader;
+    private final IngestProperties.Tcp config;
+    private final Map<String, String> clientsByKey = new HashMap<>();
+    private final Set<TcpConnection> suspended = new LinkedHashSet<>();
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private final Counter accepted;
+    private final Counter malformed;
+    private final Counter invalid;
+    private final Counter authFailures;
+    private final Counter suspensions;
+    private volatile int connections;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private ExecutorService publishers;
+    private volatile boolean running;
+
+    public TcpIngestServer(EventIngestService ingestService, ObjectMapper objectMapper, IngestProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.ingestService = ingestService;
+        this.eventReader = objectMapper.readerFor(EventRequest.class);
+        this.config = properties.getTcp();
+        for (IngestProperties.ApiKey apiKey : properties.getApiKeys()) {
+            clientsByKey.put(apiKey.getKey(), apiKey.getName());
+        }
+        if (properties.getApiKey() != null && !properties.getApiKey().isBlank()) {
+            clientsByKey.putIfAbsent(properties.getApiKey(), ApiKeyFilter.DEFAULT_CLIENT);
+        }
+        Gauge.builder("ingest.tcp.connections", this, s -> s.connections)
+                .description("Open TCP ingest connections")
+                .register(meterRegistry);
+        this.accepted = events(meterRegistry, "accepted");
+        this.malformed = events(meterRegistry, "malformed");
+        this.invalid = events(meterRegistry, "invalid");
+        this.authFailures = Counter.builder("ingest.tcp.auth.failures")
+                .description("TCP connections closed because the AUTH line was missing or wrong")
+                .register(meterRegistry);
+        this.suspensions = Counter.builder("ingest.tcp.suspensions")
+                .description("Times a TCP connection stopped being read because the publish window was full")
+                .register(meterRegistry);
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ingest.tcp.events")
+                .description("Events received over TCP")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(config.getBindAddress(), config.getPort()));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for TCP ingest on port " + config.getPort(), e);
+        }
+        running = true;
+        publishers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tcp-publish-", 0).factory());
+        thread = new Thread(this::run, "tcp-ingest");
+        thread.start();
+        log.info("TCP ingest listening on {}", localPort());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+            publishers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    int localPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(suspended.isEmpty() ? 0 : Math.max(1, config.getResumeInterval().toMillis()));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                runCompletions();
+                resumeSuspended();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("TCP ingest listener stopped", e);
+        } finally {
+            publishers.shutdown();
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof TcpConnection connection) {
+                    connection.close();
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                log.debug("Error closing TCP ingest listener", e);
+            }
+            running = false;
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        TcpConnection connection = (TcpConnection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed(connection, e);
+        }
+    }
+
+    /** Closes just the one connection; the listener keeps serving the others. */
+    private void failed(TcpConnection connection, Exception e) {
+        if (e instanceof IOException) {
+            log.debug("TCP ingest connection from {} failed: {}", connection.remoteAddress(), e.getMessage());
+        } else {
+            log.warn("TCP ingest connection from {} failed", connection.remoteAddress(), e);
+        }
+        connection.close();
+    }
+
+    private void runCompletions() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new TcpConnection(channel, key, this, Math.toIntExact(config.getMaxFrameSize().toBytes())));
+                connections++;
+            }
+        } catch (IOException e) {
+            log.warn("Could not accept TCP ingest connection: {}", e.getMessage());
+        }
+    }
+
+    private void resumeSuspended() {
+        if (suspended.isEmpty()) {
+            return;
+        }
+        List<TcpConnection> waiting = new ArrayList<>(suspended);
+        suspended.clear();
+        for (TcpConnection connection : waiting) {
+            try {
+                connection.resume();
+            } catch (RuntimeException e) {
+                failed(connection, e);
+            }
+        }
+    }
+
+    // Callbacks from TcpConnection, on the selector thread.
+
+    /** @return the client name for {@code apiKey}, or null (counted as an auth failure) */
+    String clientFor(String apiKey) {
+        String client = apiKey != null ? clientsByKey.get(apiKey) : null;
+        if (client == null) {
+            authFailures.increment();
+        }
+        return client;
+    }
+
+    /**
+     * Publishes {@code frames} in order on a virtual thread, stopping at the first one the publish window
+     * refuses, and passes the outcome back to {@link TcpConnection#published} on the selector thread.
+     */
+    void publish(TcpConnection connection, List<TcpConnection.Frame> frames) {
+        publishers.execute(() -> {
+            TcpConnection.Published result = publishAll(frames);
+            completions.add(() -> {
+                try {
+                    connection.published(result);
+                } catch (IOException | RuntimeException e) {
+                    failed(connection, e);
+                }
+            });
+            selector.wakeup();
+        });
+    }
+
+    private TcpConnection.Published publishAll(List<TcpConnection.Frame> frames) {
+        List<String> responses = new ArrayList<>();
+        for (int i = 0; i < frames.size(); i++) {
+            TcpConnection.Frame frame = frames.get(i);
+            try {
+                publish(frame.bytes());
+            } catch (JsonProcessingException e) {
+                responses.add("ERR " + frame.number() + " malformed: " + e.getOriginalMessage());
+            } catch (PayloadValidationException e) {
+                responses.add("ERR " + frame.number() + " invalid: " + e.getMessage());
+            } catch (PublishRejectedException e) {
+                return new TcpConnection.Published(responses, frames.subList(i, frames.size()), false);
+            } catch (IOException | RuntimeException e) {
+                // The producer is unavailable (metadata timeout, closed producer...): the client cannot tell
+                // which of its later events would go through, so it reconnects and resends.
+                log.warn("Could not publish TCP ingest event: {}", e.toString());
+                responses.add("ERR " + frame.number() + " unavailable: " + e.getMessage());
+                return new TcpConnection.Published(responses, List.of(), true);
+            }
+        }
+        return new TcpConnection.Published(responses, List.of(), false);
+    }
+
+    /**
+     * @throws JsonProcessingException    if the frame is not an event object
+     * @throws PayloadValidationException if the payload does not match its schema
+     * @throws PublishRejectedException   if the publish window is full
+     */
+    private void publish(byte[] frame) throws IOException {
+        EventRequest request;
+        try {
+            request = eventReader.readValue(frame);
+            if (request == null) {
+                throw new JsonMappingException(null, "Expected an event object, got null");
+            }
+        } catch (IOException e) {
+            malformed.increment();
+            throw e;
+        }
+        try {
+            ingestService.publishAsync(request.eventType(), request.payload(), null);
+        } catch (PayloadValidationException e) {
+            invalid.increment();
+            throw e;
+        }
+        accepted.increment();
+    }
+
+    void suspended(TcpConnection connection) {
+        suspended.add(connection);
+        suspensions.increment();
+    }
+
+    void closed(TcpConnection connection) {
+        suspended.remove(connection);
+        connections--;
+    }
+}
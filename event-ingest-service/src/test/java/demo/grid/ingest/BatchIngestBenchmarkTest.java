@@ -0,0 +1,116 @@
+package demo.grid.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares {@code POST /api/events/batch} with the same events sent one per {@code POST /api/events},
+ * through the whole service against a single-node broker. Both sides use the same number of concurrent
+ * clients. A single event is answered once it is handed to the producer, a batch only once the broker has
+ * acknowledged all of it, so the comparison favours single events. A 503 (window full) is retried.
+ * Absolute numbers only mean something relative to each other on the same machine.
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew :event-ingest-service:test --tests '*BenchmarkTest'}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"app.api-key=bench-key", "app.rate-limit.enabled=false"})
+class BatchIngestBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchIngestBenchmarkTest.class);
+
+    private static final String EVENT = "{\"eventType\":\"PRICING\",\"payload\":{\"symbol\":\"ACME\",\"price\":101.25}}";
+    private static final int EVENTS = 20_000;
+    private static final int CLIENTS = 16;
+    private static final int[] BATCH_SIZES = {10, 100, 1_000};
+
+    @Container
+    static KafkaContainer kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    @DynamicPropertySource
+    static void kafkaProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void batchVersusSingleEventRequests() throws Exception {
+        singleEvents(EVENTS / 10);
+        double baseline = singleEvents(EVENTS);
+        log.info("POST /api/events: {} events/s", Math.round(baseline));
+
+        for (int batchSize : BATCH_SIZES) {
+            batches(EVENTS / 10, batchSize);
+            double rate = batches(EVENTS, batchSize);
+            log.info("POST /api/events/batch, {} events per request: {} events/s ({}x single events)",
+                    batchSize, Math.round(rate), Math.round(10 * rate / baseline) / 10.0);
+            assertThat(rate).isPositive();
+        }
+    }
+
+    private double singleEvents(int events) throws Exception {
+        return run(events, 1, "/api/events", "application/json", EVENT);
+    }
+
+    private double batches(int events, int batchSize) throws Exception {
+        String body = (EVENT + "\n").repeat(batchSize);
+        return run(events, batchSize, "/api/events/batch", "application/x-ndjson", body);
+    }
+
+    /** Sends {@code events / perRequest} requests from {@link #CLIENTS} concurrent clients. */
+    private double run(int events, int perRequest, String path, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("X-API-Key", "bench-key")
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int requests = events / perRequest;
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            List<Future<?>> done = new ArrayList<>(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                int share = requests / CLIENTS + (c < requests % CLIENTS ? 1 : 0);
+                done.add(clients.submit(() -> {
+                    for (int i = 0; i < share; i++) {
+                        HttpResponse<String> response;
+                        while ((response = http.send(request, HttpResponse.BodyHandlers.ofString())).statusCode() == 503) {
+                            Thread.sleep(1);
+                        }
+                        assertThat(response.statusCode()).as(response.body()).isEqualTo(202);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        }
+        return (double) requests * perRequest / ((System.nanoTime() - start) / 1e9);
+    }
+}
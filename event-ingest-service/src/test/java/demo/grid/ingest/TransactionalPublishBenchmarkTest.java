@@ -0,0 +1,108 @@
+package demo.grid.ingest;
+
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.kafka.EventEnvelopeSerializer;
+import demo.grid.schema.kafka.WireFormat;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the fire-and-forget publish path with atomic batches against a single-node broker.
+ * Absolute numbers only mean something relative to each other on the same machine.
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew :event-ingest-service:test --tests '*BenchmarkTest'}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class TransactionalPublishBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionalPublishBenchmarkTest.class);
+
+    private static final String TOPIC = "grid.events.benchmark";
+    private static final int EVENTS = 20_000;
+    private static final int[] BATCH_SIZES = {10, 100, 1_000};
+
+    @Container
+    static KafkaContainer kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory("benchmark");
+
+    @Test
+    void transactionalBatchesVersusFireAndForget() throws Exception {
+        KafkaTemplate<String, EventEnvelope> plain = template(null);
+        KafkaTemplate<String, EventEnvelope> transactional = template("bench-tx-");
+
+        fireAndForget(plain, EVENTS / 10);
+        double baseline = fireAndForget(plain, EVENTS);
+        log.info("fire-and-forget: {} events/s", Math.round(baseline));
+
+        for (int batchSize : BATCH_SIZES) {
+            atomicBatches(transactional, EVENTS / 10, batchSize);
+            double rate = atomicBatches(transactional, EVENTS, batchSize);
+            log.info("transactional, {} events per batch: {} events/s ({}% of fire-and-forget)",
+                    batchSize, Math.round(rate), Math.round(100 * rate / baseline));
+            assertThat(rate).isPositive();
+        }
+    }
+
+    private double fireAndForget(KafkaTemplate<String, EventEnvelope> template, int events) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> sends = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            EventEnvelope envelope = envelope();
+            sends.add(template.send(TOPIC, envelope.correlationId(), envelope));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+        return events / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private double atomicBatches(KafkaTemplate<String, EventEnvelope> template, int events, int batchSize) {
+        long start = System.nanoTime();
+        for (int sent = 0; sent < events; sent += batchSize) {
+            template.executeInTransaction(operations -> {
+                for (int i = 0; i < batchSize; i++) {
+                    EventEnvelope envelope = envelope();
+                    operations.send(TOPIC, envelope.correlationId(), envelope);
+                }
+                return null;
+            });
+        }
+        return events / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private EventEnvelope envelope() {
+        return envelopeFactory.create(EventTypes.PRICING, null, null);
+    }
+
+    private static KafkaTemplate<String, EventEnvelope> template(String transactionIdPrefix) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers());
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, EventEnvelope> factory = new DefaultKafkaProducerFactory<>(
+                props, new StringSerializer(), new EventEnvelopeSerializer(WireFormat.JSON));
+        if (transactionIdPrefix != null) {
+            factory.setTransactionIdPrefix(transactionIdPrefix);
+        }
+        return new KafkaTemplate<>(factory);
+    }
+}
@@ -1,5 +1,6 @@
 package demo.grid.ingest.api;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,9 +9,14 @@ import org.springframework.http.MediaType;
 import demo.grid.schema.EventEnvelope;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.Message;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -28,6 +34,11 @@ class ApiKeyFilterTest {
     @MockBean
     private KafkaTemplate<String, EventEnvelope> kafkaTemplate;
 
+    @BeforeEach
+    void stubSend() {
+        when(kafkaTemplate.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     void postWithoutApiKey_returns401() throws Exception {
         mockMvc.perform(post("/api/events")
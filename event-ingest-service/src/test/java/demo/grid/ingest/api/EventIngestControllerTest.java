@@ -1,28 +1,42 @@
 package demo.grid.ingest.api;
 
+import demo.grid.ingest.config.IngestProperties;
 import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.PayloadValidationException;
 import demo.grid.ingest.service.EventIngestService;
+import demo.grid.ingest.service.EventIngestService.EventDraft;
+import demo.grid.ingest.service.EventIngestService.PendingPublish;
+import demo.grid.ingest.service.IdempotencyCache;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.KafkaException;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(EventIngestController.class)
+@Import(IngestProperties.class)
 @TestPropertySource(properties = {"app.api-key=test-key"})
 class EventIngestControllerTest {
 
@@ -32,6 +46,9 @@ class EventIngestControllerTest {
     @MockBean
     private EventIngestService ingestService;
 
+    @MockBean
+    private IdempotencyCache idempotencyCache;
+
     @Test
     void ingest_returns202AndResponse() throws Exception {
         UUID eventId = UUID.randomUUID();
@@ -83,4 +100,215 @@ class EventIngestControllerTest {
 
         verify(ingestService).publish(eq("GENERIC"), any(), isNull());
     }
+
+    @Test
+    void ingest_withIdempotencyKey_returnsRememberedEvent() throws Exception {
+        UUID eventId = UUID.randomUUID();
+        when(idempotencyCache.publishOnce(eq("default"), eq("order-42"), any()))
+                .thenReturn(new IdempotencyCache.Outcome(eventId, "PRICING", true));
+
+        mockMvc.perform(post("/api/events")
+                        .header("X-API-Key", "test-key")
+                        .header("Idempotency-Key", "order-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"eventType\":\"PRICING\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.eventId").value(eventId.toString()));
+
+        verify(ingestService, never()).publishAsync(any(), any(), any());
+    }
+
+    @Test
+    void ingest_tooLongIdempotencyKey_returns400() throws Exception {
+        mockMvc.perform(post("/api/events")
+                        .header("X-API-Key", "test-key")
+                        .header("Idempotency-Key", "k".repeat(256))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"eventType\":\"PRICING\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(idempotencyCache, never()).publishOnce(any(), any(), any());
+    }
+
+    @Test
+    void ingest_payloadNotMatchingSchema_returns400WithPath() throws Exception {
+        when(ingestService.publish(eq("PRICING"), any(), isNull()))
+                .thenThrow(new PayloadValidationException("price", "must be a number"));
+
+        mockMvc.perform(post("/api/events")
+                        .header("X-API-Key", "test-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"eventType\":\"PRICING\",\"payload\":{\"price\":\"free\"}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("payload.price must be a number"))
+                .andExpect(jsonPath("$.path").value("price"));
+    }
+
+    @Test
+    void ingestBatch_ndjson_publishesEachLineAndReportsStatus() throws Exception {
+        when(ingestService.publishAsync(any(), any(), eq("corr-b")))
+                .thenAnswer(inv -> pending(inv.getArgument(0), CompletableFuture.completedFuture(null)));
+
+        mockMvc.perform(post("/api/events/batch")
+                        .header("X-API-Key", "test-key")
+                        .header("X-Correlation-Id", "corr-b")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\",\"payload\":{\"price\":1}}\n"
+                                + "{\"eventType\":\"ALERT\",\"payload\":{\"level\":\"high\"}}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[0].eventType").value("PRICING"))
+                .andExpect(jsonPath("$.results[1].eventType").value("ALERT"))
+                .andExpect(jsonPath("$.results[1].status").value("accepted"));
+
+        verify(ingestService, times(2)).publishAsync(any(), any(), eq("corr-b"));
+    }
+
+    @Test
+    void ingestBatch_jsonArray_reportsFailedAcks() throws Exception {
+        when(ingestService.publishAsync(eq("PRICING"), any(), isNull()))
+                .thenAnswer(inv -> pending("PRICING", CompletableFuture.completedFuture(null)));
+        when(ingestService.publishAsync(eq("AUDIT"), any(), isNull()))
+                .thenAnswer(inv -> pending("AUDIT", CompletableFuture.failedFuture(new IllegalStateException("broker down"))));
+
+        mockMvc.perform(post("/api/events/batch")
+                        .header("X-API-Key", "test-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"eventType\":\"PRICING\"},{\"eventType\":\"AUDIT\"}]"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("failed"));
+    }
+
+    @Test
+    void ingestBatch_malformedRecord_returns400WithEarlierResults() throws Exception {
+        when(ingestService.publishAsync(any(), any(), isNull()))
+                .thenAnswer(inv -> pending(inv.getArgument(0), CompletableFuture.completedFuture(null)));
+
+        mockMvc.perform(post("/api/events/batch")
+                        .header("X-API-Key", "test-key")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\"}\n{\"eventType\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void ingestBatch_sendFailingSynchronously_returns503WithEarlierAcks() throws Exception {
+        when(ingestService.publishAsync(eq("PRICING"), any(), isNull()))
+                .thenAnswer(inv -> pending("PRICING", CompletableFuture.completedFuture(null)));
+        when(ingestService.publishAsync(eq("ALERT"), any(), isNull()))
+                .thenThrow(new org.apache.kafka.common.errors.TimeoutException("Topic not present in metadata after 60000 ms"));
+
+        mockMvc.perform(post("/api/events/batch")
+                        .header("X-API-Key", "test-key")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\"}\n{\"eventType\":\"ALERT\"}\n{\"eventType\":\"PRICING\"}\n"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.results.length()").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("accepted"))
+                .andExpect(jsonPath("$.error").value(endsWith("events from index 1 were not published")));
+
+        verify(ingestService, times(2)).publishAsync(any(), any(), isNull());
+    }
+
+    @Test
+    void ingestBatch_recordOverRequestLimits_isRefusedAtItsIndexBeforeBinding() throws Exception {
+        when(ingestService.publishAsync(any(), any(), isNull()))
+                .thenAnswer(inv -> pending(inv.getArgument(0), CompletableFuture.completedFuture(null)));
+        String large = "{\"eventType\":\"AUDIT\",\"payload\":\"" + "x".repeat(1_100_000) + "\"}";
+        String deep = "{\"eventType\":\"AUDIT\",\"payload\":" + "[".repeat(40) + "]".repeat(40) + "}";
+
+        mockMvc.perform(post("/api/events/batch")
+                        .header("X-API-Key", "test-key")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\"}\n" + large + "\n{\"eventType\":\"ALERT\"}\n"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.error").value("Event at index 1 refused: Event exceeds 1048576 bytes"));
+        mockMvc.perform(post("/api/events/batch")
+                        .header("X-API-Key", "test-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + deep + "]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.accepted").value(0))
+                .andExpect(jsonPath("$.error").value("Event at index 0 refused: Event nests deeper than 32 levels"));
+
+        verify(ingestService, times(1)).publishAsync(any(), any(), isNull());
+    }
+
+    @Test
+    void ingestBatch_atomic_publishesAllInOneTransaction() throws Exception {
+        when(ingestService.supportsTransactions()).thenReturn(true);
+        when(ingestService.maxAtomicBatchSize()).thenReturn(5_000);
+        when(ingestService.publishAtomically(any(), eq("corr-tx"))).thenAnswer(inv -> List.of(
+                pending("PRICING", null).envelope(), pending("ALERT", null).envelope()));
+
+        mockMvc.perform(post("/api/events/batch?atomic=true")
+                        .header("X-API-Key", "test-key")
+                        .header("X-Correlation-Id", "corr-tx")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\"}\n{\"eventType\":\"ALERT\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.results[1].eventType").value("ALERT"));
+
+        verify(ingestService).publishAtomically(
+                eq(List.of(new EventDraft("PRICING", null), new EventDraft("ALERT", null))), eq("corr-tx"));
+        verify(ingestService, never()).publishAsync(any(), any(), any());
+    }
+
+    @Test
+    void ingestBatch_atomic_abortedTransactionReportsAllFailed() throws Exception {
+        when(ingestService.supportsTransactions()).thenReturn(true);
+        when(ingestService.maxAtomicBatchSize()).thenReturn(5_000);
+        when(ingestService.publishAtomically(any(), isNull()))
+                .thenThrow(new KafkaException("commit failed"));
+
+        mockMvc.perform(post("/api/events/batch?atomic=true")
+                        .header("X-API-Key", "test-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"eventType\":\"PRICING\"},{\"eventType\":\"AUDIT\"}]"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.accepted").value(0))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[1].status").value("failed"));
+    }
+
+    @Test
+    void ingestBatch_atomicLargerThanThePublishWindow_returns413() throws Exception {
+        when(ingestService.supportsTransactions()).thenReturn(true);
+        when(ingestService.maxAtomicBatchSize()).thenReturn(1);
+
+        mockMvc.perform(post("/api/events/batch?atomic=true")
+                        .header("X-API-Key", "test-key")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\"}\n{\"eventType\":\"ALERT\"}\n"))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(ingestService, never()).publishAtomically(any(), any());
+    }
+
+    @Test
+    void ingestBatch_atomicWithoutTransactions_returns400() throws Exception {
+        mockMvc.perform(post("/api/events/batch?atomic=true")
+                        .header("X-API-Key", "test-key")
+                        .contentType("application/x-ndjson")
+                        .content("{\"eventType\":\"PRICING\"}\n"))
+                .andExpect(status().isBadRequest());
+
+        verify(ingestService, never()).publishAtomically(any(), any());
+    }
+
+    private static PendingPublish pending(String eventType, CompletableFuture<Void> ack) {
+        EventEnvelope envelope = new EventEnvelope(
+                UUID.randomUUID(), eventType, Instant.now(), Instant.now(),
+                "event-ingest-service", "corr", null, "1");
+        return new PendingPublish(envelope, ack);
+    }
 }
@@ -0,0 +1,107 @@
+package demo.grid.ingest.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RawPayloadEventRequestConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RawPayloadEventRequestConverter converter =
+            new RawPayloadEventRequestConverter(objectMapper.getFactory(), 64);
+
+    @Test
+    void read_keepsPayloadBytesVerbatim() throws Exception {
+        EventRequest request = read("{\"payload\": {\"price\" :100, \"ccy\":\"USD\"}, \"eventType\":\"PRICING\"}");
+
+        assertThat(request.eventType()).isEqualTo("PRICING");
+        assertThat(objectMapper.writeValueAsString(Map.of("payload", request.payload())))
+                .isEqualTo("{\"payload\":{\"price\" :100, \"ccy\":\"USD\"}}");
+    }
+
+    @Test
+    void read_missingOrNullPayload_isNull() throws Exception {
+        assertThat(read("{\"eventType\":\"ALERT\"}").payload()).isNull();
+        assertThat(read("{\"eventType\":null,\"payload\":null}")).isEqualTo(new EventRequest(null, null));
+    }
+
+    @Test
+    void read_ignoresUnknownFields() throws Exception {
+        EventRequest request = read("{\"extra\":{\"deep\":[1,2]},\"eventType\":\"ALERT\",\"payload\":[1]}");
+
+        assertThat(request.eventType()).isEqualTo("ALERT");
+        assertThat(objectMapper.writeValueAsString(request.payload())).isEqualTo("[1]");
+    }
+
+    @Test
+    void read_malformedPayload_isNotReadable() {
+        assertThatThrownBy(() -> read("{\"eventType\":\"PRICING\",\"payload\":{\"price\":}}"))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void read_trailingContent_isNotReadable() {
+        assertThatThrownBy(() -> read("{\"eventType\":\"PRICING\"} {}"))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void read_bodyOverTheLimit_isRejectedWhetherOrNotItsLengthIsDeclared() {
+        String body = "{\"eventType\":\"PRICING\",\"payload\":\"" + "x".repeat(64) + "\"}";
+
+        MockHttpInputMessage declared = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        declared.getHeaders().setContentLength(body.length());
+        assertThatThrownBy(() -> converter.read(EventRequest.class, declared))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+
+        MockHttpInputMessage undeclared = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> converter.read(EventRequest.class, undeclared))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void read_bodyOfExactlyTheLimit_isRead() throws Exception {
+        String body = "{\"eventType\":\"PRICING\",\"payload\":\"" + "x".repeat(28) + "\"}";
+        assertThat(body).hasSize(64);
+
+        MockHttpInputMessage undeclared = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        assertThat(converter.read(EventRequest.class, undeclared).eventType()).isEqualTo("PRICING");
+    }
+
+    @Test
+    void read_nonUtf8Body_isNotReadable() {
+        for (Charset charset : List.of(StandardCharsets.UTF_16, StandardCharsets.UTF_16LE,
+                Charset.forName("UTF-32"))) {
+            MockHttpInputMessage message = new MockHttpInputMessage("{\"eventType\":\"A\"}".getBytes(charset));
+            assertThatThrownBy(() -> converter.read(EventRequest.class, message))
+                    .isInstanceOf(HttpMessageNotReadableException.class)
+                    .hasMessageContaining("UTF-8");
+        }
+    }
+
+    @Test
+    void supportsOnlyReadingEventRequests() {
+        assertThat(converter.canRead(EventRequest.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(String.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(EventRequest.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    private EventRequest read(String body) throws Exception {
+        MockHttpInputMessage message = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return converter.read(EventRequest.class, message);
+    }
+}
@@ -0,0 +1,129 @@
+package demo.grid.ingest.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApiKeyFilterRateLimitTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private IngestProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestProperties();
+        properties.setApiKey("legacy-key");
+        properties.setApiKeys(List.of(apiKey("feed", "feed-key", 1.0, 2)));
+    }
+
+    @Test
+    void rejectsWithRetryAfterOnceBurstIsSpent() throws Exception {
+        ApiKeyFilter filter = filter();
+
+        assertThat(call(filter, "feed-key").getStatus()).isEqualTo(200);
+        assertThat(call(filter, "feed-key").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = call(filter, "feed-key");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("feed");
+        assertThat(count("feed", "admitted")).isEqualTo(2);
+        assertThat(count("feed", "rejected")).isEqualTo(1);
+
+        clock.addAndGet(1_000_000_000L);
+        assertThat(call(filter, "feed-key").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void bucketsAreIndependentPerKey() throws Exception {
+        ApiKeyFilter filter = filter();
+        call(filter, "feed-key");
+        call(filter, "feed-key");
+
+        MockHttpServletRequest request = request("legacy-key");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(request.getAttribute(ApiKeyFilter.CLIENT_ATTRIBUTE)).isEqualTo(ApiKeyFilter.DEFAULT_CLIENT);
+        assertThat(count(ApiKeyFilter.DEFAULT_CLIENT, "admitted")).isEqualTo(1);
+    }
+
+    @Test
+    void unknownKeyIsUnauthorizedAndNotCounted() throws Exception {
+        MockHttpServletResponse response = call(filter(), "nope");
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(meterRegistry.find("ingest.api.requests").tag("client", "nope").counter()).isNull();
+    }
+
+    @Test
+    void keysWithoutARateAreUnlimitedUnlessADefaultIsSet() throws Exception {
+        ApiKeyFilter unlimited = filter();
+        for (int i = 0; i < 3_000; i++) {
+            assertThat(call(unlimited, "legacy-key").getStatus()).isEqualTo(200);
+        }
+
+        properties.getRateLimit().setDefaultRate(1.0);
+        properties.getRateLimit().setDefaultBurst(1);
+        ApiKeyFilter limited = filter();
+        assertThat(call(limited, "legacy-key").getStatus()).isEqualTo(200);
+        assertThat(call(limited, "legacy-key").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void disabledRateLimitAdmitsEverything() throws Exception {
+        properties.getRateLimit().setEnabled(false);
+        ApiKeyFilter filter = filter();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(call(filter, "feed-key").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void duplicateKeysAreRejectedAtStartup() {
+        properties.setApiKeys(List.of(apiKey("a", "same", null, null), apiKey("b", "same", null, null)));
+
+        assertThatThrownBy(this::filter)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("share a key");
+    }
+
+    private ApiKeyFilter filter() {
+        return new ApiKeyFilter(properties, meterRegistry, clock::get);
+    }
+
+    private static MockHttpServletRequest request(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/events");
+        request.addHeader("X-API-Key", key);
+        return request;
+    }
+
+    private static MockHttpServletResponse call(ApiKeyFilter filter, String key) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(key), response, new MockFilterChain());
+        return response;
+    }
+
+    private double count(String client, String outcome) {
+        return meterRegistry.get("ingest.api.requests").tag("client", client).tag("outcome", outcome).counter().count();
+    }
+
+    private static IngestProperties.ApiKey apiKey(String name, String key, Double rate, Integer burst) {
+        IngestProperties.ApiKey apiKey = new IngestProperties.ApiKey();
+        apiKey.setName(name);
+        apiKey.setKey(key);
+        apiKey.setRate(rate);
+        apiKey.setBurst(burst);
+        return apiKey;
+    }
+}
@@ -0,0 +1,40 @@
+package demo.grid.ingest.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimatesNeverUndercountAndStayCloseForHeavyKeys() {
+        CountMinSketch sketch = new CountMinSketch(1_024);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(42);
+        }
+        for (int key = 0; key < 20_000; key++) {
+            sketch.add(key * 31 + 7);
+        }
+
+        assertThat(sketch.estimate(42)).isBetween(5_000, 5_000 + 20_000 * 3 / 1_024 * 2);
+        assertThat(sketch.estimate(7)).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void addReturnsRunningEstimateAndHalveAges() {
+        CountMinSketch sketch = new CountMinSketch(64);
+        for (int i = 1; i <= 10; i++) {
+            assertThat(sketch.add(-5)).isEqualTo(i);
+        }
+
+        sketch.halve();
+
+        assertThat(sketch.estimate(-5)).isEqualTo(5);
+    }
+
+    @Test
+    void widthMustBePowerOfTwo() {
+        assertThatThrownBy(() -> new CountMinSketch(1_000)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,151 @@
+package demo.grid.ingest.config;
+
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTypes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HotKeyPartitionerTest {
+
+    private static final String TOPIC = "grid.events.v1";
+    private static final int PARTITIONS = 12;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory("test");
+    private final Cluster cluster = cluster();
+    private IngestProperties properties;
+    private HotKeyPartitioner partitioner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestProperties();
+        properties.getPartitioner().setSpreadEventTypes(Set.of(EventTypes.AUDIT));
+        properties.getPartitioner().setHotShare(0.1);
+        partitioner = new HotKeyPartitioner();
+        partitioner.configure(Map.of(HotKeyPartitioner.TRACKER_CONFIG, new HotKeyTracker(properties, meterRegistry)));
+    }
+
+    @Test
+    void coldKeysUseDefaultHashPlacement() {
+        for (int i = 0; i < 1_000; i++) {
+            String key = "corr-" + i;
+            int expected = Utils.toPositive(Utils.murmur2(bytes(key))) % PARTITIONS;
+            assertThat(partition(key, EventTypes.AUDIT)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void hotKeyOfSpreadTypeUsesSubPartitionsStartingAtItsHashedPartition() {
+        int home = Utils.toPositive(Utils.murmur2(bytes("chatty"))) % PARTITIONS;
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            used.add(partition("chatty", EventTypes.AUDIT));
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < properties.getPartitioner().getSubPartitions(); i++) {
+            expected.add((home + i) % PARTITIONS);
+        }
+        assertThat(used).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(meterRegistry.get("ingest.producer.hot.key.spread").tag("type", EventTypes.AUDIT).counter().count())
+                .isPositive();
+    }
+
+    @Test
+    void hotKeyOfOrderedTypeStaysOnOnePartition() {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            used.add(partition("chatty", EventTypes.PRICING));
+        }
+
+        assertThat(used).hasSize(1);
+        assertThat(meterRegistry.find("ingest.producer.hot.key.spread").counter()).isNull();
+    }
+
+    @Test
+    void skewGaugeReflectsConcentration() {
+        for (int i = 0; i < 1_200; i++) {
+            partition("chatty", EventTypes.PRICING);
+        }
+
+        assertThat(meterRegistry.get("ingest.producer.partition.skew").tag("topic", TOPIC).gauge().value())
+                .isEqualTo(PARTITIONS);
+    }
+
+    @Test
+    void decayLetsAKeyCoolDown() {
+        properties.getPartitioner().setWindow(1_000);
+        HotKeyTracker tracker = new HotKeyTracker(properties, meterRegistry);
+        int hash = Utils.murmur2(bytes("burst"));
+        for (int i = 0; i < 500; i++) {
+            tracker.partition(TOPIC, hash, EventTypes.AUDIT, PARTITIONS);
+        }
+        assertThat(tracker.isHot(hash)).isTrue();
+
+        for (int i = 0; i < 5_000; i++) {
+            tracker.partition(TOPIC, Utils.murmur2(bytes("cold-" + i)), EventTypes.AUDIT, PARTITIONS);
+        }
+
+        assertThat(tracker.isHot(hash)).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void unkeyedRecordsStickToOnePartitionUntilItsBatchIsFull() {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            used.add(partitioner.partition(TOPIC, null, null, null, null, cluster));
+        }
+        assertThat(used).hasSize(1);
+        int sticky = used.iterator().next();
+
+        partitioner.onNewBatch(TOPIC, cluster, sticky);
+
+        int next = partitioner.partition(TOPIC, null, null, null, null, cluster);
+        assertThat(next).isNotEqualTo(sticky);
+        partitioner.onNewBatch(TOPIC, cluster, sticky);
+        assertThat(partitioner.partition(TOPIC, null, null, null, null, cluster)).isEqualTo(next);
+        assertThat(meterRegistry.get("ingest.producer.partition.skew").tag("topic", TOPIC).gauge().value())
+                .isGreaterThan(1);
+    }
+
+    @Test
+    void configureRequiresTracker() {
+        assertThatThrownBy(() -> new HotKeyPartitioner().configure(Map.of())).isInstanceOf(ConfigException.class);
+    }
+
+    private int partition(String key, String eventType) {
+        EventEnvelope envelope = envelopeFactory.create(eventType, null, key);
+        return partitioner.partition(TOPIC, key, bytes(key), envelope, null, cluster);
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Cluster cluster() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions.add(new PartitionInfo(TOPIC, i, node, new Node[] {node}, new Node[] {node}));
+        }
+        return new Cluster("test", List.of(node), partitions, Set.of(), Set.of());
+    }
+}
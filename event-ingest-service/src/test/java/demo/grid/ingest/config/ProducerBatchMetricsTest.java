@@ -0,0 +1,75 @@
+package demo.grid.ingest.config;
+
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProducerBatchMetricsTest {
+
+    private final Map<String, Object> producerConfig = new HashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProducerFactory<String, EventEnvelope> producerFactory;
+    private KafkaTemplate<String, EventEnvelope> kafkaTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        producerFactory = mock(ProducerFactory.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(producerFactory.getConfigurationProperties()).thenReturn(producerConfig);
+    }
+
+    @Test
+    void exportsThroughputProfileSettingsAndFillRatio() {
+        producerConfig.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        producerConfig.put(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024);
+        producerConfig.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        givenBatchSizeAvg(64 * 1024);
+
+        new ProducerBatchMetrics(producerFactory, kafkaTemplate, meterRegistry);
+
+        assertThat(meterRegistry.get("ingest.producer.linger").timeGauge().value(TimeUnit.MILLISECONDS)).isEqualTo(5);
+        assertThat(meterRegistry.get("ingest.producer.batch.size").gauge().value()).isEqualTo(256 * 1024);
+        assertThat(meterRegistry.get("ingest.producer.batch.fill.ratio").gauge().value()).isEqualTo(0.25);
+        assertThat(meterRegistry.get("ingest.producer.compression").tag("codec", "lz4").gauge().value()).isEqualTo(1);
+        verify(producerFactory, never()).updateConfigs(any());
+        verify(producerFactory, never()).reset();
+    }
+
+    @Test
+    void defaultProfileReportsClientDefaults() {
+        givenBatchSizeAvg(4 * 1024);
+
+        new ProducerBatchMetrics(producerFactory, kafkaTemplate, meterRegistry);
+
+        assertThat(meterRegistry.get("ingest.producer.linger").timeGauge().value(TimeUnit.MILLISECONDS)).isZero();
+        assertThat(meterRegistry.get("ingest.producer.batch.fill.ratio").gauge().value()).isEqualTo(0.25);
+        assertThat(meterRegistry.get("ingest.producer.compression").tag("codec", "none").gauge().value()).isEqualTo(1);
+    }
+
+    private void givenBatchSizeAvg(double batchSizeAvg) {
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(batchSizeAvg);
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        metrics.put(new MetricName("batch-size-avg", "producer-metrics", "", Map.of()), metric);
+        doReturn(metrics).when(kafkaTemplate).metrics();
+    }
+}
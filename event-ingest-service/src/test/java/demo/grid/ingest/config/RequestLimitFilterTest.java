@@ -0,0 +1,169 @@
+package demo.grid.ingest.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IngestProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestProperties();
+        IngestProperties.RequestLimits limits = properties.getRequestLimits();
+        limits.setMaxSize(DataSize.ofBytes(200));
+        limits.setMaxDepth(4);
+        limits.setMaxFields(10);
+        IngestProperties.RequestLimits.EventTypeLimits audit = new IngestProperties.RequestLimits.EventTypeLimits();
+        audit.setMaxSize(DataSize.ofBytes(1_000));
+        audit.setMaxDepth(6);
+        limits.getEventTypes().put("AUDIT", audit);
+    }
+
+    @Test
+    void passesAcceptedBodyThroughUnchanged() throws Exception {
+        String body = "{\"eventType\":\"PRICING\",\"payload\":{\"price\":100}}";
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = call(body, true, chain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8)).isEqualTo(body);
+        assertThat(chain.getRequest().getContentLength()).isEqualTo(body.length());
+    }
+
+    @Test
+    void bufferedBodyNotifiesReadListenerAtOnce() throws Exception {
+        String body = "{\"eventType\":\"PRICING\"}";
+        MockFilterChain chain = new MockFilterChain();
+        call(body, true, chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        List<String> calls = new ArrayList<>();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                calls.add("data:" + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                calls.add("error");
+            }
+        });
+
+        assertThat(calls).containsExactly("data:" + body, "done");
+        assertThat(in.isFinished()).isTrue();
+    }
+
+    @Test
+    void rejectsDeclaredOversizedBodyWithoutReading() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter().doFilter(request(new byte[0], 50_000_000), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(rejected("size")).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsUndeclaredOversizedBodyOnceLimitIsCrossed() throws Exception {
+        String body = "{\"eventType\":\"PRICING\",\"payload\":\"" + "x".repeat(300) + "\"}";
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = call(body, false, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void rejectsTooDeepAndTooManyFieldsWith400() throws Exception {
+        MockHttpServletResponse deep = call("{\"eventType\":\"PRICING\",\"payload\":[[[[1]]]]}", true, new MockFilterChain());
+        MockHttpServletResponse wide = call("{\"eventType\":\"PRICING\",\"payload\":"
+                + "{\"a\":1,\"b\":1,\"c\":1,\"d\":1,\"e\":1,\"f\":1,\"g\":1,\"h\":1,\"i\":1}}", true, new MockFilterChain());
+
+        assertThat(deep.getStatus()).isEqualTo(400);
+        assertThat(deep.getContentAsString()).contains("deeper than 4");
+        assertThat(wide.getStatus()).isEqualTo(400);
+        assertThat(wide.getContentAsString()).contains("more than 10 fields");
+        assertThat(rejected("depth")).isEqualTo(1);
+        assertThat(rejected("fields")).isEqualTo(1);
+    }
+
+    @Test
+    void appliesEventTypeOverrides() throws Exception {
+        String deep = "{\"eventType\":\"AUDIT\",\"payload\":[[[[1]]]]}";
+        String large = "{\"eventType\":\"AUDIT\",\"payload\":\"" + "x".repeat(300) + "\"}";
+
+        assertThat(call(deep, true, new MockFilterChain()).getStatus()).isEqualTo(200);
+        assertThat(call(large, false, new MockFilterChain()).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void appliesEventTypeLimitsWhenEventTypeComesLast() throws Exception {
+        MockHttpServletResponse response = call("{\"payload\":[[[[1]]]],\"eventType\":\"PRICING\"}", true, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    void rejectsMalformedJsonWith400() throws Exception {
+        MockHttpServletResponse truncated = call("{\"eventType\":\"PRICING\",\"payload\":{", true, new MockFilterChain());
+        MockHttpServletResponse array = call("[{\"eventType\":\"PRICING\"}]", true, new MockFilterChain());
+
+        assertThat(truncated.getStatus()).isEqualTo(400);
+        assertThat(array.getStatus()).isEqualTo(400);
+        assertThat(rejected("malformed")).isEqualTo(2);
+    }
+
+    private RequestLimitFilter filter() {
+        return new RequestLimitFilter(properties, new JsonFactory(), meterRegistry);
+    }
+
+    private MockHttpServletResponse call(String body, boolean declareLength, MockFilterChain chain) throws Exception {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter().doFilter(request(bytes, declareLength ? bytes.length : -1), response, chain);
+        return response;
+    }
+
+    /** A request whose declared length can differ from its content, as with chunked or lying clients. */
+    private static MockHttpServletRequest request(byte[] content, long declaredLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/events") {
+            @Override
+            public long getContentLengthLong() {
+                return declaredLength;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(content);
+        return request;
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("ingest.api.bodies.rejected").tag("reason", reason).counter().count();
+    }
+}
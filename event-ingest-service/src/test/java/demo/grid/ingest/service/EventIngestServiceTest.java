@@ -0,0 +1,222 @@
+package demo.grid.ingest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.spool.Spool;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.PayloadSchemas;
+import demo.grid.schema.PayloadValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventIngestServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CompletableFuture<SendResult<String, EventEnvelope>> pendingSend = new CompletableFuture<>();
+
+    private IngestProperties properties;
+    private PublishWindow window;
+    private KafkaTemplate<String, EventEnvelope> kafkaTemplate;
+    private EventIngestService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new IngestProperties();
+        properties.getPublish().setMaxInFlight(1);
+        properties.getPublish().setRetryAfter(Duration.ofSeconds(2));
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(Message.class))).thenReturn(pendingSend);
+        window = new PublishWindow(properties, meterRegistry);
+        service = new EventIngestService(kafkaTemplate, Optional.empty(), properties, window, Optional.empty(), PayloadSchemas.standard());
+    }
+
+    @Test
+    void publish_rejectsWhenWindowIsFull() {
+        service.publish("PRICING", null, "corr-1");
+        assertThat(window.inFlight()).isEqualTo(1);
+
+        assertThatThrownBy(() -> service.publish("PRICING", null, "corr-2"))
+                .isInstanceOf(PublishRejectedException.class)
+                .satisfies(e -> assertThat(((PublishRejectedException) e).getRetryAfter()).isEqualTo(Duration.ofSeconds(2)));
+        assertThat(meterRegistry.get("ingest.publish.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void ack_releasesSlotAndRecordsLatency() {
+        EventIngestService.PendingPublish pending = service.publishAsync("PRICING", null, null);
+
+        pendingSend.complete(null);
+
+        assertThat(pending.ack()).isCompleted();
+        assertThat(window.inFlight()).isZero();
+        assertThat(meterRegistry.get("ingest.publish.send").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(pending.envelope().correlationId()).isEqualTo(pending.envelope().eventId().toString());
+    }
+
+    @Test
+    void publishAtomically_sendsEveryDraftInsideOneTransaction() {
+        properties.getPublish().setMaxInFlight(10);
+        KafkaTemplate<String, EventEnvelope> transactional = transactionalTemplate();
+        EventIngestService txService = new EventIngestService(
+                mock(KafkaTemplate.class), Optional.of(transactional), properties, new PublishWindow(properties, meterRegistry),
+                Optional.empty(), PayloadSchemas.standard());
+
+        List<EventEnvelope> envelopes = txService.publishAtomically(List.of(
+                new EventIngestService.EventDraft("PRICING", null),
+                new EventIngestService.EventDraft("ALERT", null)), "corr-tx");
+
+        assertThat(txService.supportsTransactions()).isTrue();
+        assertThat(envelopes).extracting(EventEnvelope::eventType).containsExactly("PRICING", "ALERT");
+        assertThat(envelopes).extracting(EventEnvelope::correlationId).containsOnly("corr-tx");
+        verify(transactional).executeInTransaction(any());
+        verify(transactional, times(2)).send(any(Message.class));
+    }
+
+    @Test
+    void publishAtomically_takesSlotsForTheWholeBatchUpFront() {
+        properties.getPublish().setMaxInFlight(100);
+        properties.getPublish().getAdaptive().setMinLimit(2);
+        properties.getPublish().getAdaptive().setInitialLimit(5);
+        PublishWindow txWindow = new PublishWindow(properties, meterRegistry);
+        KafkaTemplate<String, EventEnvelope> transactional = transactionalTemplate(new CompletableFuture<>());
+        EventIngestService txService = new EventIngestService(
+                mock(KafkaTemplate.class), Optional.of(transactional), properties, txWindow,
+                Optional.empty(), PayloadSchemas.standard());
+
+        // Larger than the adaptive limit, but the window is idle: admitted whole.
+        txService.publishAtomically(drafts(8), null);
+        assertThat(txWindow.inFlight()).isEqualTo(8);
+
+        assertThatThrownBy(() -> txService.publishAtomically(drafts(2), null))
+                .isInstanceOf(PublishRejectedException.class);
+        verify(transactional, times(1)).executeInTransaction(any());
+        verify(transactional, times(8)).send(any(Message.class));
+        assertThat(txService.maxAtomicBatchSize()).isEqualTo(100);
+        assertThatThrownBy(() -> txService.publishAtomically(drafts(101), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishAtomically_returnsUnusedSlotsWhenTheTransactionFails() {
+        properties.getPublish().setMaxInFlight(10);
+        PublishWindow txWindow = new PublishWindow(properties, meterRegistry);
+        KafkaTemplate<String, EventEnvelope> transactional = transactionalTemplate(CompletableFuture.completedFuture(null));
+        when(transactional.send(any(Message.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenThrow(new KafkaException("fenced"));
+        EventIngestService txService = new EventIngestService(
+                mock(KafkaTemplate.class), Optional.of(transactional), properties, txWindow,
+                Optional.empty(), PayloadSchemas.standard());
+
+        assertThatThrownBy(() -> txService.publishAtomically(drafts(5), null))
+                .isInstanceOf(KafkaException.class);
+
+        assertThat(txWindow.inFlight()).isZero();
+    }
+
+    @Test
+    void publishAsync_rejectsPayloadNotMatchingSchemaBeforeSending() throws Exception {
+        assertThatThrownBy(() -> service.publishAsync("PRICING",
+                new ObjectMapper().readTree("{\"price\":\"free\"}"), null))
+                .isInstanceOf(PayloadValidationException.class)
+                .hasMessage("payload.price must be a number");
+
+        verify(kafkaTemplate, never()).send(any(Message.class));
+        assertThat(window.inFlight()).isZero();
+    }
+
+    @Test
+    void publishAtomically_withoutTransactionalTemplate_fails() {
+        assertThat(service.supportsTransactions()).isFalse();
+        assertThatThrownBy(() -> service.publishAtomically(List.of(), null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void publish_spoolsWhenWindowIsFullAndKeepsSpoolingUntilDrained() {
+        Spool spool = mock(Spool.class);
+        when(spool.offer(any())).thenReturn(true);
+        EventIngestService spooling = spoolingService(spool);
+        spooling.publish("PRICING", null, "corr-1");
+
+        EventIngestService.PendingPublish overflow = spooling.publishAsync("PRICING", null, "corr-2");
+        when(spool.isEmpty()).thenReturn(false);
+        EventIngestService.PendingPublish queued = spooling.publishAsync("PRICING", null, "corr-3");
+
+        assertThat(overflow.ack()).isCompleted();
+        assertThat(queued.ack()).isCompleted();
+        verify(spool).offer(overflow.envelope());
+        verify(spool).offer(queued.envelope());
+        assertThat(window.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void publish_spoolsEnvelopeWhoseSendFailsLater() {
+        Spool spool = mock(Spool.class);
+        when(spool.offer(any())).thenReturn(true);
+        EventIngestService.PendingPublish pending = spoolingService(spool).publishAsync("PRICING", null, null);
+
+        pendingSend.completeExceptionally(new KafkaException("broker down"));
+
+        assertThat(pending.ack()).isCompleted();
+        verify(spool).offer(pending.envelope());
+    }
+
+    @Test
+    void publish_rejectsWhenSpoolIsFull() {
+        Spool spool = mock(Spool.class);
+        EventIngestService spooling = spoolingService(spool);
+        when(spool.isEmpty()).thenReturn(false);
+
+        assertThatThrownBy(() -> spooling.publish("PRICING", null, null))
+                .isInstanceOf(PublishRejectedException.class);
+    }
+
+    private EventIngestService spoolingService(Spool spool) {
+        when(spool.isEmpty()).thenReturn(true);
+        return new EventIngestService(kafkaTemplate, Optional.empty(), properties, window, Optional.of(spool), PayloadSchemas.standard());
+    }
+
+    private static List<EventIngestService.EventDraft> drafts(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EventIngestService.EventDraft("PRICING", null))
+                .toList();
+    }
+
+    private static KafkaTemplate<String, EventEnvelope> transactionalTemplate() {
+        return transactionalTemplate(CompletableFuture.completedFuture(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, EventEnvelope> transactionalTemplate(
+            CompletableFuture<SendResult<String, EventEnvelope>> send) {
+        KafkaTemplate<String, EventEnvelope> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(send);
+        when(template.executeInTransaction(any())).thenAnswer(inv ->
+                inv.<KafkaOperations.OperationsCallback<String, EventEnvelope, Object>>getArgument(0).doInOperations(template));
+        return template;
+    }
+}
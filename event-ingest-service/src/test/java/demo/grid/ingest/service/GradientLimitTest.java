@@ -0,0 +1,82 @@
+package demo.grid.ingest.service;
+
+import demo.grid.ingest.config.IngestProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final IngestProperties.Publish.Adaptive config = new IngestProperties.Publish.Adaptive();
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        config.setInitialLimit(100);
+        config.setMinLimit(10);
+        config.setSampleWindow(Duration.ofMillis(100));
+    }
+
+    @Test
+    void steadyLatency_growsLimitWhileSaturated() {
+        GradientLimit limit = new GradientLimit(config, 1_000, now);
+
+        runWindows(limit, 20, RTT, () -> limit.limit());
+
+        assertThat(limit.limit()).isGreaterThan(100).isLessThanOrEqualTo(1_000);
+    }
+
+    @Test
+    void risingLatency_shrinksLimit() {
+        GradientLimit limit = new GradientLimit(config, 1_000, now);
+        runWindows(limit, 5, RTT, () -> limit.limit());
+        int before = limit.limit();
+
+        runWindows(limit, 5, RTT * 4, () -> limit.limit());
+
+        assertThat(limit.limit()).isLessThan(before);
+    }
+
+    @Test
+    void underusedWindow_leavesLimitAlone() {
+        GradientLimit limit = new GradientLimit(config, 1_000, now);
+
+        runWindows(limit, 10, RTT, () -> 5);
+        runWindows(limit, 10, RTT * 10, () -> 5);
+
+        assertThat(limit.limit()).isEqualTo(100);
+    }
+
+    @Test
+    void staysWithinBounds() {
+        GradientLimit limit = new GradientLimit(config, 120, now);
+        runWindows(limit, 50, RTT, () -> limit.limit());
+        assertThat(limit.limit()).isEqualTo(120);
+
+        runWindows(limit, 60, RTT * 100, () -> limit.limit());
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void initialLimit_isCappedByMaximum() {
+        assertThat(new GradientLimit(config, 50, now).limit()).isEqualTo(50);
+        assertThat(new GradientLimit(config, 5, now).limit()).isEqualTo(5);
+    }
+
+    private void runWindows(GradientLimit limit, int windows, long rtt, IntSupplier inFlight) {
+        for (int w = 0; w < windows; w++) {
+            for (int i = 0; i < GradientLimit.MIN_SAMPLES; i++) {
+                now += WINDOW / GradientLimit.MIN_SAMPLES;
+                limit.onSample(now, rtt, inFlight.getAsInt());
+            }
+        }
+    }
+}
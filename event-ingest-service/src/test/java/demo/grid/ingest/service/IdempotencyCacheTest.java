@@ -0,0 +1,148 @@
+package demo.grid.ingest.service;
+
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.service.EventIngestService.PendingPublish;
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyCacheTest {
+
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory("test");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger publishes = new AtomicInteger();
+    private final IngestProperties properties = new IngestProperties();
+
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties.getIdempotency().setTtl(Duration.ofMinutes(10));
+        cache = new IdempotencyCache(properties, meterRegistry, nanos::get);
+    }
+
+    @Test
+    void repeatedKey_returnsOriginalEventWithoutPublishing() {
+        IdempotencyCache.Outcome first = cache.publishOnce("client-a", "order-1", publish("PRICING"));
+        IdempotencyCache.Outcome second = cache.publishOnce("client-a", "order-1", publish("PRICING"));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.eventId()).isEqualTo(first.eventId());
+        assertThat(publishes).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", IdempotencyCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedPublish_isNotRemembered() {
+        assertThatThrownBy(() -> cache.publishOnce("client-a", "order-2", () -> {
+            throw new PublishRejectedException("full", Duration.ofSeconds(1));
+        })).isInstanceOf(PublishRejectedException.class);
+
+        assertThat(cache.publishOnce("client-a", "order-2", publish("PRICING")).replayed()).isFalse();
+    }
+
+    @Test
+    void failedSend_isForgotten() {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        cache.publishOnce("client-a", "order-4", publish("PRICING", ack));
+
+        ack.completeExceptionally(new IllegalStateException("broker unavailable"));
+
+        assertThat(cache.publishOnce("client-a", "order-4", publish("PRICING")).replayed()).isFalse();
+        assertThat(publishes).hasValue(2);
+    }
+
+    @Test
+    void repeatBeforeAck_waitsForTheAck() throws Exception {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        IdempotencyCache.Outcome first = cache.publishOnce("client-a", "order-5", publish("PRICING", ack));
+
+        CompletableFuture<IdempotencyCache.Outcome> repeat = CompletableFuture.supplyAsync(
+                () -> cache.publishOnce("client-a", "order-5", publish("PRICING")));
+        assertThat(repeat).isNotDone();
+        ack.complete(null);
+
+        IdempotencyCache.Outcome second = repeat.get(5, TimeUnit.SECONDS);
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.eventId()).isEqualTo(first.eventId());
+        assertThat(publishes).hasValue(1);
+    }
+
+    @Test
+    void repeatBeforeFailedAck_publishesAgain() throws Exception {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        cache.publishOnce("client-a", "order-6", publish("PRICING", ack));
+
+        CompletableFuture<IdempotencyCache.Outcome> repeat = CompletableFuture.supplyAsync(
+                () -> cache.publishOnce("client-a", "order-6", publish("PRICING")));
+        ack.completeExceptionally(new IllegalStateException("broker unavailable"));
+
+        assertThat(repeat.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+        assertThat(publishes).hasValue(2);
+    }
+
+    @Test
+    void sameKeyFromAnotherClient_isPublished() {
+        IdempotencyCache.Outcome first = cache.publishOnce("client-a", "order-7", publish("PRICING"));
+        IdempotencyCache.Outcome other = cache.publishOnce("client-b", "order-7", publish("PRICING"));
+
+        assertThat(other.replayed()).isFalse();
+        assertThat(other.eventId()).isNotEqualTo(first.eventId());
+        assertThat(publishes).hasValue(2);
+    }
+
+    @Test
+    void keyExpiresAfterTtl() {
+        cache.publishOnce("client-a", "order-3", publish("ALERT"));
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        assertThat(cache.publishOnce("client-a", "order-3", publish("ALERT")).replayed()).isFalse();
+        assertThat(publishes).hasValue(2);
+    }
+
+    @Test
+    void memoryCeiling_evictsOldKeys() {
+        properties.getIdempotency().setMaxMemory(DataSize.ofBytes(10L * (IdempotencyCache.ENTRY_OVERHEAD_BYTES + 20)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache = new IdempotencyCache(properties, registry, nanos::get);
+
+        for (int i = 0; i < 100; i++) {
+            cache.publishOnce("client-a", "order-" + i, publish("AUDIT"));
+        }
+        cache.cleanUp();
+
+        assertThat(registry.get("ingest.idempotency.memory").gauge().value())
+                .isLessThanOrEqualTo(properties.getIdempotency().getMaxMemory().toBytes());
+        assertThat(registry.get("cache.evictions").tag("cache", IdempotencyCache.CACHE_NAME)
+                .functionCounter().count()).isPositive();
+    }
+
+    private Supplier<PendingPublish> publish(String eventType) {
+        return publish(eventType, CompletableFuture.completedFuture(null));
+    }
+
+    private Supplier<PendingPublish> publish(String eventType, CompletableFuture<Void> ack) {
+        return () -> {
+            publishes.incrementAndGet();
+            EventEnvelope envelope = envelopeFactory.create(eventType, null, null);
+            return new PendingPublish(envelope, ack);
+        };
+    }
+}
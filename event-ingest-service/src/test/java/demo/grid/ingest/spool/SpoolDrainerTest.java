@@ -0,0 +1,121 @@
+package demo.grid.ingest.spool;
+
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.service.EventIngestService;
+import demo.grid.ingest.service.PublishRejectedException;
+import demo.grid.ingest.service.PublishWindow;
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SpoolDrainerTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EnvelopeFactory envelopeFactory = new EnvelopeFactory("test");
+    private final EventIngestService ingestService = mock(EventIngestService.class);
+    private final List<EventEnvelope> republished = new ArrayList<>();
+    private IngestProperties properties;
+    private Spool spool;
+    private SpoolDrainer drainer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new IngestProperties();
+        properties.getSpool().setDirectory(directory.toString());
+        properties.getSpool().setDrainRate(10);
+        properties.getSpool().setDrainInterval(Duration.ofMillis(300));
+        properties.getSpool().setRetryBackoff(Duration.ZERO);
+        spool = new Spool(properties, meterRegistry);
+        drainer = drainer();
+    }
+
+    private SpoolDrainer drainer() {
+        return new SpoolDrainer(spool, ingestService, new PublishWindow(properties, meterRegistry), properties,
+                meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        spool.destroy();
+    }
+
+    @Test
+    void replaysInSpoolOrderAtConfiguredRate() throws Exception {
+        List<EventEnvelope> spooled = spool(5);
+        when(ingestService.republish(any())).thenAnswer(inv -> {
+            republished.add(inv.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        drainer.drain();
+        assertThat(republished).hasSize(3);
+        assertThat(meterRegistry.get("ingest.spool.depth").gauge().value()).isEqualTo(2);
+
+        drainer.drain();
+        assertThat(republished).extracting(EventEnvelope::eventId)
+                .containsExactlyElementsOf(spooled.stream().map(EventEnvelope::eventId).toList());
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(meterRegistry.get("ingest.spool.replayed").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void withoutRateCap_drainsEverythingInWindowSizedBatches() throws Exception {
+        properties.getSpool().setDrainRate(0);
+        properties.getPublish().setMaxInFlight(2);
+        properties.getPublish().getAdaptive().setEnabled(false);
+        drainer = drainer();
+        List<EventEnvelope> spooled = spool(5);
+        when(ingestService.republish(any())).thenAnswer(inv -> {
+            republished.add(inv.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        drainer.drain();
+
+        assertThat(republished).extracting(EventEnvelope::eventId)
+                .containsExactlyElementsOf(spooled.stream().map(EventEnvelope::eventId).toList());
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    @Test
+    void keepsUnacknowledgedTailForNextAttempt() throws Exception {
+        spool(3);
+        when(ingestService.republish(any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenThrow(new PublishRejectedException("full", Duration.ofSeconds(1)));
+
+        drainer.drain();
+
+        assertThat(meterRegistry.get("ingest.spool.depth").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("ingest.spool.replayed").counter().count()).isEqualTo(1);
+    }
+
+    private List<EventEnvelope> spool(int count) {
+        List<EventEnvelope> envelopes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EventEnvelope envelope = envelopeFactory.create("PRICING", null, "corr-" + i);
+            assertThat(spool.offer(envelope)).isTrue();
+            envelopes.add(envelope);
+        }
+        return envelopes;
+    }
+}
@@ -0,0 +1,146 @@
+package demo.grid.ingest.spool;
+
+import demo.grid.ingest.config.IngestProperties.Spool.Fsync;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpoolJournalTest {
+
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRecordsInAppendOrderAcrossSegments() throws IOException {
+        try (SpoolJournal journal = open()) {
+            for (int i = 0; i < 6; i++) {
+                journal.append(record(i));
+            }
+
+            assertThat(journal.segmentCount()).isGreaterThan(1);
+            assertThat(journal.pendingRecords()).isEqualTo(6);
+            assertThat(texts(journal.read(100))).containsExactly(
+                    text(0), text(1), text(2), text(3), text(4), text(5));
+        }
+    }
+
+    @Test
+    void commitConsumesPrefixAndDeletesDrainedSegments() throws IOException {
+        try (SpoolJournal journal = open()) {
+            for (int i = 0; i < 6; i++) {
+                journal.append(record(i));
+            }
+            List<SpoolJournal.Entry> entries = journal.read(100);
+
+            journal.commit(entries.subList(0, 4));
+
+            assertThat(journal.pendingRecords()).isEqualTo(2);
+            assertThat(texts(journal.read(100))).containsExactly(text(4), text(5));
+            assertThat(segmentFiles()).hasSize(journal.segmentCount());
+            assertThat(journal.segmentCount()).isLessThan(3);
+        }
+    }
+
+    @Test
+    void reopeningResumesFromCheckpoint() throws IOException {
+        try (SpoolJournal journal = open()) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(record(i));
+            }
+            journal.commit(journal.read(2));
+        }
+
+        try (SpoolJournal journal = open()) {
+            assertThat(journal.pendingRecords()).isEqualTo(3);
+            journal.append(record(9));
+            assertThat(texts(journal.read(100))).containsExactly(text(2), text(3), text(4), text(9));
+        }
+    }
+
+    @Test
+    void corruptRecordIsReturnedWithoutDataAndCounted() throws IOException {
+        try (SpoolJournal journal = open()) {
+            for (int i = 0; i < 6; i++) {
+                journal.append(record(i));
+            }
+        }
+        flipByte(segmentFiles().get(0), text(1));
+
+        try (SpoolJournal journal = open()) {
+            List<SpoolJournal.Entry> entries = journal.read(100);
+            assertThat(entries).hasSize(6);
+            assertThat(entries.get(1).data()).isNull();
+
+            journal.commit(entries);
+
+            assertThat(journal.corruptRecords()).isEqualTo(1);
+            assertThat(journal.isEmpty()).isTrue();
+            assertThat(journal.pendingBytes()).isZero();
+        }
+    }
+
+    @Test
+    void tornTailOfNewestSegmentIsCutOnRecovery() throws IOException {
+        try (SpoolJournal journal = open()) {
+            journal.append(record(0));
+            journal.append(record(1));
+        }
+        flipByte(segmentFiles().get(0), text(1));
+
+        try (SpoolJournal journal = open()) {
+            assertThat(journal.pendingRecords()).isEqualTo(1);
+            journal.append("new".getBytes(StandardCharsets.UTF_8));
+            assertThat(texts(journal.read(100))).containsExactly(text(0), "new");
+        }
+    }
+
+    @Test
+    void rejectsRecordLargerThanSegment() throws IOException {
+        try (SpoolJournal journal = open()) {
+            assertThatThrownBy(() -> journal.append(new byte[SEGMENT_BYTES]))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("does not fit");
+            assertThat(journal.isEmpty()).isTrue();
+        }
+    }
+
+    private SpoolJournal open() throws IOException {
+        return new SpoolJournal(directory, SEGMENT_BYTES, Fsync.NEVER, true);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static void flipByte(Path segment, String text) throws IOException {
+        byte[] bytes = Files.readAllBytes(segment);
+        int at = new String(bytes, StandardCharsets.ISO_8859_1).indexOf(text);
+        assertThat(at).isNotNegative();
+        bytes[at] ^= 0x20;
+        Files.write(segment, bytes);
+    }
+
+    private static byte[] record(int i) {
+        return text(i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(int i) {
+        return "record-" + i + "-padding";
+    }
+
+    private static List<String> texts(List<SpoolJournal.Entry> entries) {
+        return entries.stream().map(e -> new String(e.data(), StandardCharsets.UTF_8)).toList();
+    }
+}
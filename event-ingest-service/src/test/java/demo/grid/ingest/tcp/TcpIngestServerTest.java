@@ -0,0 +1,182 @@
+package demo.grid.ingest.tcp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.ingest.config.IngestProperties;
+import demo.grid.ingest.service.EventIngestService;
+import demo.grid.ingest.service.PublishRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TcpIngestServerTest {
+
+    private final EventIngestService ingestService = mock(EventIngestService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TcpIngestServer server;
+
+    @BeforeEach
+    void setUp() {
+        IngestProperties properties = new IngestProperties();
+        properties.setApiKey("test-key");
+        properties.getTcp().setBindAddress("127.0.0.1");
+        properties.getTcp().setPort(0);
+        properties.getTcp().setMaxFrameSize(DataSize.ofBytes(128));
+        server = new TcpIngestServer(ingestService, new ObjectMapper(), properties, meterRegistry);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void publishesNewlineDelimitedEventsAndReportsMalformedOnes() throws IOException {
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key\n"
+                    + "{\"eventType\":\"PRICING\",\"payload\":{\"price\":1}}\r\n"
+                    + "\n"
+                    + "not json\n"
+                    + "{\"eventType\":\"ALERT\"}\n");
+
+            assertThat(in.readLine()).isEqualTo("OK default");
+            assertThat(in.readLine()).startsWith("ERR 2 malformed");
+            verify(ingestService, timeout(2_000)).publishAsync(eq("PRICING"), any(), isNull());
+            verify(ingestService, timeout(2_000)).publishAsync(eq("ALERT"), isNull(), isNull());
+        }
+        server.stop();
+        assertThat(meterRegistry.get("ingest.tcp.events").tag("outcome", "accepted").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("ingest.tcp.events").tag("outcome", "malformed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reportsNullEventAsMalformedAndKeepsTheConnection() throws IOException {
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key\nnull\n{\"eventType\":\"PRICING\"}\n");
+
+            assertThat(in.readLine()).isEqualTo("OK default");
+            assertThat(in.readLine()).startsWith("ERR 1 malformed");
+            verify(ingestService, timeout(2_000)).publishAsync(eq("PRICING"), isNull(), isNull());
+        }
+    }
+
+    @Test
+    void producerFailureClosesOnlyThatConnection() throws IOException {
+        when(ingestService.publishAsync(eq("PRICING"), any(), isNull()))
+                .thenThrow(new KafkaException("Producer closed forcefully"));
+
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key\n{\"eventType\":\"PRICING\"}\n{\"eventType\":\"ALERT\"}\n");
+
+            assertThat(in.readLine()).isEqualTo("OK default");
+            assertThat(in.readLine()).isEqualTo("ERR 1 unavailable: Producer closed forcefully");
+            assertThat(in.readLine()).isNull();
+        }
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key\n{\"eventType\":\"AUDIT\"}\n");
+
+            assertThat(in.readLine()).isEqualTo("OK default");
+            verify(ingestService, timeout(2_000)).publishAsync(eq("AUDIT"), isNull(), isNull());
+        }
+        verify(ingestService, never()).publishAsync(eq("ALERT"), any(), any());
+    }
+
+    @Test
+    void publishesLengthPrefixedEvents() throws IOException {
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key length\n");
+            assertThat(in.readLine()).isEqualTo("OK default");
+
+            byte[] event = "{\"eventType\":\"AUDIT\",\"payload\":{}}".getBytes(StandardCharsets.UTF_8);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(event.length);
+            out.write(event);
+            out.flush();
+
+            verify(ingestService, timeout(2_000)).publishAsync(eq("AUDIT"), any(), isNull());
+        }
+    }
+
+    @Test
+    void closesConnectionWithWrongKey() throws IOException {
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH wrong-key\n{\"eventType\":\"PRICING\"}\n");
+
+            assertThat(in.readLine()).isEqualTo("ERR unauthorized");
+            assertThat(in.readLine()).isNull();
+        }
+        assertThat(meterRegistry.get("ingest.tcp.auth.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void closesConnectionOnOversizedFrame() throws IOException {
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key\n{\"eventType\":\"PRICING\",\"payload\":\"" + "x".repeat(200) + "\"}\n");
+
+            assertThat(in.readLine()).isEqualTo("OK default");
+            assertThat(in.readLine()).isEqualTo("ERR frame too large (max 128 bytes)");
+            assertThat(in.readLine()).isNull();
+        }
+    }
+
+    @Test
+    void suspendsReadingWhilePublishWindowIsFull() throws IOException {
+        when(ingestService.publishAsync(eq("PRICING"), any(), isNull()))
+                .thenThrow(new PublishRejectedException("Publish window full", Duration.ofSeconds(1)))
+                .thenReturn(null);
+
+        try (Socket socket = connect()) {
+            BufferedReader in = reader(socket);
+            write(socket, "AUTH test-key\n{\"eventType\":\"PRICING\"}\n");
+            assertThat(in.readLine()).isEqualTo("OK default");
+
+            verify(ingestService, timeout(2_000).times(2)).publishAsync(eq("PRICING"), isNull(), isNull());
+        }
+        server.stop();
+        assertThat(meterRegistry.get("ingest.tcp.suspensions").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("ingest.tcp.events").tag("outcome", "accepted").counter().count()).isEqualTo(1);
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.localPort());
+        socket.setSoTimeout(5_000);
+        return socket;
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void write(Socket socket, String text) throws IOException {
+        socket.getOutputStream().write(text.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+    }
+}
@@ -5,6 +5,20 @@ plugins {
 dependencies {
     api("com.fasterxml.jackson.core:jackson-databind")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+    // Serializer/Deserializer for services that already depend on Kafka; not pulled in transitively
+    compileOnly("org.apache.kafka:kafka-clients")
+    compileOnly("org.slf4j:slf4j-api")
+    // ApiClients and DeadLetterReplayMetrics; the services bring Micrometer through actuator
+    compileOnly("io.micrometer:micrometer-core")
+    // DeadLetterReplayController, declared as a bean by the consumer services that enable replay
+    compileOnly("org.springframework:spring-web")
+    compileOnly("org.springdoc:springdoc-openapi-starter-webmvc-ui")
+    // ThreadingConfig, imported by the services that run on virtual threads
+    compileOnly("org.springframework.boot:spring-boot-autoconfigure")
+    compileOnly("io.micrometer:micrometer-java21")
+    testImplementation("org.apache.kafka:kafka-clients")
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("org.slf4j:slf4j-api")
+    testRuntimeOnly("org.slf4j:slf4j-simple")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
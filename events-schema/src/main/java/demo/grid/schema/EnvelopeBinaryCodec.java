@@ -0,0 +1,241 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link EventEnvelope}, version {@value #FORMAT_VERSION}.
+ * <pre>
+ * magic          1 byte  {@link #MAGIC}, never the first byte of a JSON document
+ * format version 1 byte
+ * eventId        2 x int64 (most, least significant bits)
+ * eventType      varint code: 1..n a {@link EventTypes} constant, 0 followed by a string
+ * occurredAt     int64 epoch nanoseconds
+ * producedAt     int64 epoch nanoseconds
+ * source         string
+ * correlationId  string
+ * version        string
+ * payload        varint length + 1 (0 for null), then the payload as UTF-8 JSON
+ * </pre>
+ * Strings are a varint of length + 1 (0 for null) followed by UTF-8 bytes; int64s are big-endian.
+ * Epoch nanoseconds cover the years 1677 to 2262.
+ */
+public final class EnvelopeBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xE7;
+    public static final byte FORMAT_VERSION = 1;
+
+    /** Wire codes for interned event types; append only, a code must never change meaning. */
+    private static final List<String> INTERNED_TYPES = List.of(
+            EventTypes.PRICING, EventTypes.ALERT, EventTypes.AUDIT, EventTypes.GENERIC);
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final ObjectMapper objectMapper;
+
+    public EnvelopeBinaryCodec() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * @param objectMapper used for the payload only
+     */
+    public EnvelopeBinaryCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return true if {@code data} starts with the binary envelope magic byte
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public byte[] encode(EventEnvelope envelope) throws IOException {
+        byte[] payload = envelope.payload() != null ? objectMapper.writeValueAsBytes(envelope.payload()) : null;
+        Writer out = new Writer(64 + (payload != null ? payload.length : 0));
+        out.writeByte(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(envelope.eventId().getMostSignificantBits());
+        out.writeLong(envelope.eventId().getLeastSignificantBits());
+        int typeCode = INTERNED_TYPES.indexOf(envelope.eventType());
+        out.writeVarint(typeCode + 1);
+        if (typeCode < 0) {
+            out.writeString(envelope.eventType());
+        }
+        out.writeLong(epochNanos(envelope.occurredAt()));
+        out.writeLong(epochNanos(envelope.producedAt()));
+        out.writeString(envelope.source());
+        out.writeString(envelope.correlationId());
+        out.writeString(envelope.version());
+        out.writeBytes(payload);
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IOException if {@code data} is not a binary envelope of a supported version or is truncated
+     */
+    public EventEnvelope decode(byte[] data) throws IOException {
+        LazyEventEnvelope lazy = decodeLazy(data);
+        return new EventEnvelope(lazy.eventId(), lazy.eventType(), lazy.occurredAt(), lazy.producedAt(),
+                lazy.source(), lazy.correlationId(), lazy.payloadTree(objectMapper), lazy.version());
+    }
+
+    /**
+     * Decodes the envelope fields and leaves the payload as a slice of {@code data}. The slice is not parsed, so
+     * it is only as valid as the JSON the producer encoded; {@link #decode} would reject a malformed one.
+     *
+     * @throws IOException if {@code data} is not a binary envelope of a supported version or is truncated
+     */
+    public LazyEventEnvelope decodeLazy(byte[] data) throws IOException {
+        if (!isBinary(data)) {
+            throw new IOException("Not a binary event envelope");
+        }
+        Reader in = new Reader(data);
+        in.readByte();
+        byte formatVersion = in.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary envelope version " + formatVersion);
+        }
+        UUID eventId = new UUID(in.readLong(), in.readLong());
+        int typeCode = in.readVarint();
+        String eventType;
+        if (typeCode == 0) {
+            eventType = in.readString();
+        } else if (typeCode <= INTERNED_TYPES.size()) {
+            eventType = INTERNED_TYPES.get(typeCode - 1);
+        } else {
+            throw new IOException("Unknown event type code " + typeCode);
+        }
+        Instant occurredAt = Instant.ofEpochSecond(0, in.readLong());
+        Instant producedAt = Instant.ofEpochSecond(0, in.readLong());
+        String source = in.readString();
+        String correlationId = in.readString();
+        String version = in.readString();
+        int payloadLength = in.readVarint() - 1;
+        RawJson payload = null;
+        if (payloadLength >= 0) {
+            payload = RawJson.wrap(data, in.claim(payloadLength), payloadLength);
+        }
+        try {
+            return new LazyEventEnvelope(eventId, eventType, occurredAt, producedAt, source, correlationId, payload,
+                    version);
+        } catch (NullPointerException e) {
+            throw new IOException("Binary envelope is missing a required field: " + e.getMessage(), e);
+        }
+    }
+
+    private static long epochNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            this.buf = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeLong(long v) {
+            ensure(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeVarint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeString(String s) {
+            writeBytes(s != null ? s.getBytes(StandardCharsets.UTF_8) : null);
+        }
+
+        void writeBytes(byte[] bytes) {
+            if (bytes == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() throws IOException {
+            return data[claim(1)];
+        }
+
+        long readLong() throws IOException {
+            int start = claim(Long.BYTES);
+            long v = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                v = (v << 8) | (data[start + i] & 0xFF);
+            }
+            return v;
+        }
+
+        int readVarint() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IOException("Malformed varint at byte " + pos);
+        }
+
+        String readString() throws IOException {
+            int length = readVarint() - 1;
+            return length < 0 ? null : new String(data, claim(length), length, StandardCharsets.UTF_8);
+        }
+
+        /** Advances past {@code n} bytes and returns where they start. */
+        int claim(int n) throws IOException {
+            if (n < 0 || n > data.length - pos) {
+                throw new IOException("Truncated binary envelope at byte " + pos);
+            }
+            int start = pos;
+            pos += n;
+            return start;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Builds new envelopes for a producer: fresh time-ordered eventId ({@link UuidV7}), occurredAt/producedAt set to now,
+ * {@link EventTypes#GENERIC} when no type is given and the eventId as correlationId when none is supplied.
+ * Shared by every ingest front end so they all stamp envelopes the same way.
+ */
+public final class EnvelopeFactory {
+
+    public static final String CURRENT_VERSION = "1";
+
+    private final String source;
+
+    public EnvelopeFactory(String source) {
+        this.source = source;
+    }
+
+    public EventEnvelope create(String eventType, JsonNode payload, String correlationId) {
+        Instant now = Instant.now();
+        UUID eventId = UuidV7.next();
+        String correlation = correlationId != null && !correlationId.isBlank() ? correlationId : eventId.toString();
+        return new EventEnvelope(
+                eventId,
+                eventType != null && !eventType.isBlank() ? eventType : EventTypes.GENERIC,
+                now,
+                now,
+                source,
+                correlation,
+                payload,
+                CURRENT_VERSION
+        );
+    }
+}
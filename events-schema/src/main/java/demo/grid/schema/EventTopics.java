@@ -0,0 +1,52 @@
+package demo.grid.schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-type topics. When a producer routes by type, each {@link #ROUTED_TYPES} event goes to
+ * {@code <base>.<type in lower case>} (grid.events.v1.pricing, ...) instead of the base topic, so a consumer group
+ * fetches only the types it subscribes to. Other event types stay on the base topic.
+ * <p>
+ * Subscriptions always include the base topic. It still carries unrouted types and whatever was produced before
+ * routing was switched on, so producers and consumers can be switched in either order.
+ */
+public final class EventTopics {
+
+    /** Event types that get their own topic. */
+    public static final List<String> ROUTED_TYPES = List.of(
+            EventTypes.PRICING, EventTypes.ALERT, EventTypes.AUDIT, EventTypes.GENERIC);
+
+    private EventTopics() {
+    }
+
+    /**
+     * @return the topic an event of {@code eventType} is routed to
+     */
+    public static String forType(String baseTopic, String eventType) {
+        return ROUTED_TYPES.contains(eventType) ? baseTopic + "." + eventType.toLowerCase(Locale.ROOT) : baseTopic;
+    }
+
+    /**
+     * @return the base topic followed by the topics of {@code eventTypes}
+     */
+    public static String[] subscription(String baseTopic, List<String> eventTypes) {
+        List<String> topics = new ArrayList<>(eventTypes.size() + 1);
+        topics.add(baseTopic);
+        for (String eventType : eventTypes) {
+            String topic = forType(baseTopic, eventType);
+            if (!topics.contains(topic)) {
+                topics.add(topic);
+            }
+        }
+        return topics.toArray(String[]::new);
+    }
+
+    /**
+     * @return every topic an event can be routed to, for consumers of all types
+     */
+    public static String[] all(String baseTopic) {
+        return subscription(baseTopic, ROUTED_TYPES);
+    }
+}
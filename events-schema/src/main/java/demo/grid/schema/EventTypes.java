@@ -12,6 +12,12 @@ public final class EventTypes {
     /** Generic/catch-all for events that don't match a specific domain type. */
     public static final String GENERIC = "GENERIC";
 
+    /**
+     * Kafka record header carrying {@link EventEnvelope#eventType()} as UTF-8, so consumers can drop records
+     * they do not handle without decoding them.
+     */
+    public static final String HEADER = "eventType";
+
     private EventTypes() {
     }
 }
@@ -0,0 +1,78 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * {@link EventEnvelope} as read by consumers that store the payload rather than inspect it: the envelope fields
+ * are decoded, the payload stays a slice of the consumed record's bytes. Writing it out as text is a copy of that
+ * slice; a tree is only built when {@link #payloadTree} is called.
+ */
+public record LazyEventEnvelope(
+        UUID eventId,
+        String eventType,
+        Instant occurredAt,
+        Instant producedAt,
+        String source,
+        String correlationId,
+        RawJson payload,
+        String version) {
+
+    public LazyEventEnvelope {
+        Objects.requireNonNull(eventId, "eventId");
+        Objects.requireNonNull(eventType, "eventType");
+        Objects.requireNonNull(occurredAt, "occurredAt");
+        Objects.requireNonNull(producedAt, "producedAt");
+        Objects.requireNonNull(source, "source");
+        Objects.requireNonNull(version, "version");
+    }
+
+    /**
+     * @return the payload JSON exactly as the producer wrote it, or null if there is none
+     */
+    public String payloadJson() {
+        return payload != null ? payload.getValue() : null;
+    }
+
+    /**
+     * Parses the payload. Not cached: callers that need it more than once should keep the result.
+     *
+     * @return the payload tree, or null if there is none
+     */
+    public JsonNode payloadTree(ObjectMapper objectMapper) throws IOException {
+        if (payload == null) {
+            return null;
+        }
+        try (JsonParser parser = payload.createParser(objectMapper.getFactory())) {
+            return objectMapper.readTree(parser);
+        }
+    }
+
+    /**
+     * @return the eager envelope, with the payload slice wrapped in a {@link RawJson#node()} rather than parsed,
+     *         so that serializing it writes the original bytes back out
+     */
+    public EventEnvelope toEnvelope() {
+        return new EventEnvelope(eventId, eventType, occurredAt, producedAt, source, correlationId,
+                payload != null ? payload.node() : null, version);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LazyEventEnvelope that = (LazyEventEnvelope) o;
+        return Objects.equals(eventId, that.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId);
+    }
+}
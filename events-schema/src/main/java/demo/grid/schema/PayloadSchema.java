@@ -0,0 +1,318 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The shape a payload must have, built once with the factory methods below and then used to validate
+ * any number of payloads concurrently. Building does the work up front: each object schema gets a hash
+ * index from field name to field schema and a bit mask of its required fields, so validation is one pass
+ * over the payload's tokens that allocates nothing unless it fails.
+ * <p>
+ * Objects accept fields they do not declare unless built with {@link ObjectBuilder#closed()}. An optional
+ * field may be absent or null; a required one must be present and not null.
+ */
+public final class PayloadSchema {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    /** Required fields are tracked as bits of a long. */
+    private static final int MAX_FIELDS = Long.SIZE;
+
+    private enum Kind { ANY, OBJECT, ARRAY, STRING, NUMBER, INTEGER, BOOLEAN }
+
+    private final Kind kind;
+    // OBJECT
+    private final Map<String, Integer> fieldIndex;
+    private final String[] fieldNames;
+    private final PayloadSchema[] fieldSchemas;
+    private final long requiredMask;
+    private final boolean closed;
+    // ARRAY
+    private final PayloadSchema items;
+    // STRING: length; ARRAY: element count
+    private final int minLength;
+    private final int maxLength;
+    // STRING
+    private final Set<String> allowed;
+    // NUMBER, INTEGER
+    private final double min;
+    private final double max;
+
+    private PayloadSchema(Kind kind, Map<String, Integer> fieldIndex, String[] fieldNames, PayloadSchema[] fieldSchemas,
+                          long requiredMask, boolean closed, PayloadSchema items, int minLength, int maxLength,
+                          Set<String> allowed, double min, double max) {
+        this.kind = kind;
+        this.fieldIndex = fieldIndex;
+        this.fieldNames = fieldNames;
+        this.fieldSchemas = fieldSchemas;
+        this.requiredMask = requiredMask;
+        this.closed = closed;
+        this.items = items;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.allowed = allowed;
+        this.min = min;
+        this.max = max;
+    }
+
+    private static PayloadSchema scalar(Kind kind, int minLength, int maxLength, Set<String> allowed, double min, double max) {
+        return new PayloadSchema(kind, null, null, null, 0, false, null, minLength, maxLength, allowed, min, max);
+    }
+
+    /** Any value, including null; nested content is skipped without being checked. */
+    public static PayloadSchema any() {
+        return scalar(Kind.ANY, 0, Integer.MAX_VALUE, null, 0, 0);
+    }
+
+    public static PayloadSchema string() {
+        return string(0, Integer.MAX_VALUE);
+    }
+
+    /** A string of {@code minLength} to {@code maxLength} UTF-16 chars. */
+    public static PayloadSchema string(int minLength, int maxLength) {
+        return scalar(Kind.STRING, minLength, maxLength, null, 0, 0);
+    }
+
+    /** One of {@code values}, compared exactly. */
+    public static PayloadSchema oneOf(String... values) {
+        return scalar(Kind.STRING, 0, Integer.MAX_VALUE, new LinkedHashSet<>(List.of(values)), 0, 0);
+    }
+
+    public static PayloadSchema number() {
+        return number(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /** Any JSON number in {@code [min, max]}. */
+    public static PayloadSchema number(double min, double max) {
+        return scalar(Kind.NUMBER, 0, 0, null, min, max);
+    }
+
+    /** A JSON number without fraction or exponent in {@code [min, max]}. */
+    public static PayloadSchema integer(long min, long max) {
+        return scalar(Kind.INTEGER, 0, 0, null, min, max);
+    }
+
+    public static PayloadSchema bool() {
+        return scalar(Kind.BOOLEAN, 0, 0, null, 0, 0);
+    }
+
+    public static PayloadSchema arrayOf(PayloadSchema items) {
+        return arrayOf(items, Integer.MAX_VALUE);
+    }
+
+    /** An array of at most {@code maxItems} elements, each matching {@code items}. */
+    public static PayloadSchema arrayOf(PayloadSchema items, int maxItems) {
+        return new PayloadSchema(Kind.ARRAY, null, null, null, 0, false, items, 0, maxItems, null, 0, 0);
+    }
+
+    public static ObjectBuilder object() {
+        return new ObjectBuilder();
+    }
+
+    /**
+     * Validates the value at the parser's current token, or at its next one if it has not been advanced
+     * yet, and leaves the parser on that value's last token.
+     *
+     * @throws PayloadValidationException at the first violation
+     * @throws IOException                if the input is not well-formed JSON
+     */
+    public void validate(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token == null) {
+            throw new PayloadValidationException("is missing");
+        }
+        check(parser, token);
+    }
+
+    /**
+     * Validates a payload tree, or the bytes behind a {@link RawJson} payload, in one streaming pass.
+     *
+     * @throws PayloadValidationException at the first violation
+     */
+    public void validate(JsonNode payload) {
+        RawJson raw = RawJson.from(payload);
+        try (JsonParser parser = raw != null ? raw.createParser(JSON_FACTORY) : payload.traverse()) {
+            validate(parser);
+        } catch (IOException e) {
+            // Trees cannot be malformed and RawJson slices were validated when they were cut.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void check(JsonParser parser, JsonToken token) throws IOException {
+        switch (kind) {
+            case ANY -> parser.skipChildren();
+            case STRING -> checkString(parser, token);
+            case NUMBER -> {
+                if (!token.isNumeric()) {
+                    throw new PayloadValidationException("must be a number");
+                }
+                checkRange(parser);
+            }
+            case INTEGER -> {
+                if (token != JsonToken.VALUE_NUMBER_INT) {
+                    throw new PayloadValidationException("must be an integer");
+                }
+                checkRange(parser);
+            }
+            case BOOLEAN -> {
+                if (!token.isBoolean()) {
+                    throw new PayloadValidationException("must be true or false");
+                }
+            }
+            case ARRAY -> checkArray(parser, token);
+            case OBJECT -> checkObject(parser, token);
+        }
+    }
+
+    private void checkString(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            throw new PayloadValidationException("must be a string");
+        }
+        if (allowed != null) {
+            if (!allowed.contains(parser.getText())) {
+                throw new PayloadValidationException("must be one of " + allowed);
+            }
+            return;
+        }
+        if (minLength > 0 || maxLength < Integer.MAX_VALUE) {
+            int length = parser.getTextLength();
+            if (length < minLength || length > maxLength) {
+                throw new PayloadValidationException("must be " + minLength + " to " + maxLength + " characters long");
+            }
+        }
+    }
+
+    private void checkRange(JsonParser parser) throws IOException {
+        if (min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        double value = parser.getDoubleValue();
+        if (value < min || value > max) {
+            throw new PayloadValidationException("must be between " + format(min) + " and " + format(max));
+        }
+    }
+
+    private void checkArray(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            throw new PayloadValidationException("must be an array");
+        }
+        int index = 0;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (index == maxLength) {
+                throw new PayloadValidationException("must have at most " + maxLength + " elements");
+            }
+            try {
+                items.check(parser, token);
+            } catch (PayloadValidationException e) {
+                throw e.atIndex(index);
+            }
+            index++;
+        }
+    }
+
+    private void checkObject(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new PayloadValidationException("must be an object");
+        }
+        long seen = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            Integer index = fieldIndex.get(name);
+            if (index == null) {
+                if (closed) {
+                    throw new PayloadValidationException("is not a known field").inField(name);
+                }
+                parser.skipChildren();
+                continue;
+            }
+            long bit = 1L << index;
+            if (token == JsonToken.VALUE_NULL && (requiredMask & bit) == 0) {
+                continue;
+            }
+            seen |= bit;
+            try {
+                if (token == JsonToken.VALUE_NULL) {
+                    throw new PayloadValidationException("must not be null");
+                }
+                fieldSchemas[index].check(parser, token);
+            } catch (PayloadValidationException e) {
+                throw e.inField(name);
+            }
+        }
+        long missing = requiredMask & ~seen;
+        if (missing != 0) {
+            throw new PayloadValidationException("is required").inField(fieldNames[Long.numberOfTrailingZeros(missing)]);
+        }
+    }
+
+    private static String format(double bound) {
+        return bound == Math.rint(bound) && Math.abs(bound) < 1e15 ? Long.toString((long) bound) : Double.toString(bound);
+    }
+
+    public static final class ObjectBuilder {
+        private final Map<String, PayloadSchema> fields = new LinkedHashMap<>();
+        private final Map<String, Boolean> required = new HashMap<>();
+        private boolean closed;
+
+        private ObjectBuilder() {
+        }
+
+        public ObjectBuilder required(String name, PayloadSchema schema) {
+            return field(name, schema, true);
+        }
+
+        public ObjectBuilder optional(String name, PayloadSchema schema) {
+            return field(name, schema, false);
+        }
+
+        /** Rejects fields that were not declared. */
+        public ObjectBuilder closed() {
+            this.closed = true;
+            return this;
+        }
+
+        public PayloadSchema build() {
+            Map<String, Integer> index = new HashMap<>();
+            String[] names = new String[fields.size()];
+            PayloadSchema[] schemas = new PayloadSchema[fields.size()];
+            long requiredMask = 0;
+            int i = 0;
+            for (Map.Entry<String, PayloadSchema> field : fields.entrySet()) {
+                index.put(field.getKey(), i);
+                names[i] = field.getKey();
+                schemas[i] = field.getValue();
+                if (required.get(field.getKey())) {
+                    requiredMask |= 1L << i;
+                }
+                i++;
+            }
+            return new PayloadSchema(Kind.OBJECT, index, names, schemas, requiredMask, closed, null,
+                    0, 0, null, 0, 0);
+        }
+
+        private ObjectBuilder field(String name, PayloadSchema schema, boolean isRequired) {
+            if (fields.containsKey(name)) {
+                throw new IllegalArgumentException("Field '" + name + "' is declared twice");
+            }
+            if (fields.size() == MAX_FIELDS) {
+                throw new IllegalArgumentException("An object schema can declare at most " + MAX_FIELDS + " fields");
+            }
+            fields.put(name, schema);
+            required.put(name, isRequired);
+            return this;
+        }
+    }
+}
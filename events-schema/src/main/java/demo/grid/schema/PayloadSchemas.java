@@ -0,0 +1,91 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static demo.grid.schema.PayloadSchema.number;
+import static demo.grid.schema.PayloadSchema.object;
+import static demo.grid.schema.PayloadSchema.string;
+
+/**
+ * Payload schema for each event type. Event types without a schema, such as {@link EventTypes#GENERIC},
+ * accept any payload, and a missing or null payload is never checked.
+ */
+public final class PayloadSchemas {
+
+    private static final PayloadSchemas NONE = new PayloadSchemas(Map.of());
+
+    private final Map<String, PayloadSchema> byEventType;
+
+    private PayloadSchemas(Map<String, PayloadSchema> byEventType) {
+        this.byEventType = byEventType;
+    }
+
+    /**
+     * Schemas for the standard {@link EventTypes}. They only check the types of the fields the documented
+     * examples carry, with no ranges or lengths, and leave everything else open, so producers can add
+     * fields without a release of this module.
+     */
+    public static PayloadSchemas standard() {
+        return builder()
+                .put(EventTypes.PRICING, object()
+                        .optional("price", number())
+                        .optional("currency", string())
+                        .optional("symbol", string())
+                        .build())
+                .put(EventTypes.ALERT, object()
+                        .optional("level", string())
+                        .optional("message", string())
+                        .build())
+                .put(EventTypes.AUDIT, object()
+                        .optional("action", string())
+                        .optional("actor", string())
+                        .optional("resource", string())
+                        .build())
+                .build();
+    }
+
+    /** Accepts every payload. */
+    public static PayloadSchemas none() {
+        return NONE;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the schema for {@code eventType}, or null if its payloads are not checked
+     */
+    public PayloadSchema forType(String eventType) {
+        return eventType != null ? byEventType.get(eventType) : null;
+    }
+
+    /**
+     * @throws PayloadValidationException if {@code payload} does not match the schema of {@code eventType}
+     */
+    public void validate(String eventType, JsonNode payload) {
+        PayloadSchema schema = forType(eventType);
+        if (schema != null && payload != null && !payload.isNull()) {
+            schema.validate(payload);
+        }
+    }
+
+    public static final class Builder {
+        private final Map<String, PayloadSchema> byEventType = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder put(String eventType, PayloadSchema schema) {
+            byEventType.put(eventType, schema);
+            return this;
+        }
+
+        public PayloadSchemas build() {
+            return new PayloadSchemas(Map.copyOf(byEventType));
+        }
+    }
+}
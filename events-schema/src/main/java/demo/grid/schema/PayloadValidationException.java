@@ -0,0 +1,50 @@
+package demo.grid.schema;
+
+/**
+ * A payload that does not match its event type's {@link PayloadSchema}. Only the first violation is
+ * reported. {@link #getPath()} locates it inside the payload, e.g. {@code legs[2].price}, empty for the
+ * payload itself.
+ */
+public class PayloadValidationException extends IllegalArgumentException {
+
+    private final String path;
+    private final String problem;
+
+    public PayloadValidationException(String problem) {
+        this("", problem);
+    }
+
+    /**
+     * @param path location inside the payload, as returned by {@link #getPath()}
+     */
+    public PayloadValidationException(String path, String problem) {
+        this.path = path;
+        this.problem = problem;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public String getMessage() {
+        return path.isEmpty() ? "payload " + problem : "payload." + path + " " + problem;
+    }
+
+    /** Validation unwinds through these on failure only, so the stack trace would just be recursion. */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    PayloadValidationException inField(String name) {
+        return new PayloadValidationException(path.isEmpty() || path.startsWith("[") ? name + path : name + "." + path,
+                problem);
+    }
+
+    PayloadValidationException atIndex(int index) {
+        String element = "[" + index + "]";
+        return new PayloadValidationException(path.isEmpty() || path.startsWith("[") ? element + path : element + "." + path,
+                problem);
+    }
+}
@@ -0,0 +1,192 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A slice of already-validated UTF-8 JSON that Jackson writes verbatim. Wrapped in a {@link JsonNode} via
+ * {@link #node()} it can stand in for {@link EventEnvelope#payload()} on the producer side, so the payload
+ * bytes received over HTTP are copied straight into the serialized envelope without building a tree.
+ * <p>
+ * Only meant for serialization: the node is a raw-value POJO node, so reading fields from it is not supported.
+ */
+public final class RawJson implements SerializableString {
+
+    private final byte[] buffer;
+    private final int offset;
+    private final int length;
+
+    private RawJson(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Wraps {@code buffer[offset, offset + length)} without copying. The caller must not modify the
+     * buffer afterwards and must have validated it, see {@link #valueEnd(JsonParser)}.
+     */
+    public static RawJson wrap(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException("slice [" + offset + ", " + (offset + length) + ") of " + buffer.length);
+        }
+        return new RawJson(buffer, offset, length);
+    }
+
+    /**
+     * Consumes the value the parser is positioned on, validating it token by token, and returns the
+     * byte offset just past its last byte. Use with {@code currentTokenLocation().getByteOffset()} taken
+     * before the call to find the value's slice in a byte-array parser's input.
+     */
+    public static int valueEnd(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isStructStart()) {
+            parser.skipChildren();
+        } else {
+            // Strings are decoded lazily; finishing the token both validates escapes and moves past the quote.
+            parser.finishToken();
+        }
+        return (int) parser.currentLocation().getByteOffset();
+    }
+
+    /**
+     * @return a node that serializes as these bytes
+     */
+    public JsonNode node() {
+        return JsonNodeFactory.instance.rawValueNode(new RawValue(this));
+    }
+
+    /**
+     * @return the slice behind a node made by {@link #node()}, or null if {@code node} is anything else
+     */
+    public static RawJson from(JsonNode node) {
+        return node instanceof POJONode pojo && pojo.getPojo() instanceof RawValue raw
+                && raw.rawValue() instanceof RawJson json ? json : null;
+    }
+
+    /** A parser over the slice, for reading it back without building a tree. */
+    public JsonParser createParser(JsonFactory factory) throws IOException {
+        return factory.createParser(buffer, offset, length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String getValue() {
+        return new String(buffer, offset, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int charLength() {
+        return getValue().length();
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] out, int outOffset) {
+        if (outOffset + length > out.length) {
+            return -1;
+        }
+        System.arraycopy(buffer, offset, out, outOffset, length);
+        return length;
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return Arrays.copyOfRange(buffer, offset, offset + length);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(buffer, offset, length);
+        return length;
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer out) {
+        if (length > out.remaining()) {
+            return -1;
+        }
+        out.put(buffer, offset, length);
+        return length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] out, int outOffset) {
+        String value = getValue();
+        if (outOffset + value.length() > out.length) {
+            return -1;
+        }
+        value.getChars(0, value.length(), out, outOffset);
+        return value.length();
+    }
+
+    // Jackson quotes only names and string values, never a raw value; these give the JSON string form of the
+    // slice's text, as SerializedString does, for callers that use it as one.
+
+    @Override
+    public char[] asQuotedChars() {
+        return JsonStringEncoder.getInstance().quoteAsString(getValue());
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] out, int outOffset) {
+        byte[] quoted = asQuotedUTF8();
+        if (outOffset + quoted.length > out.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, out, outOffset, quoted.length);
+        return quoted.length;
+    }
+
+    @Override
+    public int appendQuoted(char[] out, int outOffset) {
+        char[] quoted = asQuotedChars();
+        if (outOffset + quoted.length > out.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, out, outOffset, quoted.length);
+        return quoted.length;
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        byte[] quoted = asQuotedUTF8();
+        out.write(quoted);
+        return quoted.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer out) {
+        byte[] quoted = asQuotedUTF8();
+        if (quoted.length > out.remaining()) {
+            return -1;
+        }
+        out.put(quoted);
+        return quoted.length;
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+}
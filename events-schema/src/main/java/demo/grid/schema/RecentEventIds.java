@@ -0,0 +1,195 @@
+package demo.grid.schema;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Front filter for redelivered events: a Bloom filter of the eventIds a consumer has recently persisted. A miss
+ * means the event was not stored through this filter lately, so the consumer writes it without checking first;
+ * only a hit, a probable duplicate, is worth a lookup in the database, which also tells a true duplicate from a
+ * false positive (reported through {@link #falsePositives}).
+ * <p>
+ * Memory is bounded by rotating two generations: ids are added to the current one, lookups check both, and once
+ * the current one holds {@code expectedInsertions} ids it becomes the previous one and the old previous one is
+ * dropped. Each id is remembered for at least one full generation, and the false-positive rate stays at the
+ * configured one because neither generation is filled past its design capacity.
+ * <p>
+ * Lock-free: concurrent adds and lookups may race with a rotation and miss an id, which only costs the database
+ * round trip the filter would have saved.
+ */
+public class RecentEventIds {
+
+    private static final RecentEventIds DISABLED = new RecentEventIds();
+
+    private final int expectedInsertions;
+    private final int bits;
+    private final int hashes;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * @param expectedInsertions ids per generation
+     * @param falsePositiveRate  target probability that an id never added is reported as present
+     */
+    public RecentEventIds(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        this.expectedInsertions = expectedInsertions;
+        double ln2 = Math.log(2);
+        // A lookup checks both generations, so each gets half of the false-positive budget.
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate / 2) / (ln2 * ln2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * ln2));
+        this.current = new Generation(bits);
+        this.previous = new Generation(bits);
+    }
+
+    private RecentEventIds() {
+        this.expectedInsertions = 0;
+        this.bits = 0;
+        this.hashes = 0;
+    }
+
+    /**
+     * @return a filter that remembers nothing, for consumers with the front filter switched off
+     */
+    public static RecentEventIds disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return true if {@code eventId} was probably added within the last two generations
+     */
+    public boolean mightContain(UUID eventId) {
+        if (bits == 0) {
+            return false;
+        }
+        lookups.increment();
+        long h1 = mix(eventId.getMostSignificantBits() ^ mix(eventId.getLeastSignificantBits()));
+        long h2 = mix(h1 ^ eventId.getLeastSignificantBits()) | 1;
+        if (current.contains(h1, h2, bits, hashes) || previous.contains(h1, h2, bits, hashes)) {
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers an id the caller has durably stored (or found stored).
+     */
+    public void add(UUID eventId) {
+        if (bits == 0) {
+            return;
+        }
+        long h1 = mix(eventId.getMostSignificantBits() ^ mix(eventId.getLeastSignificantBits()));
+        long h2 = mix(h1 ^ eventId.getLeastSignificantBits()) | 1;
+        Generation generation = current;
+        generation.add(h1, h2, bits, hashes);
+        if (generation.count.incrementAndGet() == expectedInsertions) {
+            rotate(generation);
+        }
+    }
+
+    /**
+     * Reports hits that the database showed were not stored.
+     */
+    public void falsePositives(int count) {
+        falsePositives.add(count);
+    }
+
+    /** Lookups since start. */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /** Lookups that reported a probable duplicate. */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Share of lookups that reported a probable duplicate; 0 before the first lookup. */
+    public double hitRatio() {
+        long total = lookups.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Share of lookups for ids that were not stored which still reported a hit; 0 before the first such lookup.
+     * Ids that were stored before they fell out of the filter count as misses, so this is an upper bound.
+     */
+    public double falsePositiveRate() {
+        long falseHits = falsePositives.sum();
+        long negatives = lookups.sum() - hits.sum() + falseHits;
+        return negatives == 0 ? 0 : (double) falseHits / negatives;
+    }
+
+    /** Bytes held by both generations. */
+    public long sizeInBytes() {
+        return 2L * Generation.words(bits) * Long.BYTES;
+    }
+
+    private synchronized void rotate(Generation full) {
+        if (current == full) {
+            previous = full;
+            current = new Generation(bits);
+        }
+    }
+
+    /** MurmurHash3 finalizer; UUIDv7 ids share their leading timestamp bits, so both halves are mixed. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray words;
+        private final AtomicInteger count = new AtomicInteger();
+
+        Generation(int bits) {
+            this.words = new AtomicLongArray(words(bits));
+        }
+
+        static int words(int bits) {
+            return (bits + 63) >>> 6;
+        }
+
+        void add(long h1, long h2, int bits, int hashes) {
+            long h = h1;
+            for (int i = 0; i < hashes; i++) {
+                int bit = (int) Long.remainderUnsigned(h, bits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (a, b) -> a | b);
+                }
+                h += h2;
+            }
+        }
+
+        boolean contains(long h1, long h2, int bits, int hashes) {
+            long h = h1;
+            for (int i = 0; i < hashes; i++) {
+                int bit = (int) Long.remainderUnsigned(h, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+                h += h2;
+            }
+            return true;
+        }
+    }
+}
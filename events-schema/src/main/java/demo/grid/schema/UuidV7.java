@@ -0,0 +1,73 @@
+package demo.grid.schema;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered UUIDs, version 7 of RFC 9562, used for event ids.
+ * <pre>
+ * unix_ts_ms  48 bits  milliseconds since the epoch
+ * ver          4 bits  0b0111
+ * counter     12 bits  sub-millisecond sequence (RFC 9562 method 1)
+ * var          2 bits  0b10
+ * rand        62 bits  from {@link ThreadLocalRandom}
+ * </pre>
+ * Ids sort by creation time, so they land at the right-hand edge of a B-tree primary key instead of
+ * splitting pages all over it the way random v4 ids do. Generation takes no lock and does not touch
+ * {@code SecureRandom}: each thread keeps its own last timestamp and counter, so ids from one thread are
+ * strictly increasing, while ids from different threads in the same millisecond are ordered only by their
+ * random bits. They are unguessable only to the extent of 62 non-cryptographic random bits and reveal the
+ * creation time, which an event id already carries in {@code occurredAt}.
+ */
+public final class UuidV7 {
+
+    static final int COUNTER_BITS = 12;
+    static final int COUNTER_MAX = (1 << COUNTER_BITS) - 1;
+
+    private static final ThreadLocal<Sequence> SEQUENCE = ThreadLocal.withInitial(Sequence::new);
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        return SEQUENCE.get().next(System.currentTimeMillis());
+    }
+
+    /**
+     * @return the millisecond timestamp of a version 7 UUID
+     * @throws IllegalArgumentException if {@code uuid} is not version 7
+     */
+    public static long unixMillis(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Per-thread state. When the clock stands still or steps back, the counter keeps counting on the last
+     * timestamp; if it runs out, the timestamp is moved one millisecond ahead of the clock, which it catches
+     * up with as soon as 4096 ids per millisecond are no longer being drawn.
+     */
+    static final class Sequence {
+        private long lastMillis = Long.MIN_VALUE;
+        private int counter;
+
+        UUID next(long nowMillis) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (nowMillis > lastMillis) {
+                lastMillis = nowMillis;
+                // Start in the lower half so a burst in this millisecond has room before it overflows.
+                counter = random.nextInt(COUNTER_MAX >>> 1);
+            } else if (counter < COUNTER_MAX) {
+                counter++;
+            } else {
+                lastMillis++;
+                counter = 0;
+            }
+            long msb = (lastMillis << 16) | 0x7000L | counter;
+            long lsb = (random.nextLong() >>> 2) | 0x8000_0000_0000_0000L;
+            return new UUID(msb, lsb);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package demo.grid.schema.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The API keys an ingest service accepts, each resolved to a configured client name with its own
+ * {@link TokenBucket}. Shared by the servlet and reactive ingest filters so both read {@code app.api-key},
+ * {@code app.api-keys} and {@code app.rate-limit} the same way.
+ * <p>
+ * Admitted and rejected requests are counted as {@code ingest.api.requests} per client name, which comes
+ * only from configuration, so the {@code client} tag cannot grow with the keys callers send.
+ */
+public final class ApiClients {
+
+    /** Client name of the single {@code app.api-key}. */
+    public static final String DEFAULT_CLIENT = "default";
+
+    private final Map<String, Client> clientsByKey = new HashMap<>();
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param keys      named keys from {@code app.api-keys}
+     * @param legacyKey {@code app.api-key}, registered as {@link #DEFAULT_CLIENT} unless blank or already named
+     * @throws IllegalArgumentException if a key is blank or two clients share a key
+     */
+    public ApiClients(List<Key> keys, String legacyKey, RateLimit rateLimit,
+                      MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        for (Key key : keys) {
+            register(key, rateLimit, meterRegistry);
+        }
+        if (legacyKey != null && !legacyKey.isBlank() && !clientsByKey.containsKey(legacyKey)) {
+            register(new Key(DEFAULT_CLIENT, legacyKey, null, null), rateLimit, meterRegistry);
+        }
+    }
+
+    private void register(Key key, RateLimit rateLimit, MeterRegistry meterRegistry) {
+        if (key.key() == null || key.key().isBlank()) {
+            throw new IllegalArgumentException("API key '" + key.name() + "' has no key");
+        }
+        Double limit = key.rate() != null ? key.rate() : rateLimit.defaultRate();
+        TokenBucket bucket = rateLimit.enabled() && limit != null
+                ? new TokenBucket(limit, key.burst() != null ? key.burst() : rateLimit.defaultBurst(),
+                        nanoClock.getAsLong())
+                : null;
+        Client previous = clientsByKey.put(key.key(), new Client(key.name(), bucket,
+                requests(meterRegistry, key.name(), "admitted"), requests(meterRegistry, key.name(), "rejected")));
+        if (previous != null) {
+            throw new IllegalArgumentException(
+                    "API keys '" + previous.name() + "' and '" + key.name() + "' share a key");
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String client, String outcome) {
+        return Counter.builder("ingest.api.requests")
+                .description("Authenticated ingest requests by client and rate-limit outcome")
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the client the key belongs to, or null for a missing or unknown key
+     */
+    public Client resolve(String providedKey) {
+        return providedKey != null ? clientsByKey.get(providedKey) : null;
+    }
+
+    /**
+     * @return value of the Retry-After header for a request refused with {@code waitNanos} left to wait
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+    }
+
+    /** A named key; rate (requests per second) and burst override the {@link RateLimit} defaults. */
+    public record Key(String name, String key, Double rate, Integer burst) {}
+
+    /**
+     * @param defaultRate requests per second for keys without their own rate; null leaves those keys unlimited
+     */
+    public record RateLimit(boolean enabled, Double defaultRate, int defaultBurst) {}
+
+    public final class Client {
+        private final String name;
+        private final TokenBucket bucket;
+        private final Counter admitted;
+        private final Counter rejected;
+
+        private Client(String name, TokenBucket bucket, Counter admitted, Counter rejected) {
+            this.name = name;
+            this.bucket = bucket;
+            this.admitted = admitted;
+            this.rejected = rejected;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Takes a token from this client's bucket and counts the outcome.
+         *
+         * @return 0 if the request is admitted, otherwise nanoseconds until it would be
+         */
+        public long tryAdmit() {
+            long waitNanos = bucket != null ? bucket.tryAcquire(nanoClock.getAsLong()) : 0;
+            (waitNanos > 0 ? rejected : admitted).increment();
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package demo.grid.schema.kafka;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoints for a service's {@link DeadLetterReplayer}. Not component-scanned: a service that enables replay
+ * declares it as a bean next to its replayer.
+ */
+@Tag(name = "Replay", description = "Replay retry and dead-letter topics through this service's listener")
+@RestController
+@RequestMapping("/api/admin/replays")
+public class DeadLetterReplayController {
+
+    private final DeadLetterReplayer<?> replayer;
+
+    public DeadLetterReplayController(DeadLetterReplayer<?> replayer) {
+        this.replayer = replayer;
+    }
+
+    @Operation(summary = "Start a replay",
+            description = "Replays a retry or dead-letter topic, optionally only records from/to a timestamp, at up"
+                    + " to ratePerSecond on up to concurrency threads (0: the configured maximum)")
+    @PostMapping
+    public ResponseEntity<DeadLetterReplayer.Status> start(@RequestBody DeadLetterReplayer.Request request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayer.start(request));
+    }
+
+    @Operation(summary = "List replays", description = "Running and recently finished replays, oldest first")
+    @GetMapping
+    public List<DeadLetterReplayer.Status> list() {
+        return replayer.statuses();
+    }
+
+    @Operation(summary = "Get replay progress")
+    @GetMapping("/{id}")
+    public ResponseEntity<DeadLetterReplayer.Status> get(
+            @Parameter(description = "Replay ID") @PathVariable String id) {
+        return replayer.status(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Cancel a replay",
+            description = "Stops after the record in hand; what was replayed stays stored")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<DeadLetterReplayer.Status> cancel(
+            @Parameter(description = "Replay ID") @PathVariable String id) {
+        if (!replayer.cancel(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayer.status(id).orElseThrow());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return error(HttpStatus.BAD_REQUEST, ex);
+    }
+
+    /** Thrown when the configured number of replays is already running. */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleBusy(IllegalStateException ex) {
+        return error(HttpStatus.CONFLICT, ex);
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, Exception ex) {
+        return ResponseEntity.status(status)
+                .body(Map.of("error", status.getReasonPhrase(), "message", String.valueOf(ex.getMessage())));
+    }
+}
@@ -0,0 +1,50 @@
+package demo.grid.schema.kafka;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * {@code grid.replay.*} meters for a service's {@link DeadLetterReplayer}: running jobs, records by outcome, and the
+ * remaining records, progress and ETA of the running jobs.
+ */
+public class DeadLetterReplayMetrics implements MeterBinder {
+
+    private final DeadLetterReplayer<?> replayer;
+
+    public DeadLetterReplayMetrics(DeadLetterReplayer<?> replayer) {
+        this.replayer = replayer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grid.replay.jobs.active", replayer, DeadLetterReplayer::running)
+                .description("Replay jobs running")
+                .register(registry);
+        replayedRecords(registry, "replayed", DeadLetterReplayer::replayed);
+        replayedRecords(registry, "failed", DeadLetterReplayer::failed);
+        replayedRecords(registry, "skipped", DeadLetterReplayer::skipped);
+        Gauge.builder("grid.replay.remaining", replayer, DeadLetterReplayer::remaining)
+                .description("Records left in the ranges of running replay jobs")
+                .register(registry);
+        Gauge.builder("grid.replay.progress", replayer, DeadLetterReplayer::progress)
+                .description("Share of the ranges of running replay jobs handled so far")
+                .register(registry);
+        Gauge.builder("grid.replay.eta", replayer, DeadLetterReplayer::etaSeconds)
+                .description("Time until the slowest running replay job finishes at its rate so far")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private void replayedRecords(MeterRegistry registry, String outcome,
+                                 ToDoubleFunction<DeadLetterReplayer<?>> count) {
+        FunctionCounter.builder("grid.replay.records", replayer, count)
+                .description("Replayed records by outcome: replayed, failed (the listener threw again) or skipped"
+                        + " (an event type not consumed here)")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,576 @@
+package demo.grid.schema.kafka;
+
+import demo.grid.schema.UuidV7;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Replays a range of a retry or dead-letter topic through a listener method. Each job reads its topic with its own
+ * consumers, assigned rather than subscribed and never committing, so the live consumer group is neither rebalanced
+ * nor charged for the replay's offsets, and hands every record with an offset inside the range to the handler.
+ * <p>
+ * Replay competes with live partitions for the handler's database and CPU, so it is throttled: each job is paced to
+ * its rate, capped at {@code maxRate}, and all jobs share a pool of {@code maxConcurrency} low-priority threads, each
+ * reading a share of the topic's partitions. At most {@code maxJobs} run at a time.
+ * <p>
+ * A record the handler fails on again is counted and left where it is; nothing is removed from the source topic.
+ * <p>
+ * A batch listener is given each poll's records in range as lists of at most one second's worth at the job's rate
+ * (see {@link #batched}). Pacing still counts records: a list is handed over at the slot its last record would have
+ * had on its own, and if the listener throws, every record in it counts as failed.
+ *
+ * @param <V> the value type the listener takes
+ */
+public class DeadLetterReplayer<V> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    /** Finished jobs kept for status queries. */
+    private static final int FINISHED_JOBS_KEPT = 20;
+
+    /** Handles one replayed record, as the listener would have. */
+    @FunctionalInterface
+    public interface Handler<V> {
+        void replay(String key, V value) throws Exception;
+    }
+
+    /** Handles a list of replayed records, as a batch listener would have. */
+    @FunctionalInterface
+    public interface BatchHandler<V> {
+        void replay(List<V> values) throws Exception;
+    }
+
+    public enum State { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    /**
+     * @param topic         retry or dead-letter topic to read
+     * @param from          first record timestamp to replay; null for the start of the topic
+     * @param to            replay records before this timestamp; null for everything in the topic when the job starts
+     * @param ratePerSecond records per second; 0 or more than the configured maximum means the maximum
+     * @param concurrency   threads reading the topic; 0 or more than the configured maximum means the maximum
+     */
+    public record Request(String topic, Instant from, Instant to, double ratePerSecond, int concurrency) {
+    }
+
+    /**
+     * @param total      records in the range when the job started
+     * @param skipped    records the deserializer dropped (event types not consumed here)
+     * @param progress   share of the range handled, 0 to 1
+     * @param etaSeconds time left at the rate achieved so far; null until the first record is handled
+     */
+    public record Status(
+            String id,
+            String topic,
+            State state,
+            double ratePerSecond,
+            int concurrency,
+            long total,
+            long replayed,
+            long failed,
+            long skipped,
+            double progress,
+            Long etaSeconds,
+            Instant startedAt,
+            Instant finishedAt,
+            String lastError) {
+    }
+
+    private final Supplier<Consumer<String, V>> consumers;
+    private final Handler<V> handler;
+    private final BatchHandler<V> batchHandler;
+    private final Predicate<String> replayable;
+    private final double maxRate;
+    private final int maxConcurrency;
+    private final int maxJobs;
+    private final ExecutorService workers;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param consumers      creates a consumer with the listener's deserializers; it is closed by the replayer
+     * @param handler        the listener method
+     * @param replayable     topics this service may replay, see {@link #retryTopicsOf}
+     * @param maxRate        records per second one job may replay
+     * @param maxConcurrency threads shared by all jobs
+     * @param maxJobs        jobs that may run at once
+     */
+    public DeadLetterReplayer(Supplier<Consumer<String, V>> consumers,
+                              Handler<V> handler,
+                              Predicate<String> replayable,
+                              double maxRate,
+                              int maxConcurrency,
+                              int maxJobs) {
+        this(consumers, handler, null, replayable, maxRate, maxConcurrency, maxJobs);
+    }
+
+    private DeadLetterReplayer(Supplier<Consumer<String, V>> consumers,
+                               Handler<V> handler,
+                               BatchHandler<V> batchHandler,
+                               Predicate<String> replayable,
+                               double maxRate,
+                               int maxConcurrency,
+                               int maxJobs) {
+        if (!(maxRate > 0) || maxConcurrency <= 0 || maxJobs <= 0) {
+            throw new IllegalArgumentException("maxRate, maxConcurrency and maxJobs must be positive");
+        }
+        this.consumers = consumers;
+        this.handler = handler;
+        this.batchHandler = batchHandler;
+        this.replayable = replayable;
+        this.maxRate = maxRate;
+        this.maxConcurrency = maxConcurrency;
+        this.maxJobs = maxJobs;
+        this.workers = Executors.newFixedThreadPool(maxConcurrency, replayThreads());
+    }
+
+    /**
+     * A replayer for a batch listener; the parameters are those of the constructor.
+     *
+     * @param handler the batch listener method
+     */
+    public static <V> DeadLetterReplayer<V> batched(Supplier<Consumer<String, V>> consumers,
+                                                    BatchHandler<V> handler,
+                                                    Predicate<String> replayable,
+                                                    double maxRate,
+                                                    int maxConcurrency,
+                                                    int maxJobs) {
+        return new DeadLetterReplayer<>(consumers, null, handler, replayable, maxRate, maxConcurrency, maxJobs);
+    }
+
+    /**
+     * @return the retry and dead-letter topics {@code @RetryableTopic} and the batch error handlers derive from the
+     *         listener's topics: {@code <topic>-retry...} and {@code <topic>-dlt}
+     */
+    public static Predicate<String> retryTopicsOf(String... sourceTopics) {
+        List<String> topics = List.of(sourceTopics);
+        return topic -> topics.stream()
+                .anyMatch(source -> topic.equals(source + "-dlt") || topic.startsWith(source + "-retry"));
+    }
+
+    /**
+     * Plans the job's offset range and starts replaying it.
+     *
+     * @throws IllegalArgumentException if the topic is not replayable or does not exist
+     * @throws IllegalStateException    if {@code maxJobs} jobs are running
+     */
+    public Status start(Request request) {
+        if (request.topic() == null || !replayable.test(request.topic())) {
+            throw new IllegalArgumentException("Not a retry or dead-letter topic of this service: " + request.topic());
+        }
+        if (request.from() != null && request.to() != null && !request.from().isBefore(request.to())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        double rate = request.ratePerSecond() > 0 ? Math.min(request.ratePerSecond(), maxRate) : maxRate;
+        int concurrency = request.concurrency() > 0 ? Math.min(request.concurrency(), maxConcurrency) : maxConcurrency;
+
+        Map<TopicPartition, long[]> ranges = plan(request);
+        List<List<TopicPartition>> shares = new ArrayList<>();
+        int i = 0;
+        for (TopicPartition partition : ranges.keySet()) {
+            if (shares.size() < concurrency) {
+                shares.add(new ArrayList<>());
+            }
+            shares.get(i++ % concurrency).add(partition);
+        }
+
+        Job job;
+        synchronized (jobs) {
+            if (running() >= maxJobs) {
+                throw new IllegalStateException(maxJobs + " replay job(s) already running");
+            }
+            job = new Job(UuidV7.next().toString(), request.topic(), rate, shares.size(), ranges);
+            jobs.put(job.id, job);
+            prune();
+        }
+        log.info("Replaying {} records of {} at {}/s on {} thread(s), job {}",
+                job.total, job.topic, rate, shares.size(), job.id);
+        if (shares.isEmpty()) {
+            job.workerDone(null);
+        }
+        for (List<TopicPartition> share : shares) {
+            workers.execute(() -> drain(job, share));
+        }
+        return job.status();
+    }
+
+    public Optional<Status> status(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).map(Job::status);
+        }
+    }
+
+    /** Running and recently finished jobs, oldest first. */
+    public List<Status> statuses() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(Job::status).toList();
+        }
+    }
+
+    /**
+     * Stops a job after the record or list in hand; what was replayed stays replayed.
+     *
+     * @return false if there is no such job
+     */
+    public boolean cancel(String id) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            return false;
+        }
+        job.cancelled = true;
+        return true;
+    }
+
+    /** Records handled by all jobs since start. */
+    public long replayed() {
+        return replayed.sum();
+    }
+
+    /** Records the handler failed on again. */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /** Records dropped by the deserializer. */
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    public int running() {
+        synchronized (jobs) {
+            return (int) jobs.values().stream().filter(job -> job.state == State.RUNNING).count();
+        }
+    }
+
+    /** Records left in the ranges of running jobs. */
+    public long remaining() {
+        synchronized (jobs) {
+            return jobs.values().stream().filter(job -> job.state == State.RUNNING).mapToLong(Job::remaining).sum();
+        }
+    }
+
+    /** Share of the ranges of running jobs that has been handled; 0 when none is running. */
+    public double progress() {
+        synchronized (jobs) {
+            long total = 0;
+            long done = 0;
+            for (Job job : jobs.values()) {
+                if (job.state == State.RUNNING) {
+                    total += job.total;
+                    done += job.handled();
+                }
+            }
+            return total == 0 ? 0 : (double) done / total;
+        }
+    }
+
+    /** Seconds until the slowest running job finishes at its rate so far; 0 when none is running. */
+    public double etaSeconds() {
+        synchronized (jobs) {
+            return jobs.values().stream()
+                    .filter(job -> job.state == State.RUNNING)
+                    .map(Job::etaSeconds)
+                    .mapToLong(eta -> eta != null ? eta : 0)
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    /** Cancels running jobs and interrupts their threads. */
+    @Override
+    public void close() {
+        synchronized (jobs) {
+            jobs.values().forEach(job -> job.cancelled = true);
+        }
+        workers.shutdownNow();
+    }
+
+    /** Start and end offset of each partition, from the earliest offset at or after {@code from}. */
+    private Map<TopicPartition, long[]> plan(Request request) {
+        try (Consumer<String, V> consumer = consumers.get()) {
+            List<PartitionInfo> infos = consumer.partitionsFor(request.topic());
+            if (infos == null || infos.isEmpty()) {
+                throw new IllegalArgumentException("Unknown topic: " + request.topic());
+            }
+            List<TopicPartition> partitions = infos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            Map<TopicPartition, Long> starts = request.from() != null
+                    ? offsetsAt(consumer, partitions, request.from())
+                    : consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> ends = request.to() != null
+                    ? offsetsAt(consumer, partitions, request.to())
+                    : consumer.endOffsets(partitions);
+            Map<TopicPartition, long[]> ranges = new LinkedHashMap<>();
+            for (TopicPartition partition : partitions) {
+                long start = starts.get(partition);
+                long end = ends.get(partition);
+                if (start < end) {
+                    ranges.put(partition, new long[]{start, end});
+                }
+            }
+            return ranges;
+        }
+    }
+
+    /** First offset at or after the timestamp; the end offset where every record is older. */
+    private static Map<TopicPartition, Long> offsetsAt(Consumer<String, ?> consumer,
+                                                       List<TopicPartition> partitions,
+                                                       Instant timestamp) {
+        Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(partition -> query.put(partition, timestamp.toEpochMilli()));
+        Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+        Map<TopicPartition, Long> ends = consumer.endOffsets(partitions);
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            OffsetAndTimestamp offset = found.get(partition);
+            offsets.put(partition, offset != null ? offset.offset() : ends.get(partition));
+        }
+        return offsets;
+    }
+
+    private void drain(Job job, List<TopicPartition> partitions) {
+        Throwable error = null;
+        try (Consumer<String, V> consumer = consumers.get()) {
+            consumer.assign(partitions);
+            List<TopicPartition> open = new ArrayList<>(partitions);
+            for (TopicPartition partition : partitions) {
+                consumer.seek(partition, job.ranges.get(partition)[0]);
+            }
+            while (!open.isEmpty() && !job.cancelled) {
+                ConsumerRecords<String, V> records = consumer.poll(POLL_TIMEOUT);
+                List<ConsumerRecord<String, V>> inRange = new ArrayList<>(records.count());
+                for (TopicPartition partition : records.partitions()) {
+                    long end = job.ranges.get(partition)[1];
+                    for (ConsumerRecord<String, V> record : records.records(partition)) {
+                        if (record.offset() >= end) {
+                            break;
+                        }
+                        inRange.add(record);
+                    }
+                }
+                replay(job, inRange);
+                for (Iterator<TopicPartition> it = open.iterator(); it.hasNext(); ) {
+                    TopicPartition partition = it.next();
+                    if (consumer.position(partition) >= job.ranges.get(partition)[1]) {
+                        consumer.pause(List.of(partition));
+                        it.remove();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            job.cancelled = true;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Replay job {} stopped reading {}", job.id, partitions, e);
+            error = e;
+        }
+        job.workerDone(error);
+    }
+
+    /** Hands one poll's records in range to the handler, one by one or in lists of {@link Job#batchSize}. */
+    private void replay(Job job, List<ConsumerRecord<String, V>> records) throws InterruptedException {
+        int size = batchHandler != null ? job.batchSize : 1;
+        for (int from = 0; from < records.size() && !job.cancelled; from += size) {
+            List<ConsumerRecord<String, V>> slice = records.subList(from, Math.min(records.size(), from + size));
+            job.pace(slice.size());
+            if (batchHandler != null) {
+                replayBatch(job, slice);
+            } else {
+                replay(job, slice.get(0));
+            }
+        }
+    }
+
+    private void replay(Job job, ConsumerRecord<String, V> record) {
+        if (record.value() == null) {
+            job.skipped.increment();
+            skipped.increment();
+            return;
+        }
+        try {
+            handler.replay(record.key(), record.value());
+            job.replayed.increment();
+            replayed.increment();
+        } catch (Exception e) {
+            job.failed.increment();
+            failed.increment();
+            job.lastError = e.toString();
+            log.warn("Replay of {}-{}@{} failed again, job {}: {}",
+                    record.topic(), record.partition(), record.offset(), job.id, e.toString());
+        }
+    }
+
+    private void replayBatch(Job job, List<ConsumerRecord<String, V>> records) {
+        List<V> values = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, V> record : records) {
+            if (record.value() != null) {
+                values.add(record.value());
+            }
+        }
+        int dropped = records.size() - values.size();
+        job.skipped.add(dropped);
+        skipped.add(dropped);
+        if (values.isEmpty()) {
+            return;
+        }
+        try {
+            batchHandler.replay(values);
+            job.replayed.add(values.size());
+            replayed.add(values.size());
+        } catch (Exception e) {
+            job.failed.add(values.size());
+            failed.add(values.size());
+            job.lastError = e.toString();
+            ConsumerRecord<String, V> first = records.get(0);
+            log.warn("Replay of {} records from {}-{}@{} failed again, job {}: {}",
+                    values.size(), first.topic(), first.partition(), first.offset(), job.id, e.toString());
+        }
+    }
+
+    /** Drops the oldest finished jobs beyond {@link #FINISHED_JOBS_KEPT}; callers hold the jobs lock. */
+    private void prune() {
+        long finished = jobs.values().stream().filter(job -> job.state != State.RUNNING).count();
+        for (Iterator<Job> it = jobs.values().iterator(); it.hasNext() && finished > FINISHED_JOBS_KEPT; ) {
+            if (it.next().state != State.RUNNING) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+
+    private static ThreadFactory replayThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "dlt-replay-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    private static final class Job {
+        final String id;
+        final String topic;
+        final double rate;
+        final int concurrency;
+        final Map<TopicPartition, long[]> ranges;
+        final long total;
+        final long intervalNanos;
+        /** Longest list handed to a batch handler: one second of records at the job's rate. */
+        final int batchSize;
+        final Instant startedAt = Instant.now();
+        final long startNanos = System.nanoTime();
+        final LongAdder replayed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final AtomicInteger workers;
+        volatile boolean cancelled;
+        volatile State state = State.RUNNING;
+        volatile Instant finishedAt;
+        volatile String lastError;
+        volatile boolean broken;
+        private long nextSlot;
+
+        Job(String id, String topic, double rate, int concurrency, Map<TopicPartition, long[]> ranges) {
+            this.id = id;
+            this.topic = topic;
+            this.rate = rate;
+            this.concurrency = concurrency;
+            this.ranges = ranges;
+            this.total = ranges.values().stream().mapToLong(range -> range[1] - range[0]).sum();
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            this.batchSize = (int) Math.max(1, Math.min(Math.ceil(rate), Integer.MAX_VALUE));
+            this.workers = new AtomicInteger(Math.max(1, concurrency));
+            this.nextSlot = startNanos;
+        }
+
+        /**
+         * Takes the job's next {@code records} slots and waits for the last of them; slots are shared by its threads
+         * and missed ones are not made up.
+         */
+        void pace(int records) throws InterruptedException {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(nextSlot, now);
+                nextSlot = slot + intervalNanos * records;
+                wait = slot + intervalNanos * (records - 1) - now;
+            }
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+
+        long handled() {
+            return replayed.sum() + failed.sum() + skipped.sum();
+        }
+
+        long remaining() {
+            return Math.max(0, total - handled());
+        }
+
+        Long etaSeconds() {
+            long handled = handled();
+            if (state != State.RUNNING) {
+                return 0L;
+            }
+            if (handled == 0) {
+                return null;
+            }
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            return (long) Math.ceil(remaining() * elapsedSeconds / handled);
+        }
+
+        /** Called once by each thread, or once for an empty range; the last call settles the state. */
+        void workerDone(Throwable error) {
+            if (error != null) {
+                lastError = error.toString();
+                broken = true;
+                cancelled = true;
+            }
+            if (workers.decrementAndGet() == 0) {
+                finishedAt = Instant.now();
+                state = broken ? State.FAILED : cancelled ? State.CANCELLED : State.COMPLETED;
+                log.info("Replay job {} {}: {} replayed, {} failed, {} skipped of {}",
+                        id, state, replayed.sum(), failed.sum(), skipped.sum(), total);
+            }
+        }
+
+        Status status() {
+            return new Status(id, topic, state, rate, concurrency, total, replayed.sum(), failed.sum(),
+                    skipped.sum(), total == 0 ? 1 : Math.min(1, (double) handled() / total), etaSeconds(),
+                    startedAt, finishedAt, lastError);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package demo.grid.schema.kafka;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+final class EnvelopeObjectMappers {
+
+    private EnvelopeObjectMappers() {
+    }
+
+    /**
+     * Matches what spring-kafka's JsonSerializer/JsonDeserializer wrote and accepted, so either side can be
+     * switched independently.
+     */
+    static ObjectMapper create() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
@@ -0,0 +1,72 @@
+package demo.grid.schema.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.schema.EnvelopeBinaryCodec;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTypes;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads {@link EventEnvelope}s in either {@link WireFormat}. The {@value WireFormat#CONTENT_TYPE_HEADER}
+ * header decides when present; records without it (older producers) are recognised by their first byte,
+ * so consumers can be deployed before producers switch format.
+ * <p>
+ * With {@value #EVENT_TYPES_CONFIG} set, records whose {@value EventTypes#HEADER} header names another event type
+ * are returned as null without being decoded. This has to happen here: the container's record filter only sees
+ * records after poll() has deserialized them. Records without the header are always decoded.
+ */
+public class EventEnvelopeDeserializer implements Deserializer<EventEnvelope> {
+
+    /** Comma-separated event types to decode; all when unset. */
+    public static final String EVENT_TYPES_CONFIG = "grid.envelope.event-types";
+
+    private final ObjectMapper objectMapper = EnvelopeObjectMappers.create();
+    private final EnvelopeBinaryCodec binaryCodec = new EnvelopeBinaryCodec(objectMapper);
+    private final EventTypeFilter filter;
+
+    public EventEnvelopeDeserializer() {
+        this(SkippedEnvelopeStats.global());
+    }
+
+    EventEnvelopeDeserializer(SkippedEnvelopeStats skippedStats) {
+        this.filter = new EventTypeFilter(skippedStats);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        filter.configure(configs);
+    }
+
+    @Override
+    public EventEnvelope deserialize(String topic, Headers headers, byte[] data) {
+        if (data != null && !filter.accepts(headers)) {
+            filter.skip(data, skipped -> decode(headers, skipped));
+            return null;
+        }
+        return decode(headers, data);
+    }
+
+    @Override
+    public EventEnvelope deserialize(String topic, byte[] data) {
+        return decode(null, data);
+    }
+
+    private EventEnvelope decode(Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        WireFormat format = WireFormat.of(headers, data);
+        try {
+            return format == WireFormat.BINARY
+                    ? binaryCodec.decode(data)
+                    : objectMapper.readValue(data, EventEnvelope.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not deserialize event envelope as " + format, e);
+        }
+    }
+}
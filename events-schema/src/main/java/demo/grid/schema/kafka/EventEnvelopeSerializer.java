@@ -0,0 +1,71 @@
+package demo.grid.schema.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.schema.EnvelopeBinaryCodec;
+import demo.grid.schema.EventEnvelope;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes {@link EventEnvelope}s as {@link WireFormat#JSON} or {@link WireFormat#BINARY} and stamps the
+ * {@value WireFormat#CONTENT_TYPE_HEADER} header, replacing any copied from a consumed record.
+ * <p>
+ * When created by Kafka from its class name the format comes from the {@value #WIRE_FORMAT_CONFIG}
+ * producer property (default {@code json}).
+ */
+public class EventEnvelopeSerializer implements Serializer<EventEnvelope> {
+
+    public static final String WIRE_FORMAT_CONFIG = "grid.envelope.wire-format";
+
+    private final ObjectMapper objectMapper = EnvelopeObjectMappers.create();
+    private final EnvelopeBinaryCodec binaryCodec = new EnvelopeBinaryCodec(objectMapper);
+    private WireFormat format;
+
+    public EventEnvelopeSerializer() {
+        this(WireFormat.JSON);
+    }
+
+    public EventEnvelopeSerializer(WireFormat format) {
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(WIRE_FORMAT_CONFIG);
+        if (configured instanceof WireFormat wireFormat) {
+            format = wireFormat;
+        } else if (configured != null) {
+            format = WireFormat.valueOf(configured.toString().trim().toUpperCase());
+        }
+    }
+
+    public WireFormat format() {
+        return format;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, EventEnvelope data) {
+        headers.remove(WireFormat.CONTENT_TYPE_HEADER);
+        if (data == null) {
+            return null;
+        }
+        headers.add(WireFormat.CONTENT_TYPE_HEADER, format.headerValue());
+        return serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, EventEnvelope data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return format == WireFormat.BINARY ? binaryCodec.encode(data) : objectMapper.writeValueAsBytes(data);
+        } catch (IOException | ArithmeticException e) {
+            throw new SerializationException("Could not serialize event " + data.eventId() + " as " + format, e);
+        }
+    }
+}
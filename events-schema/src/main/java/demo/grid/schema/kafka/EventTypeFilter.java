@@ -0,0 +1,76 @@
+package demo.grid.schema.kafka;
+
+import demo.grid.schema.EventTypes;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The {@value EventEnvelopeDeserializer#EVENT_TYPES_CONFIG} check shared by the envelope deserializers: compares
+ * the raw {@value EventTypes#HEADER} header against the configured types and reports skipped records to
+ * {@link SkippedEnvelopeStats}.
+ */
+final class EventTypeFilter {
+
+    private final SkippedEnvelopeStats stats;
+    private byte[][] acceptedTypes;
+
+    EventTypeFilter(SkippedEnvelopeStats stats) {
+        this.stats = stats;
+    }
+
+    void configure(Map<String, ?> configs) {
+        Object types = configs.get(EventEnvelopeDeserializer.EVENT_TYPES_CONFIG);
+        if (types == null || types.toString().isBlank()) {
+            acceptedTypes = null;
+            return;
+        }
+        acceptedTypes = Arrays.stream(types.toString().split(","))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .map(type -> type.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+    }
+
+    /**
+     * @return false if the record has an event type header naming a type that is not configured
+     */
+    boolean accepts(Headers headers) {
+        if (acceptedTypes == null || headers == null) {
+            return true;
+        }
+        Header eventType = headers.lastHeader(EventTypes.HEADER);
+        if (eventType == null || eventType.value() == null) {
+            return true;
+        }
+        for (byte[] accepted : acceptedTypes) {
+            if (Arrays.equals(accepted, eventType.value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts a record that was not accepted; if it is due for sampling, runs {@code decode} on it to measure what
+     * skipping saved.
+     */
+    void skip(byte[] data, Consumer<byte[]> decode) {
+        if (!stats.skip(data.length)) {
+            return;
+        }
+        long allocatedBefore = stats.allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            decode.accept(data);
+        } catch (RuntimeException e) {
+            // Only measuring; the record is dropped either way.
+        }
+        long nanos = System.nanoTime() - start;
+        stats.sample(nanos, stats.allocatedBytes() - allocatedBefore);
+    }
+}
@@ -0,0 +1,113 @@
+package demo.grid.schema.kafka;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.schema.EnvelopeBinaryCodec;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RawJson;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads {@link LazyEventEnvelope}s in either {@link WireFormat}, detected as {@link EventEnvelopeDeserializer}
+ * does. JSON records are streamed once: the envelope fields are decoded and the payload is tokenized to validate
+ * it and find its end, but no tree is built. Binary records carry the payload length, so it is not read at all.
+ * <p>
+ * Honours {@value EventEnvelopeDeserializer#EVENT_TYPES_CONFIG} like {@link EventEnvelopeDeserializer}.
+ */
+public class LazyEventEnvelopeDeserializer implements Deserializer<LazyEventEnvelope> {
+
+    private final ObjectMapper objectMapper = EnvelopeObjectMappers.create();
+    private final EnvelopeBinaryCodec binaryCodec = new EnvelopeBinaryCodec(objectMapper);
+    private final EventTypeFilter filter;
+
+    public LazyEventEnvelopeDeserializer() {
+        this(SkippedEnvelopeStats.global());
+    }
+
+    LazyEventEnvelopeDeserializer(SkippedEnvelopeStats skippedStats) {
+        this.filter = new EventTypeFilter(skippedStats);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        filter.configure(configs);
+    }
+
+    @Override
+    public LazyEventEnvelope deserialize(String topic, Headers headers, byte[] data) {
+        if (data != null && !filter.accepts(headers)) {
+            filter.skip(data, skipped -> decode(headers, skipped));
+            return null;
+        }
+        return decode(headers, data);
+    }
+
+    @Override
+    public LazyEventEnvelope deserialize(String topic, byte[] data) {
+        return decode(null, data);
+    }
+
+    private LazyEventEnvelope decode(Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        WireFormat format = WireFormat.of(headers, data);
+        try {
+            return format == WireFormat.BINARY ? binaryCodec.decodeLazy(data) : readJson(data);
+        } catch (IOException | IllegalArgumentException | NullPointerException e) {
+            throw new SerializationException("Could not deserialize event envelope as " + format, e);
+        }
+    }
+
+    private LazyEventEnvelope readJson(byte[] data) throws IOException {
+        UUID eventId = null;
+        String eventType = null;
+        Instant occurredAt = null;
+        Instant producedAt = null;
+        String source = null;
+        String correlationId = null;
+        RawJson payload = null;
+        String version = null;
+        try (JsonParser parser = objectMapper.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Event envelope is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "eventId" -> eventId = parser.getValueAsString() != null
+                            ? UUID.fromString(parser.getValueAsString())
+                            : null;
+                    case "eventType" -> eventType = parser.getValueAsString();
+                    case "occurredAt" -> occurredAt = objectMapper.readValue(parser, Instant.class);
+                    case "producedAt" -> producedAt = objectMapper.readValue(parser, Instant.class);
+                    case "source" -> source = parser.getValueAsString();
+                    case "correlationId" -> correlationId = parser.getValueAsString();
+                    case "version" -> version = parser.getValueAsString();
+                    case "payload" -> payload = readPayload(parser, data);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new LazyEventEnvelope(eventId, eventType, occurredAt, producedAt, source, correlationId, payload,
+                version);
+    }
+
+    private static RawJson readPayload(JsonParser parser, byte[] data) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        int start = (int) parser.currentTokenLocation().getByteOffset();
+        int end = RawJson.valueEnd(parser);
+        return RawJson.wrap(data, start, end - start);
+    }
+}
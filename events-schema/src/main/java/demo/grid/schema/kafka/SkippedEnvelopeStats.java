@@ -0,0 +1,83 @@
+package demo.grid.schema.kafka;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the records the envelope deserializers drop by their {@link demo.grid.schema.EventTypes#HEADER}
+ * header and measures what that saves: one in {@link #SAMPLE_EVERY} skipped records is decoded anyway, timing the
+ * decode and the bytes it allocates on the consumer thread, so the per-record cost that was avoided is an average
+ * of real decodes of the same traffic.
+ * <p>
+ * Deserializers are instantiated by Kafka from a class name, so all of them report to {@link #global()}; services
+ * export it as metrics.
+ */
+public final class SkippedEnvelopeStats {
+
+    static final int SAMPLE_EVERY = 1024;
+
+    private static final SkippedEnvelopeStats GLOBAL = new SkippedEnvelopeStats();
+
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder skippedBytes = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder sampledAllocatedBytes = new LongAdder();
+    private final com.sun.management.ThreadMXBean allocationTracker;
+
+    SkippedEnvelopeStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        this.allocationTracker = threads instanceof com.sun.management.ThreadMXBean tracker
+                && tracker.isThreadAllocatedMemorySupported() && tracker.isThreadAllocatedMemoryEnabled()
+                ? tracker
+                : null;
+    }
+
+    public static SkippedEnvelopeStats global() {
+        return GLOBAL;
+    }
+
+    /** Records not decoded because their event type is not consumed here. */
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    /** Value bytes of the skipped records. */
+    public long skippedBytes() {
+        return skippedBytes.sum();
+    }
+
+    /** Average decode time of a skipped record, from samples; 0 before the first sample. */
+    public double decodeNanosPerRecord() {
+        long samples = sampled.sum();
+        return samples == 0 ? 0 : (double) sampledNanos.sum() / samples;
+    }
+
+    /** Average bytes allocated decoding a skipped record, from samples; 0 before the first or if not measurable. */
+    public double decodeAllocatedBytesPerRecord() {
+        long samples = sampled.sum();
+        return samples == 0 ? 0 : (double) sampledAllocatedBytes.sum() / samples;
+    }
+
+    /**
+     * Counts a skipped record.
+     *
+     * @return true if the caller should decode it anyway and report the cost with {@link #sample}
+     */
+    boolean skip(int bytes) {
+        skipped.increment();
+        skippedBytes.add(bytes);
+        return skipped.sum() % SAMPLE_EVERY == 1;
+    }
+
+    long allocatedBytes() {
+        return allocationTracker != null ? allocationTracker.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    void sample(long nanos, long allocatedBytes) {
+        sampled.increment();
+        sampledNanos.add(nanos);
+        sampledAllocatedBytes.add(allocatedBytes);
+    }
+}
@@ -0,0 +1,64 @@
+package demo.grid.schema.kafka;
+
+import demo.grid.schema.EnvelopeBinaryCodec;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodings of {@link demo.grid.schema.EventEnvelope} on the wire, identified by the
+ * {@value #CONTENT_TYPE_HEADER} record header.
+ */
+public enum WireFormat {
+
+    /** Jackson JSON with ISO-8601 instants; what every producer wrote before the binary codec. */
+    JSON("application/json"),
+    /** {@link demo.grid.schema.EnvelopeBinaryCodec}. */
+    BINARY("application/vnd.grid.envelope.v1+binary");
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    private final String contentType;
+    private final byte[] headerValue;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+        this.headerValue = contentType.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    byte[] headerValue() {
+        return headerValue.clone();
+    }
+
+    /**
+     * @return the format with this content type, or null if it is not one of ours
+     */
+    public static WireFormat fromContentType(String contentType) {
+        for (WireFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(contentType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The {@value #CONTENT_TYPE_HEADER} header decides when present; records without it (older producers) are
+     * recognised by their first byte.
+     */
+    static WireFormat of(Headers headers, byte[] data) {
+        Header contentType = headers != null ? headers.lastHeader(CONTENT_TYPE_HEADER) : null;
+        WireFormat format = contentType != null && contentType.value() != null
+                ? fromContentType(new String(contentType.value(), StandardCharsets.UTF_8))
+                : null;
+        if (format != null) {
+            return format;
+        }
+        return EnvelopeBinaryCodec.isBinary(data) ? BINARY : JSON;
+    }
+}
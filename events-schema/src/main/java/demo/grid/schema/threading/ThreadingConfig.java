@@ -0,0 +1,25 @@
+package demo.grid.schema.threading;
+
+import io.micrometer.java21.instrument.binder.jdk.VirtualThreadMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Pinning diagnostics for virtual-thread mode (spring.threads.virtual.enabled, VIRTUAL_THREADS_ENABLED), imported by
+ * each Spring MVC service's application class.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    /**
+     * Publishes JFR jdk.VirtualThreadPinned events as the jvm.threads.virtual.pinned timer, so time spent pinned
+     * inside synchronized sections of the Kafka and JDBC clients shows up next to throughput.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public VirtualThreadMetrics virtualThreadMetrics() {
+        return new VirtualThreadMetrics();
+    }
+}
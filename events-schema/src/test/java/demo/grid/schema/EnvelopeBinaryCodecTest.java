@@ -0,0 +1,83 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnvelopeBinaryCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final EnvelopeBinaryCodec codec = new EnvelopeBinaryCodec(objectMapper);
+
+    @Test
+    void roundTrip_preservesAllFieldsToTheNanosecond() throws Exception {
+        EventEnvelope envelope = new EventEnvelope(
+                UUID.randomUUID(),
+                EventTypes.PRICING,
+                Instant.parse("2025-02-18T12:00:00.123456789Z"),
+                Instant.parse("1969-12-31T23:59:59.5Z"),
+                "event-ingest-service",
+                "corr-1",
+                objectMapper.createObjectNode().put("price", 100).put("currency", "USD"),
+                "1");
+
+        EventEnvelope decoded = codec.decode(codec.encode(envelope));
+
+        assertEquals(envelope.eventId(), decoded.eventId());
+        assertSame(EventTypes.PRICING, decoded.eventType());
+        assertEquals(envelope.occurredAt(), decoded.occurredAt());
+        assertEquals(envelope.producedAt(), decoded.producedAt());
+        assertEquals(envelope.source(), decoded.source());
+        assertEquals(envelope.correlationId(), decoded.correlationId());
+        assertEquals(envelope.payload(), decoded.payload());
+        assertEquals(envelope.version(), decoded.version());
+    }
+
+    @Test
+    void roundTrip_customTypeAndNulls() throws Exception {
+        EventEnvelope envelope = new EventEnvelope(
+                UUID.randomUUID(), "SETTLEMENT", Instant.now(), Instant.now(), "src", null, null, "1");
+
+        EventEnvelope decoded = codec.decode(codec.encode(envelope));
+
+        assertEquals("SETTLEMENT", decoded.eventType());
+        assertNull(decoded.correlationId());
+        assertNull(decoded.payload());
+    }
+
+    @Test
+    void encode_isSmallerThanJson() throws Exception {
+        EventEnvelope envelope = new EnvelopeFactory("event-ingest-service")
+                .create(EventTypes.ALERT, objectMapper.createObjectNode().put("severity", "HIGH"), null);
+
+        byte[] binary = codec.encode(envelope);
+
+        assertTrue(EnvelopeBinaryCodec.isBinary(binary));
+        assertFalse(EnvelopeBinaryCodec.isBinary(objectMapper.writeValueAsBytes(envelope)));
+        assertTrue(binary.length * 2 < objectMapper.writeValueAsBytes(envelope).length);
+    }
+
+    @Test
+    void decode_rejectsTruncatedOrForeignInput() throws Exception {
+        byte[] binary = codec.encode(new EnvelopeFactory("src").create(EventTypes.AUDIT, null, null));
+
+        assertThrows(IOException.class, () -> codec.decode(Arrays.copyOf(binary, binary.length - 1)));
+        assertThrows(IOException.class, () -> codec.decode("{}".getBytes()));
+
+        byte[] future = binary.clone();
+        future[1] = 99;
+        assertThrows(IOException.class, () -> codec.decode(future));
+    }
+}
@@ -0,0 +1,37 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class EnvelopeFactoryTest {
+
+    private final EnvelopeFactory factory = new EnvelopeFactory("test-source");
+
+    @Test
+    void create_defaultsTypeAndCorrelation() {
+        EventEnvelope envelope = factory.create(" ", null, null);
+
+        assertEquals(EventTypes.GENERIC, envelope.eventType());
+        assertEquals(envelope.eventId().toString(), envelope.correlationId());
+        assertEquals("test-source", envelope.source());
+        assertEquals(EnvelopeFactory.CURRENT_VERSION, envelope.version());
+        assertEquals(envelope.occurredAt(), envelope.producedAt());
+    }
+
+    @Test
+    void create_keepsSuppliedValues() {
+        var payload = JsonNodeFactory.instance.objectNode().put("price", 1);
+
+        EventEnvelope first = factory.create(EventTypes.PRICING, payload, "corr-1");
+        EventEnvelope second = factory.create(EventTypes.PRICING, payload, "corr-1");
+
+        assertEquals(EventTypes.PRICING, first.eventType());
+        assertEquals("corr-1", first.correlationId());
+        assertSame(payload, first.payload());
+        assertNotEquals(first.eventId(), second.eventId());
+    }
+}
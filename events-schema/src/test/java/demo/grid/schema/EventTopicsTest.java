@@ -0,0 +1,25 @@
+package demo.grid.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventTopicsTest {
+
+    @Test
+    void forType_routesKnownTypesAndKeepsOthersOnTheBaseTopic() {
+        assertEquals("grid.events.v1.pricing", EventTopics.forType("grid.events.v1", EventTypes.PRICING));
+        assertEquals("grid.events.v1.generic", EventTopics.forType("grid.events.v1", EventTypes.GENERIC));
+        assertEquals("grid.events.v1", EventTopics.forType("grid.events.v1", "SETTLEMENT"));
+    }
+
+    @Test
+    void subscription_startsWithTheBaseTopic() {
+        assertArrayEquals(new String[]{"t", "t.alert", "t.generic"},
+                EventTopics.subscription("t", List.of(EventTypes.ALERT, EventTypes.GENERIC, "OTHER")));
+        assertArrayEquals(new String[]{"t", "t.pricing", "t.alert", "t.audit", "t.generic"}, EventTopics.all("t"));
+    }
+}
@@ -0,0 +1,163 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static demo.grid.schema.PayloadSchema.arrayOf;
+import static demo.grid.schema.PayloadSchema.integer;
+import static demo.grid.schema.PayloadSchema.number;
+import static demo.grid.schema.PayloadSchema.object;
+import static demo.grid.schema.PayloadSchema.oneOf;
+import static demo.grid.schema.PayloadSchema.string;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-payload cost of {@link PayloadSchema} against the naive approach: bind the bytes to a tree, then
+ * walk it while interpreting a map-based schema description. Not a JMH harness: numbers are only
+ * meaningful relative to each other on the same machine.
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew :events-schema:test --tests '*BenchmarkTest'}.
+ */
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class PayloadSchemaBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadSchemaBenchmarkTest.class);
+
+    private static final int PAYLOADS = 500_000;
+    private static final int ROUNDS = 5;
+
+    private static final byte[] PAYLOAD = ("{\"symbol\":\"ACME\",\"side\":\"BUY\",\"price\":101.25,\"currency\":\"USD\","
+            + "\"venue\":\"XLON\",\"legs\":[{\"qty\":10,\"price\":101.2},{\"qty\":5,\"price\":101.3}],"
+            + "\"tags\":{\"desk\":\"rates\",\"book\":\"B7\"}}").getBytes(StandardCharsets.UTF_8);
+
+    private static final PayloadSchema COMPILED = object()
+            .required("symbol", string(1, 8))
+            .required("side", oneOf("BUY", "SELL"))
+            .required("price", number(0, Double.MAX_VALUE))
+            .optional("currency", string(3, 3))
+            .optional("legs", arrayOf(object()
+                    .required("qty", integer(1, 1_000_000))
+                    .required("price", number(0, Double.MAX_VALUE))
+                    .build(), 16))
+            .build();
+
+    /** The same rules the way a hand-rolled validator would hold them: type names looked up per payload. */
+    private static final Map<String, Object> DESCRIBED = Map.of(
+            "type", "object",
+            "required", List.of("symbol", "side", "price"),
+            "properties", Map.of(
+                    "symbol", Map.of("type", "string", "minLength", 1, "maxLength", 8),
+                    "side", Map.of("type", "string", "enum", List.of("BUY", "SELL")),
+                    "price", Map.of("type", "number", "minimum", 0),
+                    "currency", Map.of("type", "string", "minLength", 3, "maxLength", 3),
+                    "legs", Map.of("type", "array", "maxItems", 16, "items", Map.of(
+                            "type", "object",
+                            "required", List.of("qty", "price"),
+                            "properties", Map.of(
+                                    "qty", Map.of("type", "integer", "minimum", 1, "maximum", 1_000_000),
+                                    "price", Map.of("type", "number", "minimum", 0))))));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void validationCost() throws Exception {
+        JsonNode tree = objectMapper.readTree(PAYLOAD);
+        double naive = nanosPerPayload(() -> walk(DESCRIBED, objectMapper.readTree(PAYLOAD)));
+        double compiledBytes = nanosPerPayload(() -> {
+            try (JsonParser parser = objectMapper.getFactory().createParser(PAYLOAD)) {
+                COMPILED.validate(parser);
+            }
+        });
+        double compiledTree = nanosPerPayload(() -> COMPILED.validate(tree));
+        double parseOnly = nanosPerPayload(() -> objectMapper.readTree(PAYLOAD));
+        log.info("{}-byte payload: readTree + walk {} ns, compiled over bytes {} ns, "
+                        + "compiled over existing tree {} ns (readTree alone {} ns)",
+                PAYLOAD.length, Math.round(naive), Math.round(compiledBytes), Math.round(compiledTree),
+                Math.round(parseOnly));
+        assertTrue(compiledBytes > 0 && naive > 0);
+    }
+
+    private interface Validation {
+        void run() throws Exception;
+    }
+
+    private static double nanosPerPayload(Validation validation) throws Exception {
+        double best = Double.MAX_VALUE;
+        // First round warms up the JIT; report the best of the rest.
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < PAYLOADS; i++) {
+                validation.run();
+            }
+            double perPayload = (double) (System.nanoTime() - start) / PAYLOADS;
+            if (round > 0) {
+                best = Math.min(best, perPayload);
+            }
+        }
+        return best;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void walk(Map<String, Object> schema, JsonNode node) {
+        switch ((String) schema.get("type")) {
+            case "object" -> {
+                if (!node.isObject()) {
+                    throw new PayloadValidationException("must be an object");
+                }
+                for (Object name : (List<Object>) schema.getOrDefault("required", List.of())) {
+                    if (!node.hasNonNull((String) name)) {
+                        throw new PayloadValidationException(name + " is required");
+                    }
+                }
+                Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+                for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    Object property = properties.get(field.getKey());
+                    if (property != null && !field.getValue().isNull()) {
+                        walk((Map<String, Object>) property, field.getValue());
+                    }
+                }
+            }
+            case "array" -> {
+                if (!node.isArray() || node.size() > (Integer) schema.get("maxItems")) {
+                    throw new PayloadValidationException("must be a short enough array");
+                }
+                for (JsonNode element : node) {
+                    walk((Map<String, Object>) schema.get("items"), element);
+                }
+            }
+            case "string" -> {
+                if (!node.isTextual()) {
+                    throw new PayloadValidationException("must be a string");
+                }
+                List<Object> allowed = (List<Object>) schema.get("enum");
+                int length = node.textValue().length();
+                if (allowed != null ? !allowed.contains(node.textValue())
+                        : length < (Integer) schema.get("minLength") || length > (Integer) schema.get("maxLength")) {
+                    throw new PayloadValidationException("is not allowed");
+                }
+            }
+            case "integer", "number" -> {
+                if ("integer".equals(schema.get("type")) ? !node.isIntegralNumber() : !node.isNumber()) {
+                    throw new PayloadValidationException("must be a number");
+                }
+                Number minimum = (Number) schema.get("minimum");
+                Number maximum = (Number) schema.get("maximum");
+                if ((minimum != null && node.doubleValue() < minimum.doubleValue())
+                        || (maximum != null && node.doubleValue() > maximum.doubleValue())) {
+                    throw new PayloadValidationException("is out of range");
+                }
+            }
+            default -> throw new IllegalStateException("Unknown type " + schema.get("type"));
+        }
+    }
+}
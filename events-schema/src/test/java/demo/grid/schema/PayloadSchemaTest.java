@@ -0,0 +1,98 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static demo.grid.schema.PayloadSchema.arrayOf;
+import static demo.grid.schema.PayloadSchema.bool;
+import static demo.grid.schema.PayloadSchema.integer;
+import static demo.grid.schema.PayloadSchema.number;
+import static demo.grid.schema.PayloadSchema.object;
+import static demo.grid.schema.PayloadSchema.oneOf;
+import static demo.grid.schema.PayloadSchema.string;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PayloadSchemaTest {
+
+    private static final PayloadSchema ORDER = object()
+            .required("symbol", string(1, 8))
+            .required("side", oneOf("BUY", "SELL"))
+            .optional("limit", number(0, 1_000_000))
+            .optional("urgent", bool())
+            .optional("legs", arrayOf(object()
+                    .required("qty", integer(1, 1_000))
+                    .closed()
+                    .build(), 3))
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void acceptsMatchingPayloadFromTreeAndBytes() throws Exception {
+        String json = "{\"symbol\":\"ACME\",\"side\":\"BUY\",\"limit\":10.5,\"legs\":[{\"qty\":1},{\"qty\":2}],"
+                + "\"extra\":{\"nested\":[1,2]},\"urgent\":null}";
+
+        assertDoesNotThrow(() -> ORDER.validate(objectMapper.readTree(json)));
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            ORDER.validate(parser);
+        }
+    }
+
+    @Test
+    void reportsPathOfFirstViolation() {
+        assertEquals("payload.side must be one of [BUY, SELL]",
+                violation("{\"symbol\":\"ACME\",\"side\":\"HOLD\"}").getMessage());
+        assertEquals("payload.legs[1].qty must be an integer",
+                violation("{\"symbol\":\"ACME\",\"side\":\"BUY\",\"legs\":[{\"qty\":1},{\"qty\":1.5}]}").getMessage());
+        assertEquals("payload.legs[0].price is not a known field",
+                violation("{\"symbol\":\"ACME\",\"side\":\"BUY\",\"legs\":[{\"qty\":1,\"price\":2}]}").getMessage());
+        assertEquals("payload.legs must have at most 3 elements",
+                violation("{\"symbol\":\"ACME\",\"side\":\"BUY\",\"legs\":[{\"qty\":1},{\"qty\":1},{\"qty\":1},{\"qty\":1}]}").getMessage());
+        assertEquals("payload must be an object", violation("[1]").getMessage());
+    }
+
+    @Test
+    void checksRequiredFieldsAndBounds() {
+        assertEquals("side", violation("{\"symbol\":\"ACME\"}").getPath());
+        assertEquals("payload.side must not be null", violation("{\"symbol\":\"ACME\",\"side\":null}").getMessage());
+        assertEquals("payload.symbol must be 1 to 8 characters long",
+                violation("{\"symbol\":\"\",\"side\":\"BUY\"}").getMessage());
+        assertEquals("payload.limit must be between 0 and 1000000",
+                violation("{\"symbol\":\"ACME\",\"side\":\"BUY\",\"limit\":-1}").getMessage());
+        assertEquals("payload.legs[0].qty must be between 1 and 1000",
+                violation("{\"symbol\":\"ACME\",\"side\":\"BUY\",\"legs\":[{\"qty\":0}]}").getMessage());
+    }
+
+    @Test
+    void validatesRawJsonSliceWithoutTree() {
+        byte[] body = "{\"payload\":{\"price\":\"free\"}}".getBytes(StandardCharsets.UTF_8);
+        JsonNode payload = RawJson.wrap(body, 11, body.length - 12).node();
+
+        PayloadValidationException e = assertThrows(PayloadValidationException.class,
+                () -> PayloadSchemas.standard().validate(EventTypes.PRICING, payload));
+        assertEquals("payload.price must be a number", e.getMessage());
+    }
+
+    @Test
+    void standardSchemasLeaveUnknownTypesAndNullPayloadsAlone() throws Exception {
+        PayloadSchemas schemas = PayloadSchemas.standard();
+
+        assertDoesNotThrow(() -> schemas.validate(EventTypes.PRICING, null));
+        assertDoesNotThrow(() -> schemas.validate(EventTypes.PRICING, objectMapper.readTree("null")));
+        assertDoesNotThrow(() -> schemas.validate(EventTypes.GENERIC, objectMapper.readTree("\"anything\"")));
+        assertDoesNotThrow(() -> schemas.validate(EventTypes.PRICING, objectMapper.readTree("{\"price\":99,\"currency\":\"USD\"}")));
+        assertDoesNotThrow(() -> schemas.validate(EventTypes.PRICING, objectMapper.readTree("{\"price\":-1.5,\"currency\":\"dollars\"}")));
+        assertThrows(PayloadValidationException.class,
+                () -> schemas.validate(EventTypes.PRICING, objectMapper.readTree("{\"price\":\"free\"}")));
+    }
+
+    private PayloadValidationException violation(String json) {
+        return assertThrows(PayloadValidationException.class, () -> ORDER.validate(objectMapper.readTree(json)));
+    }
+}
@@ -0,0 +1,85 @@
+package demo.grid.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RawJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void valueEnd_findsSliceOfEachValueKind() throws Exception {
+        for (String value : new String[]{"{\"a\":[1,{\"b\":\"}\"}]}", "[1, 2]", "\"s\\\"t\"", "-1.5e3", "true", "null"}) {
+            byte[] body = ("{\"payload\": " + value + " ,\"x\":1}").getBytes(StandardCharsets.UTF_8);
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                parser.nextToken();
+                parser.nextToken();
+                parser.nextToken();
+                int start = (int) parser.currentTokenLocation().getByteOffset();
+                int end = RawJson.valueEnd(parser);
+
+                assertEquals(value, new String(body, start, end - start, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void valueEnd_rejectsMalformedValue() throws Exception {
+        byte[] body = "{\"payload\":{\"a\":}}".getBytes(StandardCharsets.UTF_8);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            parser.nextToken();
+            parser.nextToken();
+            parser.nextToken();
+
+            assertThrows(Exception.class, () -> RawJson.valueEnd(parser));
+        }
+    }
+
+    @Test
+    void node_serializesBytesVerbatimInsideEnvelope() throws Exception {
+        byte[] body = "xx{ \"price\" : 100,\"tags\":[\"a\"] }yy".getBytes(StandardCharsets.UTF_8);
+        JsonNode payload = RawJson.wrap(body, 2, body.length - 4).node();
+        EventEnvelope envelope = new EnvelopeFactory("test").create(EventTypes.PRICING, payload, "corr-1");
+
+        String json = objectMapper.writeValueAsString(envelope);
+
+        assertTrue(json.contains("\"payload\":{ \"price\" : 100,\"tags\":[\"a\"] }"), json);
+        assertEquals(100, objectMapper.readTree(json).get("payload").get("price").asInt());
+    }
+
+    @Test
+    void node_largerThanGeneratorBuffer_isWrittenWhole() throws Exception {
+        byte[] digits = new byte[64 * 1024];
+        Arrays.fill(digits, (byte) '7');
+
+        byte[] json = objectMapper.writeValueAsBytes(RawJson.wrap(digits, 0, digits.length).node());
+
+        assertEquals(digits.length, json.length);
+    }
+
+    @Test
+    void quotedForms_areTheSliceAsAJsonString() throws Exception {
+        byte[] body = "{\"a\":\"é\"}".getBytes(StandardCharsets.UTF_8);
+        RawJson raw = RawJson.wrap(body, 0, body.length);
+
+        assertEquals("{\\\"a\\\":\\\"é\\\"}", new String(raw.asQuotedChars()));
+        assertEquals("{\\\"a\\\":\\\"é\\\"}", new String(raw.asQuotedUTF8(), StandardCharsets.UTF_8));
+        assertEquals(objectMapper.writeValueAsString(raw.getValue()), "\"" + new String(raw.asQuotedChars()) + "\"");
+        assertEquals(-1, raw.appendQuotedUTF8(new byte[4], 0));
+    }
+
+    @Test
+    void wrap_rejectsSliceOutsideBuffer() {
+        assertThrows(IndexOutOfBoundsException.class, () -> RawJson.wrap(new byte[4], 2, 3));
+    }
+}
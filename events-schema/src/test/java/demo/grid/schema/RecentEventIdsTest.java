@@ -0,0 +1,79 @@
+package demo.grid.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentEventIdsTest {
+
+    @Test
+    void addedIds_areAlwaysReported() {
+        RecentEventIds filter = new RecentEventIds(10_000, 0.01);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UuidV7.next();
+            ids.add(id);
+            filter.add(id);
+        }
+
+        for (UUID id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+        assertEquals(1.0, filter.hitRatio());
+    }
+
+    @Test
+    void newIds_areRarelyReported() {
+        RecentEventIds filter = new RecentEventIds(10_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add(UuidV7.next());
+        }
+
+        int falseHits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UuidV7.next())) {
+                falseHits++;
+            }
+        }
+        filter.falsePositives(falseHits);
+
+        assertTrue(filter.falsePositiveRate() < 0.015, "false-positive rate " + filter.falsePositiveRate());
+        assertEquals(falseHits, filter.hits());
+    }
+
+    @Test
+    void idsOlderThanTwoGenerations_areForgotten() {
+        RecentEventIds filter = new RecentEventIds(1_000, 1e-9);
+        UUID old = UuidV7.next();
+        filter.add(old);
+        for (int i = 0; i < 2_000; i++) {
+            filter.add(UuidV7.next());
+        }
+
+        assertFalse(filter.mightContain(old));
+    }
+
+    @Test
+    void disabledFilter_remembersNothing() {
+        RecentEventIds filter = RecentEventIds.disabled();
+        UUID id = UuidV7.next();
+        filter.add(id);
+
+        assertFalse(filter.mightContain(id));
+        assertEquals(0, filter.lookups());
+        assertEquals(0, filter.sizeInBytes());
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new RecentEventIds(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new RecentEventIds(1_000, 1.0));
+    }
+}
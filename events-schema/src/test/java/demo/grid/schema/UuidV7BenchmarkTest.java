@@ -0,0 +1,72 @@
+package demo.grid.schema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost of generating event ids, {@link UuidV7} against {@link UUID#randomUUID()}, on one thread and on
+ * all cores (randomUUID shares one {@code SecureRandom}). Not a JMH harness: numbers are only meaningful
+ * relative to each other on the same machine.
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew :events-schema:test --tests '*BenchmarkTest'}.
+ */
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class UuidV7BenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UuidV7BenchmarkTest.class);
+
+    private static final int IDS_PER_THREAD = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void generationCost() throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int t : new int[] {1, threads}) {
+            double v4 = nanosPerId(UUID::randomUUID, t);
+            double v7 = nanosPerId(UuidV7::next, t);
+            log.info("{} thread(s): randomUUID {} ns/id, UuidV7 {} ns/id (wall time per id across threads)",
+                    t, String.format("%.1f", v4), String.format("%.1f", v7));
+            assertTrue(v7 > 0 && v4 > 0);
+        }
+    }
+
+    private static double nanosPerId(Supplier<UUID> generator, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            double best = Double.MAX_VALUE;
+            // First round warms up the JIT; report the best of the rest.
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                Future<?>[] futures = new Future<?>[threads];
+                for (int i = 0; i < threads; i++) {
+                    futures[i] = executor.submit(() -> {
+                        long sink = 0;
+                        for (int n = 0; n < IDS_PER_THREAD; n++) {
+                            sink ^= generator.get().getLeastSignificantBits();
+                        }
+                        return sink;
+                    });
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                double perId = (double) (System.nanoTime() - start) / ((long) IDS_PER_THREAD * threads);
+                if (round > 0) {
+                    best = Math.min(best, perId);
+                }
+            }
+            return best;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
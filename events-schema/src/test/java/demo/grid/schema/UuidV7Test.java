@@ -0,0 +1,73 @@
+package demo.grid.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7Test {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void next_hasVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long millis = UuidV7.unixMillis(uuid);
+        assertTrue(millis >= before && millis <= after + 1, "timestamp " + millis);
+    }
+
+    @Test
+    void sequence_strictlyIncreasesWithinAndAcrossMilliseconds() {
+        UuidV7.Sequence sequence = new UuidV7.Sequence();
+        UUID previous = sequence.next(NOW);
+        for (int i = 0; i < 10_000; i++) {
+            UUID current = sequence.next(NOW + i / 1_000);
+            assertTrue(compareUnsigned(previous, current) < 0, previous + " !< " + current);
+            previous = current;
+        }
+    }
+
+    @Test
+    void sequence_staysMonotonicWhenClockStepsBack() {
+        UuidV7.Sequence sequence = new UuidV7.Sequence();
+        UUID first = sequence.next(NOW);
+        UUID second = sequence.next(NOW - 5_000);
+
+        assertTrue(compareUnsigned(first, second) < 0);
+        assertEquals(NOW, UuidV7.unixMillis(second));
+    }
+
+    @Test
+    void sequence_borrowsNextMillisecondWhenCounterOverflows() {
+        UuidV7.Sequence sequence = new UuidV7.Sequence();
+        Set<UUID> seen = new HashSet<>();
+        UUID last = null;
+        for (int i = 0; i <= UuidV7.COUNTER_MAX; i++) {
+            last = sequence.next(NOW);
+            assertTrue(seen.add(last));
+        }
+
+        assertEquals(NOW + 1, UuidV7.unixMillis(last));
+    }
+
+    @Test
+    void unixMillis_rejectsOtherVersions() {
+        assertThrows(IllegalArgumentException.class, () -> UuidV7.unixMillis(UUID.randomUUID()));
+    }
+
+    /** Byte order, as Postgres compares uuid values; {@link UUID#compareTo} compares signed longs. */
+    private static int compareUnsigned(UUID a, UUID b) {
+        int msb = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return msb != 0 ? msb : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,169 @@
+package demo.grid.schema.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadLetterReplayerTest {
+
+    private static final String DLT = "grid.events.v1-dlt";
+    private static final TopicPartition PARTITION = new TopicPartition(DLT, 0);
+
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+    private DeadLetterReplayer<String> replayer;
+
+    @AfterEach
+    void tearDown() {
+        if (replayer != null) {
+            replayer.close();
+        }
+    }
+
+    @Test
+    void replaysTheRangeThroughTheHandler() throws InterruptedException {
+        replayer = replayer(List.of("a", "fail", "b"), 1_000);
+
+        DeadLetterReplayer.Status started = replayer.start(new DeadLetterReplayer.Request(DLT, null, null, 0, 0));
+        DeadLetterReplayer.Status done = awaitFinished(started.id());
+
+        assertEquals(DeadLetterReplayer.State.COMPLETED, done.state());
+        assertEquals(List.of("a", "fail", "b"), handled);
+        assertEquals(3, done.total());
+        assertEquals(2, done.replayed());
+        assertEquals(1, done.failed());
+        assertEquals(1.0, done.progress());
+        assertEquals(0, replayer.remaining());
+    }
+
+    @Test
+    void recordsDroppedByTheDeserializer_areSkipped() throws InterruptedException {
+        replayer = replayer(Arrays.asList("a", null), 1_000);
+
+        DeadLetterReplayer.Status done = awaitFinished(
+                replayer.start(new DeadLetterReplayer.Request(DLT, null, null, 0, 1)).id());
+
+        assertEquals(List.of("a"), handled);
+        assertEquals(1, done.skipped());
+        assertNull(done.lastError());
+    }
+
+    @Test
+    void isPacedToTheRequestedRate() throws InterruptedException {
+        replayer = replayer(List.of("a", "b", "c", "d", "e", "f"), 1_000);
+
+        long start = System.nanoTime();
+        awaitFinished(replayer.start(new DeadLetterReplayer.Request(DLT, null, null, 20, 1)).id());
+
+        // Six records at 20/s: the first goes at once, the other five 50ms apart.
+        assertTrue(System.nanoTime() - start >= 250_000_000L);
+    }
+
+    @Test
+    void batched_handsEachPollToTheListenerAsOneList() throws InterruptedException {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        replayer = DeadLetterReplayer.batched(() -> consumer(Arrays.asList("a", null, "b", "c")), batches::add,
+                DeadLetterReplayer.retryTopicsOf("grid.events.v1"), 1_000, 2, 1);
+
+        DeadLetterReplayer.Status done = awaitFinished(
+                replayer.start(new DeadLetterReplayer.Request(DLT, null, null, 0, 1)).id());
+
+        assertEquals(List.of(List.of("a", "b", "c")), batches);
+        assertEquals(3, done.replayed());
+        assertEquals(1, done.skipped());
+    }
+
+    @Test
+    void batched_listsAreCappedAtOneSecondOfRecordsAndPacedPerRecord() throws InterruptedException {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        replayer = DeadLetterReplayer.batched(() -> consumer(List.of("a", "b", "c", "d", "e")), batches::add,
+                DeadLetterReplayer.retryTopicsOf("grid.events.v1"), 1_000, 2, 1);
+
+        long start = System.nanoTime();
+        awaitFinished(replayer.start(new DeadLetterReplayer.Request(DLT, null, null, 2, 1)).id());
+
+        // Two records a second: lists of two, the last record's slot 2s after the first.
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")), batches);
+        assertTrue(System.nanoTime() - start >= 2_000_000_000L);
+    }
+
+    @Test
+    void batched_listTheListenerFailsOnIsCountedAsFailed() throws InterruptedException {
+        replayer = DeadLetterReplayer.batched(() -> consumer(List.of("a", "b")), values -> {
+            throw new IllegalStateException("still failing");
+        }, DeadLetterReplayer.retryTopicsOf("grid.events.v1"), 1_000, 2, 1);
+
+        DeadLetterReplayer.Status done = awaitFinished(
+                replayer.start(new DeadLetterReplayer.Request(DLT, null, null, 0, 1)).id());
+
+        assertEquals(DeadLetterReplayer.State.COMPLETED, done.state());
+        assertEquals(2, done.failed());
+        assertEquals(0, done.replayed());
+        assertTrue(done.lastError().contains("still failing"));
+    }
+
+    @Test
+    void rejectsTopicsThatAreNotRetryOrDeadLetterTopics() {
+        replayer = replayer(List.of("a"), 1_000);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> replayer.start(new DeadLetterReplayer.Request("grid.events.v1", null, null, 0, 0)));
+    }
+
+    @Test
+    void retryTopicsOf_matchesRetryAndDeadLetterTopicsOfTheSources() {
+        var replayable = DeadLetterReplayer.retryTopicsOf("grid.events.v1", "grid.events.v1.pricing");
+
+        assertTrue(replayable.test("grid.events.v1-dlt"));
+        assertTrue(replayable.test("grid.events.v1.pricing-retry-1000"));
+        assertFalse(replayable.test("grid.events.v1.alert-dlt"));
+        assertFalse(replayable.test("grid.events.v1"));
+    }
+
+    private DeadLetterReplayer<String> replayer(List<String> values, double maxRate) {
+        return new DeadLetterReplayer<>(() -> consumer(values), (key, value) -> {
+            handled.add(value);
+            if (value.equals("fail")) {
+                throw new IllegalStateException("still failing");
+            }
+        }, DeadLetterReplayer.retryTopicsOf("grid.events.v1"), maxRate, 2, 1);
+    }
+
+    private static MockConsumer<String, String> consumer(List<String> values) {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DLT, List.of(new PartitionInfo(DLT, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, (long) values.size()));
+        consumer.schedulePollTask(() -> {
+            for (int offset = 0; offset < values.size(); offset++) {
+                consumer.addRecord(new ConsumerRecord<>(DLT, 0, offset, "key", values.get(offset)));
+            }
+        });
+        return consumer;
+    }
+
+    private DeadLetterReplayer.Status awaitFinished(String id) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            DeadLetterReplayer.Status status = replayer.status(id).orElseThrow();
+            if (status.state() != DeadLetterReplayer.State.RUNNING) {
+                return status;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("replay did not finish");
+    }
+}
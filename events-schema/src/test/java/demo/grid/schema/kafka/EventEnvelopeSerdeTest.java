@@ -0,0 +1,176 @@
+package demo.grid.schema.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import demo.grid.schema.EnvelopeFactory;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.LazyEventEnvelope;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventEnvelopeSerdeTest {
+
+    private final EventEnvelope envelope = new EnvelopeFactory("test").create(EventTypes.PRICING, null, "corr-1");
+    private final EventEnvelopeDeserializer deserializer = new EventEnvelopeDeserializer();
+
+    @Test
+    void serializer_stampsContentTypeForEachFormat() {
+        for (WireFormat format : WireFormat.values()) {
+            Headers headers = new RecordHeaders();
+
+            byte[] data = new EventEnvelopeSerializer(format).serialize("t", headers, envelope);
+
+            assertEquals(format.contentType(), contentType(headers));
+            assertEquals(envelope.eventId(), deserializer.deserialize("t", headers, data).eventId());
+        }
+    }
+
+    @Test
+    void serializer_replacesCopiedContentTypeHeader() {
+        Headers headers = new RecordHeaders();
+        headers.add(WireFormat.CONTENT_TYPE_HEADER, WireFormat.BINARY.contentType().getBytes(StandardCharsets.UTF_8));
+
+        new EventEnvelopeSerializer(WireFormat.JSON).serialize("t", headers, envelope);
+
+        assertEquals(WireFormat.JSON.contentType(), contentType(headers));
+    }
+
+    @Test
+    void serializer_readsFormatFromProducerConfig() {
+        EventEnvelopeSerializer serializer = new EventEnvelopeSerializer();
+        serializer.configure(Map.of(EventEnvelopeSerializer.WIRE_FORMAT_CONFIG, "binary"), false);
+
+        assertEquals(WireFormat.BINARY, serializer.format());
+    }
+
+    @Test
+    void deserializer_detectsFormatWithoutHeader() {
+        byte[] json = new EventEnvelopeSerializer(WireFormat.JSON).serialize("t", envelope);
+        byte[] binary = new EventEnvelopeSerializer(WireFormat.BINARY).serialize("t", envelope);
+
+        assertEquals("corr-1", deserializer.deserialize("t", new RecordHeaders(), json).correlationId());
+        assertEquals("corr-1", deserializer.deserialize("t", new RecordHeaders(), binary).correlationId());
+        assertEquals(envelope.occurredAt(), deserializer.deserialize("t", binary).occurredAt());
+    }
+
+    @Test
+    void deserializer_readsLegacyJsonWithUnknownFields() {
+        String json = "{\"eventId\":\"" + envelope.eventId() + "\",\"eventType\":\"ALERT\","
+                + "\"occurredAt\":\"2025-02-18T12:00:00Z\",\"producedAt\":\"2025-02-18T12:00:01Z\","
+                + "\"source\":\"legacy\",\"version\":\"1\",\"extra\":true}";
+
+        EventEnvelope read = deserializer.deserialize("t", json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("legacy", read.source());
+    }
+
+    @Test
+    void deserializer_tombstoneIsNull_malformedThrows() {
+        assertNull(deserializer.deserialize("t", new RecordHeaders(), null));
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("t", "{".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void deserializer_skipsOtherEventTypesByHeader() {
+        SkippedEnvelopeStats stats = new SkippedEnvelopeStats();
+        EventEnvelopeDeserializer filtering = new EventEnvelopeDeserializer(stats);
+        filtering.configure(Map.of(EventEnvelopeDeserializer.EVENT_TYPES_CONFIG, "ALERT, PRICING"), false);
+        byte[] data = new EventEnvelopeSerializer(WireFormat.JSON).serialize("t", envelope);
+
+        assertNotNull(filtering.deserialize("t", eventTypeHeader(EventTypes.PRICING), data));
+        assertNull(filtering.deserialize("t", eventTypeHeader(EventTypes.AUDIT), data));
+        assertNotNull(filtering.deserialize("t", new RecordHeaders(), data));
+
+        assertEquals(1, stats.skipped());
+        assertEquals(data.length, stats.skippedBytes());
+    }
+
+    @Test
+    void deserializer_samplesTheDecodeCostOfSkippedRecords() {
+        SkippedEnvelopeStats stats = new SkippedEnvelopeStats();
+        EventEnvelopeDeserializer filtering = new EventEnvelopeDeserializer(stats);
+        filtering.configure(Map.of(EventEnvelopeDeserializer.EVENT_TYPES_CONFIG, "ALERT"), false);
+        byte[] data = new EventEnvelopeSerializer(WireFormat.BINARY).serialize("t", envelope);
+
+        for (int i = 0; i < SkippedEnvelopeStats.SAMPLE_EVERY + 1; i++) {
+            assertNull(filtering.deserialize("t", eventTypeHeader(EventTypes.PRICING), data));
+        }
+
+        assertEquals(SkippedEnvelopeStats.SAMPLE_EVERY + 1, stats.skipped());
+        assertTrue(stats.decodeNanosPerRecord() > 0);
+    }
+
+    @Test
+    void lazyDeserializer_keepsPayloadBytesForEachFormat() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode payload = objectMapper.readTree("{\"price\":99.5,\"legs\":[{\"id\":\"a\\\"b\"}]}");
+        EventEnvelope withPayload = new EnvelopeFactory("test").create(EventTypes.PRICING, payload, "corr-1");
+        LazyEventEnvelopeDeserializer lazy = new LazyEventEnvelopeDeserializer();
+
+        for (WireFormat format : WireFormat.values()) {
+            byte[] data = new EventEnvelopeSerializer(format).serialize("t", withPayload);
+
+            LazyEventEnvelope read = lazy.deserialize("t", new RecordHeaders(), data);
+
+            assertEquals(withPayload.eventId(), read.eventId());
+            assertEquals(withPayload.occurredAt(), read.occurredAt());
+            assertEquals("corr-1", read.correlationId());
+            assertEquals(objectMapper.writeValueAsString(payload), read.payloadJson());
+            assertEquals(payload, read.payloadTree(objectMapper));
+        }
+    }
+
+    @Test
+    void lazyDeserializer_readsLegacyJsonAndRejectsIncompleteEnvelopes() {
+        LazyEventEnvelopeDeserializer lazy = new LazyEventEnvelopeDeserializer();
+        String json = "{\"eventId\":\"" + envelope.eventId() + "\",\"eventType\":\"ALERT\",\"extra\":{\"a\":[1]},"
+                + "\"occurredAt\":\"2025-02-18T12:00:00Z\",\"producedAt\":\"2025-02-18T12:00:01Z\","
+                + "\"source\":\"legacy\",\"version\":\"1\",\"payload\":null}";
+
+        LazyEventEnvelope read = lazy.deserialize("t", json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("legacy", read.source());
+        assertNull(read.payloadJson());
+        assertThrows(SerializationException.class,
+                () -> lazy.deserialize("t", "{\"eventType\":\"ALERT\"}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(SerializationException.class,
+                () -> lazy.deserialize("t", "{\"payload\":{\"a\":}}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void lazySerializer_republishesThePayloadBytes() {
+        EventEnvelope withPayload = new EnvelopeFactory("test").create(EventTypes.ALERT,
+                new ObjectMapper().createObjectNode().put("level", "high"), "corr-1");
+        byte[] json = new EventEnvelopeSerializer(WireFormat.JSON).serialize("t", withPayload);
+        LazyEventEnvelope read = new LazyEventEnvelopeDeserializer().deserialize("t", json);
+        Headers headers = new RecordHeaders();
+
+        byte[] binary = new LazyEventEnvelopeSerializer(WireFormat.BINARY).serialize("t", headers, read);
+
+        assertEquals(WireFormat.BINARY.contentType(), contentType(headers));
+        assertEquals(withPayload.payload(), deserializer.deserialize("t", headers, binary).payload());
+    }
+
+    private static Headers eventTypeHeader(String eventType) {
+        Headers headers = new RecordHeaders();
+        headers.add(EventTypes.HEADER, eventType.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    private static String contentType(Headers headers) {
+        return new String(headers.lastHeader(WireFormat.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+package demo.grid.pricing.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+import java.util.Properties;
+
+/**
+ * Listener container for {@code PricingEventBatchConsumer}. Poll size and fetch wait come from app.kafka.batch;
+ * offsets are committed once per poll, after the listener has returned. @RetryableTopic does not support batch
+ * listeners, so a failed batch is retried in place with the same backoff (3 attempts, 1s doubling) and then
+ * published to the same -dlt topic the per-record listener uses.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.kafka.batch.enabled", havingValue = "true")
+public class BatchListenerConfig {
+
+    static final String DLT_SUFFIX = "-dlt";
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> pricingBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaOperations<?, ?> kafkaTemplate,
+            PricingProperties properties) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+
+        PricingProperties.Batch batch = properties.batch();
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(batch.maxSize()));
+        overrides.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, Long.toString(batch.minFetchSize().toBytes()));
+        overrides.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, Long.toString(batch.flushInterval().toMillis()));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(2);
+        backOff.setInitialInterval(1_000);
+        backOff.setMultiplier(2.0);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, e) -> new TopicPartition(record.topic() + DLT_SUFFIX, -1)), backOff));
+        return factory;
+    }
+}
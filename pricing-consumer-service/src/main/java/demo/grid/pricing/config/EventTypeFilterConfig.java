@@ -0,0 +1,48 @@
+package demo.grid.pricing.config;
+
+import demo.grid.schema.kafka.EventEnvelopeDeserializer;
+import demo.grid.schema.kafka.SkippedEnvelopeStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+
+/**
+ * The value deserializer returns null for records whose eventType header is not in
+ * {@value EventEnvelopeDeserializer#EVENT_TYPES_CONFIG}; this drops them before they reach a listener and exports
+ * what skipping them saved.
+ */
+@Configuration
+public class EventTypeFilterConfig {
+
+    /** Applied by Spring Boot to the listener container factories it configures. */
+    @Bean
+    public RecordFilterStrategy<Object, Object> skippedEnvelopeFilter() {
+        return record -> record.value() == null;
+    }
+
+    @Bean
+    public MeterBinder skippedEnvelopeMetrics() {
+        SkippedEnvelopeStats stats = SkippedEnvelopeStats.global();
+        return registry -> {
+            FunctionCounter.builder("grid.envelope.skipped", stats, SkippedEnvelopeStats::skipped)
+                    .description("Records dropped by their eventType header without being deserialized")
+                    .register(registry);
+            FunctionCounter.builder("grid.envelope.skipped.bytes", stats, SkippedEnvelopeStats::skippedBytes)
+                    .description("Value bytes of records dropped without being deserialized")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("grid.envelope.skip.decode.time", stats, s -> s.decodeNanosPerRecord() / 1e9)
+                    .description("Sampled deserialization time avoided per skipped record")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("grid.envelope.skip.decode.allocation", stats,
+                            SkippedEnvelopeStats::decodeAllocatedBytesPerRecord)
+                    .description("Sampled heap allocation avoided per skipped record")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
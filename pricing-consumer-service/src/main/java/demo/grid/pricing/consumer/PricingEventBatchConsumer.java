@@ -0,0 +1,162 @@
+package demo.grid.pricing.consumer;
+
+import demo.grid.pricing.config.PricingProperties;
+import demo.grid.pricing.domain.PricingEventEntity;
+import demo.grid.pricing.repository.PricingEventBatchRepository;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch-listener counterpart of {@link PricingEventConsumer}: takes a poll's worth of envelopes and writes the
+ * PRICING and GENERIC ones with multi-row inserts in one transaction. The container commits the poll's offsets
+ * only after this method returns, so a crash before the commit redelivers the batch and ON CONFLICT drops what
+ * was already written. Polled ids that {@link RecentEventIds} has seen are checked with one select first, and the
+ * stored ones are dropped before the write.
+ * <p>
+ * If the batch violates a constraint other than the primary key, it is retried row by row so that only the
+ * offending rows are dropped, as the per-record listener does. Any other failure propagates to the container's
+ * error handler, which retries the whole batch and then sends it to the dead-letter topic.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.batch.enabled", havingValue = "true")
+public class PricingEventBatchConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingEventBatchConsumer.class);
+
+    private final PricingEventBatchRepository repository;
+    private final PricingProperties properties;
+    private final RecentEventIds recentEventIds;
+    private final DistributionSummary batchSize;
+    private final Timer writeTimer;
+    private final Counter inserted;
+    private final Counter duplicates;
+    private final Counter skipped;
+    private final Counter rejected;
+
+    public PricingEventBatchConsumer(PricingEventBatchRepository repository,
+                                     PricingProperties properties,
+                                     RecentEventIds recentEventIds,
+                                     MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.recentEventIds = recentEventIds;
+        this.batchSize = DistributionSummary.builder("pricing.batch.size")
+                .description("Records per polled batch")
+                .register(meterRegistry);
+        this.writeTimer = Timer.builder("pricing.batch.write")
+                .description("Time to write and commit one batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.inserted = eventCounter(meterRegistry, "inserted");
+        this.duplicates = eventCounter(meterRegistry, "duplicate");
+        this.skipped = eventCounter(meterRegistry, "skipped");
+        this.rejected = eventCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("pricing.batch.events")
+                .description("Batched records by outcome: inserted, duplicate (already stored), skipped (not a pricing"
+                        + " type) or rejected (violated a constraint)")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(topics = "#{__listener.topics()}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "pricingBatchListenerContainerFactory", batch = "true")
+    public void onEvents(List<LazyEventEnvelope> envelopes) {
+        batchSize.record(envelopes.size());
+        Instant consumedAt = Instant.now();
+        List<PricingEventEntity> entities = new ArrayList<>(envelopes.size());
+        for (LazyEventEnvelope envelope : envelopes) {
+            if (envelope != null && PricingEvents.isPricing(envelope.eventType())) {
+                entities.add(PricingEvents.toEntity(envelope, consumedAt));
+            }
+        }
+        skipped.increment(envelopes.size() - entities.size());
+        duplicates.increment(dropStored(entities));
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            int written = repository.insertAll(entities);
+            inserted.increment(written);
+            duplicates.increment(entities.size() - written);
+            remember(entities);
+            log.debug("Persisted {} of {} polled events ({} pricing)", written, envelopes.size(), entities.size());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of {} pricing events violates a constraint, writing them one by one: {}",
+                    entities.size(), e.getMostSpecificCause().getMessage());
+            insertEach(entities);
+        } finally {
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public String[] topics() {
+        return PricingEvents.topics(properties);
+    }
+
+    /**
+     * Removes the entities the front filter and then the database show are already stored, so that a redelivered
+     * poll costs one select instead of a write.
+     *
+     * @return how many were removed
+     */
+    private int dropStored(List<PricingEventEntity> entities) {
+        List<UUID> probable = new ArrayList<>();
+        for (PricingEventEntity entity : entities) {
+            if (recentEventIds.mightContain(entity.getEventId())) {
+                probable.add(entity.getEventId());
+            }
+        }
+        if (probable.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> stored = repository.findStored(probable);
+        recentEventIds.falsePositives(probable.size() - stored.size());
+        if (stored.isEmpty()) {
+            return 0;
+        }
+        int polled = entities.size();
+        entities.removeIf(entity -> stored.contains(entity.getEventId()));
+        return polled - entities.size();
+    }
+
+    private void remember(List<PricingEventEntity> entities) {
+        for (PricingEventEntity entity : entities) {
+            recentEventIds.add(entity.getEventId());
+        }
+    }
+
+    private void insertEach(List<PricingEventEntity> entities) {
+        for (PricingEventEntity entity : entities) {
+            try {
+                (repository.insert(entity) ? inserted : duplicates).increment();
+                recentEventIds.add(entity.getEventId());
+            } catch (DataIntegrityViolationException e) {
+                rejected.increment();
+                log.warn("Dropping pricing event that violates a constraint eventId={}: {}",
+                        entity.getEventId(), e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+}
@@ -1,14 +1,13 @@
 package demo.grid.pricing.consumer;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import demo.grid.pricing.config.PricingProperties;
 import demo.grid.pricing.domain.PricingEventEntity;
 import demo.grid.pricing.repository.PricingEventRepository;
-import demo.grid.schema.EventTypes;
-import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
@@ -20,26 +19,30 @@ import org.springframework.stereotype.Component;
 import org.slf4j.MDC;
 
 import java.time.Instant;
+import java.util.UUID;
 
 /**
  * Consumes events from grid.events.v1 and persists PRICING and GENERIC events to Postgres.
- * Uses eventId as primary key for idempotency: duplicate deliveries are skipped (constraint violation).
+ * Uses eventId as primary key for idempotency: duplicate deliveries insert nothing and are skipped. Recently
+ * persisted eventIds are remembered, so a redelivery costs a primary-key lookup instead of a write.
+ * Replaced by {@link PricingEventBatchConsumer} when app.kafka.batch.enabled is set.
  */
 @Component
+@ConditionalOnProperty(name = "app.kafka.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class PricingEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(PricingEventConsumer.class);
 
     private final PricingEventRepository repository;
     private final PricingProperties properties;
-    private final ObjectMapper objectMapper;
+    private final RecentEventIds recentEventIds;
 
     public PricingEventConsumer(PricingEventRepository repository,
                                 PricingProperties properties,
-                                ObjectMapper objectMapper) {
+                                RecentEventIds recentEventIds) {
         this.repository = repository;
         this.properties = properties;
-        this.objectMapper = objectMapper;
+        this.recentEventIds = recentEventIds;
     }
 
     private static final String MDC_CORRELATION_ID = "correlationId";
@@ -49,54 +52,54 @@ public class PricingEventConsumer {
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
             exclude = {DataIntegrityViolationException.class}
     )
-    @KafkaListener(topics = "${app.kafka.topic}", groupId = "${spring.kafka.consumer.group-id}")
-    public void onEvent(@Payload EventEnvelope envelope,
+    @KafkaListener(topics = "#{__listener.topics()}", groupId = "${spring.kafka.consumer.group-id}")
+    public void onEvent(@Payload LazyEventEnvelope envelope,
                         @Header(value = KafkaHeaders.RECEIVED_KEY, required = false) String key) {
         String correlationId = envelope.correlationId() != null ? envelope.correlationId() : envelope.eventId().toString();
         MDC.put(MDC_CORRELATION_ID, correlationId);
         try {
             String eventType = envelope.eventType();
-            if (!EventTypes.PRICING.equals(eventType) && !EventTypes.GENERIC.equals(eventType)) {
+            if (!PricingEvents.isPricing(eventType)) {
                 log.debug("Skipping non-pricing event type: {}", eventType);
                 return;
             }
 
-            String payloadJson = serializePayload(envelope);
-            Instant consumedAt = Instant.now();
-            PricingEventEntity entity = new PricingEventEntity(
-                    envelope.eventId(),
-                    envelope.eventType(),
-                    envelope.occurredAt(),
-                    envelope.producedAt(),
-                    envelope.source(),
-                    envelope.correlationId(),
-                    payloadJson,
-                    consumedAt
-            );
+            if (alreadyStored(envelope.eventId())) {
+                log.debug("Redelivered event ignored eventId={}", envelope.eventId());
+                return;
+            }
+
+            PricingEventEntity entity = PricingEvents.toEntity(envelope, Instant.now());
 
-            try {
-                repository.save(entity);
+            if (repository.insertIfAbsent(entity) > 0) {
                 log.info("Persisted pricing event eventId={} type={} correlationId={}",
                         envelope.eventId(), eventType, envelope.correlationId());
-            } catch (DataIntegrityViolationException e) {
+            } else {
                 log.debug("Duplicate event ignored (idempotent) eventId={}", envelope.eventId());
             }
+            recentEventIds.add(envelope.eventId());
         } finally {
             MDC.remove(MDC_CORRELATION_ID);
         }
     }
 
+    /** A filter hit is only a probable redelivery; the database decides. */
+    private boolean alreadyStored(UUID eventId) {
+        if (!recentEventIds.mightContain(eventId)) {
+            return false;
+        }
+        if (repository.existsById(eventId)) {
+            return true;
+        }
+        recentEventIds.falsePositives(1);
+        return false;
+    }
+
     public String topic() {
         return properties.topic();
     }
 
-    private String serializePayload(EventEnvelope envelope) {
-        if (envelope.payload() == null) return null;
-        try {
-            return objectMapper.writeValueAsString(envelope.payload());
-        } catch (JsonProcessingException e) {
-            log.warn("Could not serialize payload for eventId={}", envelope.eventId(), e);
-            return envelope.payload().toString();
-        }
+    public String[] topics() {
+        return PricingEvents.topics(properties);
     }
 }
@@ -0,0 +1,46 @@
+package demo.grid.pricing.consumer;
+
+import demo.grid.pricing.config.PricingProperties;
+import demo.grid.pricing.domain.PricingEventEntity;
+import demo.grid.schema.EventTopics;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.LazyEventEnvelope;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What both listener modes keep of an envelope. The payload is stored as the producer wrote it, straight from
+ * the consumed record's bytes.
+ */
+final class PricingEvents {
+
+    private static final List<String> TYPES = List.of(EventTypes.PRICING, EventTypes.GENERIC);
+
+    private PricingEvents() {
+    }
+
+    static boolean isPricing(String eventType) {
+        return TYPES.contains(eventType);
+    }
+
+    /** The base topic, plus the PRICING and GENERIC topics when routed. */
+    static String[] topics(PricingProperties properties) {
+        return properties.routed()
+                ? EventTopics.subscription(properties.topic(), TYPES)
+                : new String[]{properties.topic()};
+    }
+
+    static PricingEventEntity toEntity(LazyEventEnvelope envelope, Instant consumedAt) {
+        return new PricingEventEntity(
+                envelope.eventId(),
+                envelope.eventType(),
+                envelope.occurredAt(),
+                envelope.producedAt(),
+                envelope.source(),
+                envelope.correlationId(),
+                envelope.payloadJson(),
+                consumedAt
+        );
+    }
+}
@@ -4,10 +4,35 @@ import demo.grid.pricing.domain.PricingEventEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
 public interface PricingEventRepository extends JpaRepository<PricingEventEntity, UUID> {
 
+    String INSERT_IF_ABSENT = "INSERT INTO pricing_event ("
+            + "event_id, event_type, occurred_at, produced_at, source, correlation_id, "
+            + "payload, consumed_at"
+            + ") VALUES ("
+            + ":#{#event.eventId}, :#{#event.eventType}, :#{#event.occurredAt}, "
+            + ":#{#event.producedAt}, :#{#event.source}, :#{#event.correlationId}, "
+            + ":#{#event.payload}, :#{#event.consumedAt}"
+            + ") ON CONFLICT (event_id) DO NOTHING";
+
     Page<PricingEventEntity> findAllByOrderByConsumedAtDesc(Pageable pageable);
+
+    /**
+     * Inserts the row unless one with its event_id exists. Unlike {@link #save}, which merges entities with
+     * assigned ids and so selects before inserting, this is a single statement, and a duplicate is reported by the
+     * row count instead of a constraint violation.
+     *
+     * @return 1 if inserted, 0 if the event was already stored
+     */
+    @Modifying
+    @Transactional
+    @Query(value = INSERT_IF_ABSENT, nativeQuery = true)
+    int insertIfAbsent(@Param("event") PricingEventEntity event);
 }
@@ -0,0 +1,90 @@
+package demo.grid.pricing;
+
+import demo.grid.schema.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput and primary-key index size of {@code pricing_event}-shaped rows keyed by random v4
+ * ids against time-ordered {@link UuidV7} ids. The gap widens once the index no longer fits in shared
+ * buffers, so raise {@code ROWS} to see it on a machine with more memory.
+ * Run with {@code RUN_BENCHMARKS=true ./gradlew :pricing-consumer-service:test --tests '*BenchmarkTest'}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+class EventIdInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EventIdInsertBenchmarkTest.class);
+
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "shared_buffers=32MB");
+
+    @Test
+    void randomVersusTimeOrderedIds() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            connection.setAutoCommit(false);
+            Result v4 = insert(connection, "pricing_event_v4", UUID::randomUUID);
+            Result v7 = insert(connection, "pricing_event_v7", UuidV7::next);
+            log.info("UUIDv4: {} rows/s, pkey index {} MB", Math.round(v4.rowsPerSecond()), v4.indexBytes() >> 20);
+            log.info("UUIDv7: {} rows/s, pkey index {} MB", Math.round(v7.rowsPerSecond()), v7.indexBytes() >> 20);
+            assertThat(v7.indexBytes()).isPositive();
+        }
+    }
+
+    private static Result insert(Connection connection, String table, Supplier<UUID> ids) throws Exception {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE " + table + " (event_id uuid PRIMARY KEY, event_type varchar(64) NOT NULL,"
+                    + " occurred_at timestamptz NOT NULL, produced_at timestamptz NOT NULL, source varchar(256) NOT NULL,"
+                    + " correlation_id varchar(256), payload text, consumed_at timestamptz NOT NULL)");
+        }
+        connection.commit();
+        String sql = "INSERT INTO " + table + " VALUES (?, 'PRICING', ?, ?, 'benchmark', ?, '{\"price\":99}', ?)";
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= ROWS; i++) {
+                UUID id = ids.get();
+                Timestamp now = Timestamp.from(Instant.now());
+                insert.setObject(1, id);
+                insert.setTimestamp(2, now);
+                insert.setTimestamp(3, now);
+                insert.setString(4, id.toString());
+                insert.setTimestamp(5, now);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        double rowsPerSecond = ROWS / ((System.nanoTime() - start) / 1e9);
+        try (Statement query = connection.createStatement();
+             ResultSet size = query.executeQuery("SELECT pg_relation_size('" + table + "_pkey')")) {
+            size.next();
+            return new Result(rowsPerSecond, size.getLong(1));
+        }
+    }
+
+    private record Result(double rowsPerSecond, long indexBytes) {}
+}
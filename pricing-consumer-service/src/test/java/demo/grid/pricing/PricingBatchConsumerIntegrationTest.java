@@ -0,0 +1,106 @@
+package demo.grid.pricing;
+
+import demo.grid.pricing.repository.PricingEventRepository;
+import demo.grid.schema.EventEnvelope;
+import demo.grid.schema.EventTypes;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = "app.kafka.batch.enabled=true")
+@Testcontainers(disabledWithoutDocker = true)
+class PricingBatchConsumerIntegrationTest {
+
+    @Container
+    static KafkaContainer kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("grid")
+            .withUsername("grid")
+            .withPassword("grid-secret");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @TestConfiguration
+    static class TestKafkaProducerConfig {
+        @Bean
+        KafkaTemplate<String, EventEnvelope> testKafkaTemplate(
+                @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+            Map<String, Object> props = Map.of(
+                    ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                    ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, org.apache.kafka.common.serialization.StringSerializer.class,
+                    ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class,
+                    JsonSerializer.ADD_TYPE_INFO_HEADERS, false
+            );
+            return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+        }
+    }
+
+    @Autowired
+    KafkaTemplate<String, EventEnvelope> testKafkaTemplate;
+
+    @Autowired
+    PricingEventRepository repository;
+
+    @Value("${app.kafka.topic}")
+    String topic;
+
+    @Test
+    void pollIsPersistedOnceDespiteRedelivery() throws Exception {
+        List<UUID> pricingIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID eventId = UUID.randomUUID();
+            pricingIds.add(eventId);
+            send(new EventEnvelope(eventId, EventTypes.PRICING, Instant.now(), Instant.now(),
+                    "test-source", "corr-batch-" + i, null, "1"));
+        }
+        // A redelivered event and an event for another consumer in the same polls
+        UUID auditId = UUID.randomUUID();
+        send(new EventEnvelope(pricingIds.get(0), EventTypes.PRICING, Instant.now(), Instant.now(),
+                "test-source", "corr-batch-0", null, "1"));
+        send(new EventEnvelope(auditId, EventTypes.AUDIT, Instant.now(), Instant.now(),
+                "test-source", "corr-batch-audit", null, "1"));
+
+        await().atMost(15, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(repository.findAllById(pricingIds)).hasSize(pricingIds.size()));
+        assertThat(repository.findById(auditId)).isEmpty();
+        assertThat(repository.findById(pricingIds.get(0))).get()
+                .extracting(e -> e.getCorrelationId()).isEqualTo("corr-batch-0");
+    }
+
+    private void send(EventEnvelope envelope) throws Exception {
+        testKafkaTemplate.send(topic, envelope.eventId().toString(), envelope).get(5, TimeUnit.SECONDS);
+    }
+}
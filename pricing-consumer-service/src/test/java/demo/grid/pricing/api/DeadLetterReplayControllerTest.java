@@ -0,0 +1,85 @@
+package demo.grid.pricing.api;
+
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.kafka.DeadLetterReplayController;
+import demo.grid.schema.kafka.DeadLetterReplayer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** The shared replay endpoints as ReplayConfig declares them in this service. */
+@WebMvcTest(controllers = DeadLetterReplayController.class)
+@Import(DeadLetterReplayController.class)
+class DeadLetterReplayControllerTest {
+
+    private static final String DLT = "grid.events.v1-dlt";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private DeadLetterReplayer<LazyEventEnvelope> replayer;
+
+    @Test
+    void startReturnsTheRunningJob() throws Exception {
+        when(replayer.start(any())).thenReturn(job("job-1", DeadLetterReplayer.State.RUNNING));
+
+        mvc.perform(post("/api/admin/replays")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"topic\":\"" + DLT + "\",\"from\":\"2026-01-01T00:00:00Z\",\"ratePerSecond\":100}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+
+        verify(replayer).start(new DeadLetterReplayer.Request(DLT, Instant.parse("2026-01-01T00:00:00Z"), null, 100, 0));
+    }
+
+    @Test
+    void startReturns400ForATopicThatIsNotReplayable() throws Exception {
+        when(replayer.start(any())).thenThrow(new IllegalArgumentException("Not a retry or dead-letter topic"));
+
+        mvc.perform(post("/api/admin/replays")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"topic\":\"grid.events.v1\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void startReturns409WhileAnotherReplayRuns() throws Exception {
+        when(replayer.start(any())).thenThrow(new IllegalStateException("1 replay job(s) already running"));
+
+        mvc.perform(post("/api/admin/replays")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"topic\":\"" + DLT + "\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void getAndCancelReturn404ForUnknownJobs() throws Exception {
+        when(replayer.status("nope")).thenReturn(Optional.empty());
+
+        mvc.perform(get("/api/admin/replays/nope")).andExpect(status().isNotFound());
+        mvc.perform(delete("/api/admin/replays/nope")).andExpect(status().isNotFound());
+    }
+
+    private static DeadLetterReplayer.Status job(String id, DeadLetterReplayer.State state) {
+        return new DeadLetterReplayer.Status(id, DLT, state, 100, 1, 10, 0, 0, 0, 0, null, Instant.now(), null,
+                null);
+    }
+}
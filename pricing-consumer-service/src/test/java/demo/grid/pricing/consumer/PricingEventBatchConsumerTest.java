@@ -0,0 +1,126 @@
+package demo.grid.pricing.consumer;
+
+import demo.grid.pricing.config.PricingProperties;
+import demo.grid.pricing.domain.PricingEventEntity;
+import demo.grid.pricing.repository.PricingEventBatchRepository;
+import demo.grid.schema.EventTypes;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class PricingEventBatchConsumerTest {
+
+    private final PricingEventBatchRepository repository = mock(PricingEventBatchRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PricingEventBatchConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new PricingEventBatchConsumer(repository, mock(PricingProperties.class),
+                new RecentEventIds(1_000, 0.01), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesPricingEventsOfThePollInOneCall() {
+        LazyEventEnvelope pricing = envelope(EventTypes.PRICING);
+        LazyEventEnvelope generic = envelope(EventTypes.GENERIC);
+        when(repository.insertAll(anyList())).thenReturn(1);
+
+        consumer.onEvents(List.of(pricing, envelope(EventTypes.AUDIT), generic));
+
+        ArgumentCaptor<List<PricingEventEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertAll(captor.capture());
+        assertThat(captor.getValue()).extracting(PricingEventEntity::getEventId)
+                .containsExactly(pricing.eventId(), generic.eventId());
+        assertThat(events("inserted")).isEqualTo(1);
+        assertThat(events("duplicate")).isEqualTo(1);
+        assertThat(events("skipped")).isEqualTo(1);
+        assertThat(meterRegistry.get("pricing.batch.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeliveredPoll_dropsStoredEventsBeforeWriting() {
+        LazyEventEnvelope first = envelope(EventTypes.PRICING);
+        LazyEventEnvelope second = envelope(EventTypes.PRICING);
+        when(repository.insertAll(anyList())).thenReturn(2, 1);
+        consumer.onEvents(List.of(first, second));
+        when(repository.findStored(anyCollection())).thenReturn(Set.of(first.eventId(), second.eventId()));
+
+        LazyEventEnvelope fresh = envelope(EventTypes.PRICING);
+        consumer.onEvents(List.of(first, second, fresh));
+
+        ArgumentCaptor<List<PricingEventEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).insertAll(captor.capture());
+        assertThat(captor.getValue()).extracting(PricingEventEntity::getEventId).containsExactly(fresh.eventId());
+        assertThat(events("inserted")).isEqualTo(3);
+        assertThat(events("duplicate")).isEqualTo(2);
+    }
+
+    @Test
+    void pollWithoutPricingEvents_writesNothing() {
+        consumer.onEvents(List.of(envelope(EventTypes.ALERT)));
+
+        verifyNoInteractions(repository);
+        assertThat(events("skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void constraintViolation_fallsBackToRowByRowAndDropsOffendingRows() {
+        LazyEventEnvelope good = envelope(EventTypes.PRICING);
+        LazyEventEnvelope bad = envelope(EventTypes.PRICING);
+        LazyEventEnvelope stored = envelope(EventTypes.PRICING);
+        when(repository.insertAll(anyList())).thenThrow(new DataIntegrityViolationException("source is null"));
+        when(repository.insert(any())).thenAnswer(call -> {
+            UUID id = call.<PricingEventEntity>getArgument(0).getEventId();
+            if (id.equals(bad.eventId())) {
+                throw new DataIntegrityViolationException("source is null");
+            }
+            return id.equals(good.eventId());
+        });
+
+        consumer.onEvents(List.of(good, bad, stored));
+
+        verify(repository, times(3)).insert(any());
+        assertThat(events("inserted")).isEqualTo(1);
+        assertThat(events("rejected")).isEqualTo(1);
+        assertThat(events("duplicate")).isEqualTo(1);
+    }
+
+    @Test
+    void otherFailures_propagateSoTheBatchIsNotCommitted() {
+        when(repository.insertAll(anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThatThrownBy(() -> consumer.onEvents(List.of(envelope(EventTypes.PRICING))))
+                .isInstanceOf(QueryTimeoutException.class);
+        verify(repository, never()).insert(any());
+    }
+
+    private double events(String outcome) {
+        return meterRegistry.get("pricing.batch.events").tag("outcome", outcome).counter().count();
+    }
+
+    private static LazyEventEnvelope envelope(String eventType) {
+        Instant now = Instant.now();
+        return new LazyEventEnvelope(UUID.randomUUID(), eventType, now, now, "event-ingest-service", "corr-1", null,
+                "1");
+    }
+}
@@ -1,10 +1,10 @@
 package demo.grid.pricing.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import demo.grid.pricing.config.PricingProperties;
 import demo.grid.pricing.repository.PricingEventRepository;
-import demo.grid.schema.EventEnvelope;
 import demo.grid.schema.EventTypes;
+import demo.grid.schema.LazyEventEnvelope;
+import demo.grid.schema.RecentEventIds;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -30,7 +30,7 @@ class PricingEventConsumerTest {
     private PricingProperties properties;
 
     @Spy
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private RecentEventIds recentEventIds = new RecentEventIds(1_000, 0.01);
 
     @InjectMocks
     private PricingEventConsumer consumer;
@@ -39,7 +39,7 @@ class PricingEventConsumerTest {
     void persistsPricingEvent() {
         UUID eventId = UUID.randomUUID();
         Instant now = Instant.now();
-        EventEnvelope envelope = new EventEnvelope(
+        LazyEventEnvelope envelope = new LazyEventEnvelope(
                 eventId,
                 EventTypes.PRICING,
                 now,
@@ -54,16 +54,32 @@ class PricingEventConsumerTest {
 
         ArgumentCaptor<demo.grid.pricing.domain.PricingEventEntity> captor =
                 ArgumentCaptor.forClass(demo.grid.pricing.domain.PricingEventEntity.class);
-        verify(repository).save(captor.capture());
+        verify(repository).insertIfAbsent(captor.capture());
         demo.grid.pricing.domain.PricingEventEntity saved = captor.getValue();
         assertThat(saved.getEventId()).isEqualTo(eventId);
         assertThat(saved.getEventType()).isEqualTo(EventTypes.PRICING);
         assertThat(saved.getCorrelationId()).isEqualTo("corr-1");
     }
 
+    @Test
+    void redeliveredEvent_isCheckedByIdInsteadOfInsertedAgain() {
+        Instant now = Instant.now();
+        LazyEventEnvelope envelope = new LazyEventEnvelope(
+                UUID.randomUUID(), EventTypes.PRICING, now, now, "event-ingest-service", "corr-1", null, "1");
+        when(repository.insertIfAbsent(any())).thenReturn(1);
+        when(repository.existsById(envelope.eventId())).thenReturn(true);
+
+        consumer.onEvent(envelope, "corr-1");
+        consumer.onEvent(envelope, "corr-1");
+
+        verify(repository, times(1)).insertIfAbsent(any());
+        verify(repository, times(1)).existsById(envelope.eventId());
+        assertThat(recentEventIds.hitRatio()).isEqualTo(0.5);
+    }
+
     @Test
     void skipsNonPricingEventType() {
-        EventEnvelope envelope = new EventEnvelope(
+        LazyEventEnvelope envelope = new LazyEventEnvelope(
                 UUID.randomUUID(),
                 EventTypes.AUDIT,
                 Instant.now(),
@@ -76,6 +92,15 @@ class PricingEventConsumerTest {
 
         consumer.onEvent(envelope, null);
 
-        verify(repository, never()).save(any());
+        verify(repository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    void routedSubscriptionAddsPricingAndGenericTopics() {
+        when(properties.topic()).thenReturn("grid.events.v1");
+        when(properties.routed()).thenReturn(true);
+
+        assertThat(consumer.topics())
+                .containsExactly("grid.events.v1", "grid.events.v1.pricing", "grid.events.v1.generic");
     }
 }
@@ -3,6 +3,7 @@ rootProject.name = "event-driven-microservices"
 include(
     "events-schema",
     "event-ingest-service",
+    "event-ingest-reactive-service",
     "pricing-consumer-service",
     "alerting-service",
     "audit-service"